@@ -0,0 +1,92 @@
+package com.mindease.cache;
+
+import com.mindease.mapper.CounselorProfileMapper;
+import com.mindease.pojo.entity.CounselorProfile;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 咨询师搜索索引查询耗时基准
+ * 以随机生成的咨询师资料构建索引（不访问数据库），测量推荐常用的多关键词查询。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="CounselorSearchIndexBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CounselorSearchIndexBenchmark {
+
+    private static final String[] SPECIALTIES = {"焦虑", "抑郁", "失眠", "压力管理", "家庭关系", "情绪管理", "亲子教育",
+            "婚恋情感", "职场压力", "青少年成长", "创伤疗愈", "强迫症"};
+
+    private static final String[] CITIES = {"北京", "上海", "广州", "深圳", "杭州", "成都", "武汉", "线上"};
+
+    private static final String[] TITLES = {"咨询师", "资深咨询师", "心理治疗师", "实习咨询师"};
+
+    private static final String SURNAMES = "张王李赵刘陈杨黄周吴";
+
+    @Param({"1000", "10000"})
+    private int counselorCount;
+
+    private CounselorSearchIndex index;
+
+    private final List<String> keywords = List.of("焦虑", "紧张", "担忧", "失眠", "睡眠", "北京");
+
+    @Setup
+    public void setup() {
+        List<CounselorProfile> profiles = generate(counselorCount);
+        CounselorProfileMapper mapper = (CounselorProfileMapper) Proxy.newProxyInstance(
+                CounselorProfileMapper.class.getClassLoader(), new Class<?>[]{CounselorProfileMapper.class},
+                (proxy, method, args) -> "getAllActiveProfiles".equals(method.getName()) ? profiles : null);
+
+        index = new CounselorSearchIndex();
+        ReflectionTestUtils.setField(index, "counselorProfileMapper", mapper);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        index.rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.destroy();
+    }
+
+    @Benchmark
+    public List<Long> smart() {
+        return index.search(keywords, "smart");
+    }
+
+    @Benchmark
+    public List<Long> ratingDesc() {
+        return index.search(keywords, "rating_desc");
+    }
+
+    private static List<CounselorProfile> generate(int count) {
+        Random random = new Random(42);
+        List<CounselorProfile> profiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String first = SPECIALTIES[random.nextInt(SPECIALTIES.length)];
+            String second = SPECIALTIES[random.nextInt(SPECIALTIES.length)];
+            String city = CITIES[random.nextInt(CITIES.length)];
+            CounselorProfile profile = new CounselorProfile();
+            profile.setUserId((long) i + 1);
+            profile.setRealName(SURNAMES.charAt(random.nextInt(SURNAMES.length())) + "老师" + i);
+            profile.setTitle(TITLES[random.nextInt(TITLES.length)]);
+            profile.setSpecialty("[\"" + first + "\", \"" + second + "\"]");
+            profile.setBio("从业多年，擅长" + first + "与" + second + "方向的个体咨询，常驻" + city + "。");
+            profile.setLocation(city);
+            profile.setPricePerHour(BigDecimal.valueOf(100 + random.nextInt(50) * 10));
+            profile.setRating(BigDecimal.valueOf(30 + random.nextInt(21), 1));
+            profiles.add(profile);
+        }
+        return profiles;
+    }
+}
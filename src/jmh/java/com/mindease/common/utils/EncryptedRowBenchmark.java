@@ -0,0 +1,85 @@
+package com.mindease.common.utils;
+
+import com.mindease.config.SecurityProperties;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加密列的行物化开销基准
+ * 每行模拟情绪日记的三个加密列（日记内容、标签、AI分析），一页 pageSize 行。
+ * legacyPage 为改造前的解密方式（每个值 Cipher.getInstance、重建密钥并拷贝 IV 与密文），
+ * currentPage 为 EncryptedStringTypeHandler 现在逐值调用的 decrypt，batchPage 为 decryptAll。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="EncryptedRowBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptedRowBenchmark {
+
+    private static final String KEY = "MindEase2024SecretKey32Bytes!!!!";
+
+    @Param({"20", "200"})
+    private int pageSize;
+
+    private List<String> ciphertexts;
+
+    @Setup
+    public void setup() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setAesKey(KEY);
+        new AesEncryptUtil(properties).init();
+
+        ciphertexts = new ArrayList<>(pageSize * 3);
+        for (int i = 0; i < pageSize; i++) {
+            ciphertexts.add(AesEncryptUtil.encrypt("今天工作压力有点大，晚上睡得不太好，第" + i + "天记录情绪。".repeat(4)));
+            ciphertexts.add(AesEncryptUtil.encrypt("[\"工作\",\"睡眠\",\"压力\"]"));
+            ciphertexts.add(AesEncryptUtil.encrypt("感到压力时可以尝试深呼吸和规律作息，必要时与信任的人交流。".repeat(3)));
+        }
+    }
+
+    @Benchmark
+    public void legacyPage(Blackhole blackhole) throws Exception {
+        for (String ciphertext : ciphertexts) {
+            blackhole.consume(legacyDecrypt(ciphertext));
+        }
+    }
+
+    @Benchmark
+    public void currentPage(Blackhole blackhole) {
+        for (String ciphertext : ciphertexts) {
+            blackhole.consume(AesEncryptUtil.decrypt(ciphertext));
+        }
+    }
+
+    @Benchmark
+    public List<String> batchPage() {
+        return AesEncryptUtil.decryptAll(ciphertexts);
+    }
+
+    /**
+     * 改造前的单值解密
+     */
+    private static String legacyDecrypt(String ciphertext) throws Exception {
+        byte[] combined = Base64.getDecoder().decode(ciphertext);
+        byte[] iv = new byte[12];
+        byte[] encrypted = new byte[combined.length - 12];
+        System.arraycopy(combined, 0, iv, 0, 12);
+        System.arraycopy(combined, 12, encrypted, 0, encrypted.length);
+        SecretKeySpec keySpec = new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "AES");
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+        return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
+    }
+}
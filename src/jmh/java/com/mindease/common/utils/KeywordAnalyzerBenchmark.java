@@ -0,0 +1,136 @@
+package com.mindease.common.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 推荐关键词分析耗时基准
+ * 每次调用模拟推荐流程的一次关键词处理：从测评结论提取关键词，再扩展匹配变体。
+ * legacy 为拆分前 CounselorServiceImpl 中的实现（每次编译正则、重建停用词集合、List.contains 去重、逐个城市 contains），
+ * current 为 KeywordAnalyzer。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="KeywordAnalyzerBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordAnalyzerBenchmark {
+
+    private static final Map<String, List<String>> ASSESSMENT_KEYWORD_MAP = new HashMap<String, List<String>>() {{
+        put("焦虑", Arrays.asList("焦虑", "紧张", "担忧", "恐慌"));
+        put("抑郁", Arrays.asList("抑郁", "情绪低落", "悲伤", "失落"));
+        put("失眠", Arrays.asList("失眠", "睡眠", "入睡困难", "睡眠障碍"));
+        put("压力", Arrays.asList("压力", "疲惫", "倦怠", "应激"));
+        put("强迫", Arrays.asList("强迫", "反复", "重复行为"));
+        put("恐惧", Arrays.asList("恐惧", "害怕", "回避"));
+    }};
+
+    private static final Set<String> CHINESE_CITIES = new HashSet<>(Arrays.asList(
+        "北京", "上海", "广州", "深圳", "天津", "重庆", "成都", "杭州", "武汉", "西安",
+        "南京", "郑州", "长沙", "沈阳", "青岛", "大连", "宁波", "厦门", "济南", "哈尔滨",
+        "苏州", "无锡", "福州", "石家庄", "昆明", "兰州", "太原", "合肥", "南昌", "贵阳",
+        "南宁", "海口", "银川", "西宁", "呼和浩特", "乌鲁木齐", "拉萨", "线上", "在线"
+    ));
+
+    @Param({"level", "description"})
+    private String input;
+
+    private String text;
+
+    private final KeywordAnalyzer analyzer = new KeywordAnalyzer();
+
+    @Setup
+    public void setup() {
+        // level 为测评等级（推荐流程的实际输入），description 为较长的结论描述
+        text = "level".equals(input)
+                ? "中度焦虑"
+                : "您目前处于中度焦虑状态，近两周情绪低落、兴趣减退，有明显的失眠和疲惫感，工作压力大，" +
+                  "白天焦虑紧张、注意力难以集中，建议关注睡眠与压力管理，必要时寻求专业帮助。";
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        blackhole.consume(legacyExpand(legacyExtract(text)));
+    }
+
+    @Benchmark
+    public void current(Blackhole blackhole) {
+        blackhole.consume(analyzer.expandVariants(analyzer.extractKeywords(text)));
+    }
+
+    /**
+     * 改造前的 extractKeywordsFromText
+     */
+    private static List<String> legacyExtract(String text) {
+        List<String> keywords = new ArrayList<>();
+        if (text == null || text.trim().isEmpty()) {
+            return keywords;
+        }
+        for (Map.Entry<String, List<String>> entry : ASSESSMENT_KEYWORD_MAP.entrySet()) {
+            if (text.contains(entry.getKey())) {
+                keywords.addAll(entry.getValue());
+            }
+        }
+        Pattern pattern = Pattern.compile("[\\u4e00-\\u9fa5]{2,4}");
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            String word = matcher.group();
+            if (!legacyIsStopWord(word)) {
+                addIfAbsent(keywords, word);
+            }
+        }
+        return keywords.stream().distinct().collect(Collectors.toList());
+    }
+
+    private static boolean legacyIsStopWord(String word) {
+        Set<String> stopWords = new HashSet<>(Arrays.asList(
+            "的", "是", "在", "有", "和", "了", "不", "与", "中", "为", "对", "及",
+            "个", "等", "但", "或", "从", "到", "而", "由", "也", "很", "就", "可能",
+            "轻度", "中度", "重度", "严重", "明显", "症状", "状态", "情况", "程度"
+        ));
+        return stopWords.contains(word);
+    }
+
+    /**
+     * 改造前的 expandKeywordVariantsOptimized
+     */
+    private static List<String> legacyExpand(List<String> source) {
+        if (source == null || source.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> suffixes = Arrays.asList("症", "障碍", "问题", "情况", "状态", "情绪", "病", "感");
+        List<String> result = new ArrayList<>();
+        for (String kw : source) {
+            if (kw == null) continue;
+            String base = kw.trim();
+            if (base.isEmpty()) continue;
+            addIfAbsent(result, base);
+            for (String suffix : suffixes) {
+                if (base.endsWith(suffix) && base.length() > suffix.length()) {
+                    String stripped = base.substring(0, base.length() - suffix.length());
+                    if (stripped.length() >= 2) {
+                        addIfAbsent(result, stripped);
+                    }
+                }
+            }
+            if (base.length() > 3 && !(CHINESE_CITIES.contains(base) || CHINESE_CITIES.stream().anyMatch(base::contains))) {
+                addIfAbsent(result, base.substring(0, base.length() - 1));
+            }
+        }
+        return result;
+    }
+
+    private static void addIfAbsent(List<String> list, String value) {
+        if (!list.contains(value)) {
+            list.add(value);
+        }
+    }
+}
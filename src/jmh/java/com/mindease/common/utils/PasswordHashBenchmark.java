@@ -0,0 +1,49 @@
+package com.mindease.common.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PBKDF2 密码校验耗时基准，用于选择 mindease.password.iterations
+ * 采样模式输出 p99；contended 以 CPU 核数个线程同时校验，对应密码哈希线程池满载时的单次耗时。
+ * 取 contended 的 p99 加上排队时间仍在登录耗时预算内的最大迭代次数。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="PasswordHashBenchmark"
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery";
+
+    @Param({"100000", "210000", "310000", "600000"})
+    private int iterations;
+
+    private Pbkdf2PasswordEncoder encoder;
+
+    private String encodedPassword;
+
+    @Setup
+    public void setup() {
+        encoder = new Pbkdf2PasswordEncoder();
+        ReflectionTestUtils.setField(encoder, "iterations", iterations);
+        encodedPassword = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean single() {
+        return encoder.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean contended() {
+        return encoder.matches(PASSWORD, encodedPassword);
+    }
+}
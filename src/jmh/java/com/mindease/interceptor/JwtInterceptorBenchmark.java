@@ -0,0 +1,85 @@
+package com.mindease.interceptor;
+
+import com.mindease.common.constant.JwtClaimsConstant;
+import com.mindease.common.utils.JwtTokenProvider;
+import com.mindease.common.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 校验吞吐基准
+ * legacyParse 为改造前每个请求按字符串密钥重新构建密钥与解析器再验签；
+ * reusedParser 复用启动时构建的解析器，但每次都验签；cachedParse 为 JwtTokenProvider 命中已校验令牌缓存；
+ * interceptor 为完整的 preHandle（普通用户角色，不查询账号状态）。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="JwtInterceptorBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtInterceptorBenchmark {
+
+    private static final String SECRET_KEY = "mindease-benchmark-secret-key-0123456789abcdef";
+
+    private String token;
+
+    private JwtParser parser;
+
+    private JwtTokenProvider provider;
+
+    private JwtTokenInterceptor interceptor;
+
+    private HandlerMethod handler;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(provider, "ttl", TimeUnit.HOURS.toMillis(2));
+        ReflectionTestUtils.setField(provider, "cacheSize", 10000);
+        provider.init();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtClaimsConstant.USER_ID, 1L);
+        claims.put(JwtClaimsConstant.ROLE, "USER");
+        token = provider.createToken(claims);
+        parser = JwtUtil.buildParser(JwtUtil.buildKey(SECRET_KEY));
+
+        interceptor = new JwtTokenInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtTokenProvider", provider);
+        handler = new HandlerMethod(this, "legacyParse");
+    }
+
+    @Benchmark
+    public Claims legacyParse() {
+        return JwtUtil.parseJWT(SECRET_KEY, token);
+    }
+
+    @Benchmark
+    public Claims reusedParser() {
+        return JwtUtil.parseJWT(parser, token);
+    }
+
+    @Benchmark
+    public Claims cachedParse() {
+        return provider.parseToken(token);
+    }
+
+    @Benchmark
+    public boolean interceptor() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/mood/log/list");
+        request.addHeader("token", token);
+        return interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+    }
+}
@@ -0,0 +1,113 @@
+package com.mindease.rag;
+
+import dev.langchain4j.community.store.embedding.redis.RedisEmbeddingStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识库检索耗时基准
+ * 与线上检索一致，每次取相关度最高的 3 条（minScore 0.5），向量维度与 text-embedding-v3 相同。
+ * 默认只测进程内向量库；对比 Redis 向量检索需要可用的 Redis Stack，
+ * 通过 -Dbenchmark.redis.host / -Dbenchmark.redis.port 指定（默认 localhost:6379），数据写入独立的索引并在结束时删除。
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="EmbeddingStoreBenchmark"
+ * 对比：mvn -Pjmh test-compile exec:exec -Djmh.args="EmbeddingStoreBenchmark -p store=local,redis -jvmArgsAppend -Dbenchmark.redis.host=localhost"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingStoreBenchmark {
+
+    private static final int DIMENSION = 1024;
+
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"local"})
+    private String store;
+
+    @Param({"1000", "10000"})
+    private int segmentCount;
+
+    private EmbeddingStore<TextSegment> embeddingStore;
+
+    private List<EmbeddingSearchRequest> requests;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Embedding> embeddings = new ArrayList<>(segmentCount);
+        List<TextSegment> segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            embeddings.add(Embedding.from(randomVector(random)));
+            segments.add(TextSegment.from("第" + i + "段：焦虑情绪的识别与认知行为干预要点。"));
+        }
+
+        embeddingStore = "redis".equals(store)
+                ? RedisEmbeddingStore.builder()
+                        .host(System.getProperty("benchmark.redis.host", "localhost"))
+                        .port(Integer.getInteger("benchmark.redis.port", 6379))
+                        .indexName("benchmark-embedding-index")
+                        .prefix("benchmark-embedding:")
+                        .dimension(DIMENSION)
+                        .build()
+                : new LocalEmbeddingStore(null);
+        embeddingStore.removeAll();
+        // 分批写入，避免单次请求过大
+        for (int from = 0; from < segmentCount; from += 500) {
+            int to = Math.min(segmentCount, from + 500);
+            embeddingStore.addAll(embeddings.subList(from, to), segments.subList(from, to));
+        }
+
+        requests = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            // 以已有向量加扰动作为查询，保证有超过 minScore 的结果
+            float[] query = embeddings.get(random.nextInt(segmentCount)).vector().clone();
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] += (float) (random.nextGaussian() * 0.05);
+            }
+            requests.add(EmbeddingSearchRequest.builder()
+                    .queryEmbedding(Embedding.from(query))
+                    .maxResults(3)
+                    .minScore(0.5)
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (embeddingStore instanceof RedisEmbeddingStore redisStore) {
+            redisStore.removeAll();
+        }
+        if (embeddingStore instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Benchmark
+    public EmbeddingSearchResult<TextSegment> top3() {
+        EmbeddingSearchRequest request = requests.get(next);
+        next = (next + 1) % QUERY_COUNT;
+        return embeddingStore.search(request);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,416 @@
+package com.mindease.cache;
+
+import com.mindease.cache.CounselorProfileCache.CounselorSnapshot;
+import com.mindease.cache.CounselorProfileCache.WorkSchedule;
+import com.mindease.common.utils.TransactionUtil;
+import com.mindease.mapper.AppointmentMapper;
+import com.mindease.pojo.dto.ScheduleSetDTO;
+import com.mindease.pojo.entity.Appointment;
+import com.mindease.pojo.entity.CounselorProfile;
+import com.mindease.pojo.vo.TimeSlotVO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 咨询师可用时段内存索引
+ * 按咨询师缓存编译后的排班模板（每个工作日的时段起点位图）以及未来若干天的预约占用（分钟级位图），
+ * 查询时段、最近可用时间只需位图扫描，不再访问数据库。
+ * 预约创建、取消以及排班修改会在事务提交后增量更新索引，并使更新前开始的加载结果作废，
+ * 避免加载线程用变更前查到的预约覆盖刚更新的条目。
+ */
+@Component
+@Slf4j
+public class CounselorAvailabilityIndex {
+
+    /**
+     * 索引覆盖的天数（含今天）
+     */
+    public static final int WINDOW_DAYS = 7;
+
+    /**
+     * 单个时段长度（分钟）
+     */
+    private static final int SLOT_MINUTES = 60;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * 索引条目最长存活时间，作为多实例部署下的兜底刷新
+     */
+    private static final long ENTRY_TTL_MILLIS = 10 * 60 * 1000L;
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Autowired
+    private CounselorProfileCache counselorProfileCache;
+
+    @Autowired
+    private AppointmentMapper appointmentMapper;
+
+    @Value("${mindease.availability-index.max-size:2000}")
+    private int maxSize;
+
+    private VersionedLruCache<Long, CounselorAvailability> index;
+
+    @PostConstruct
+    public void init() {
+        index = new VersionedLruCache<>(maxSize, ENTRY_TTL_MILLIS);
+    }
+
+    /**
+     * 获取咨询师索引条目，不存在或过期时从数据库加载
+     *
+     * @param counselorId 咨询师ID
+     * @return 索引条目，咨询师资料不存在时返回 null
+     */
+    public CounselorAvailability get(Long counselorId) {
+        CounselorAvailability entry = index.get(counselorId);
+        if (entry != null && !entry.isStale()) {
+            return entry;
+        }
+        long stamp = index.startLoad();
+        CounselorSnapshot profile = counselorProfileCache.get(counselorId);
+        if (profile == null) {
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        List<Appointment> appointments = appointmentMapper.getByCounselorIdsAndRange(
+                Collections.singletonList(counselorId), today.atStartOfDay(), today.plusDays(WINDOW_DAYS).atStartOfDay());
+        entry = build(profile.getWorkSchedule(), today, appointments);
+        // 加载期间有变更时不写入，本次返回的结果仍可使用，下次查询重新加载
+        index.putLoaded(counselorId, entry, stamp);
+        return entry;
+    }
+
+    /**
+     * 批量预加载：对尚未索引的咨询师，使用已查询到的资料和一次批量预约查询构建索引
+     *
+     * @param profiles 候选咨询师资料
+     */
+    public void preload(List<CounselorProfile> profiles) {
+        List<CounselorProfile> missing = profiles.stream()
+                .filter(p -> {
+                    CounselorAvailability entry = index.get(p.getUserId());
+                    return entry == null || entry.isStale();
+                })
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        long stamp = index.startLoad();
+        LocalDate today = LocalDate.now();
+        List<Long> counselorIds = missing.stream()
+                .map(CounselorProfile::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, List<Appointment>> appointmentMap = appointmentMapper.getByCounselorIdsAndRange(
+                        counselorIds, today.atStartOfDay(), today.plusDays(WINDOW_DAYS).atStartOfDay())
+                .stream()
+                .collect(Collectors.groupingBy(Appointment::getCounselorId));
+
+        for (CounselorProfile profile : missing) {
+            index.putLoaded(profile.getUserId(),
+                    build(counselorProfileCache.snapshotOf(profile).getWorkSchedule(), today,
+                            appointmentMap.getOrDefault(profile.getUserId(), Collections.emptyList())),
+                    stamp);
+        }
+        log.debug("预加载咨询师可用时段索引，数量:{}", missing.size());
+    }
+
+    /**
+     * 排班变更后更新索引（事务提交后生效）
+     */
+    public void onScheduleChanged(Long counselorId, ScheduleSetDTO schedule) {
+        TransactionUtil.afterCommit(() -> {
+            ScheduleTemplate template = compile(WorkSchedule.compile(schedule));
+            applyChange(counselorId, entry -> entry.updateSchedule(template));
+        });
+    }
+
+    /**
+     * 新增有效预约后更新索引（事务提交后生效）
+     */
+    public void onAppointmentBooked(Appointment appointment) {
+        TransactionUtil.afterCommit(() -> applyChange(appointment.getCounselorId(), entry -> entry.book(appointment)));
+    }
+
+    /**
+     * 预约取消或完成后释放占用（事务提交后生效）
+     */
+    public void onAppointmentReleased(Appointment appointment) {
+        TransactionUtil.afterCommit(() -> applyChange(appointment.getCounselorId(),
+                entry -> entry.release(appointment.getId(), appointment.getStartTime().toLocalDate())));
+    }
+
+    /**
+     * 移除指定咨询师的索引
+     */
+    public void evict(Long counselorId) {
+        index.invalidate(counselorId);
+    }
+
+    /**
+     * 先标记变更使正在进行的加载作废，再原地更新已有条目；
+     * 顺序不能颠倒，否则加载结果可能在两步之间写入而漏掉本次变更
+     */
+    private void applyChange(Long counselorId, Consumer<CounselorAvailability> change) {
+        index.markChanged(counselorId);
+        CounselorAvailability entry = index.get(counselorId);
+        if (entry != null) {
+            change.accept(entry);
+        }
+    }
+
+    private CounselorAvailability build(WorkSchedule workSchedule, LocalDate today, List<Appointment> appointments) {
+        ScheduleTemplate template = null;
+        if (workSchedule != null) {
+            template = workSchedule.isValid() ? compile(workSchedule) : ScheduleTemplate.INVALID;
+        }
+
+        CounselorAvailability entry = new CounselorAvailability(template, today);
+        for (Appointment appointment : appointments) {
+            entry.book(appointment);
+        }
+        return entry;
+    }
+
+    /**
+     * 将排班编译为每个工作日的时段起点位图
+     */
+    private ScheduleTemplate compile(WorkSchedule schedule) {
+        BitSet[] weekdays = new BitSet[8];
+        BitSet slotStarts = new BitSet(MINUTES_PER_DAY);
+        for (int i = 0; i < schedule.workHourCount(); i++) {
+            int end = schedule.endMinute(i);
+            // 按1小时分割时段
+            for (int s = schedule.startMinute(i); s + SLOT_MINUTES <= end; s += SLOT_MINUTES) {
+                slotStarts.set(s);
+            }
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (schedule.isWorkDay(day)) {
+                weekdays[day.getValue()] = slotStarts;
+            }
+        }
+        return new ScheduleTemplate(weekdays);
+    }
+
+    /**
+     * 编译后的排班模板，下标为 1-7（Monday=1），非工作日为 null
+     */
+    static final class ScheduleTemplate {
+
+        static final ScheduleTemplate INVALID = new ScheduleTemplate(new BitSet[8]);
+
+        private final BitSet[] weekdays;
+
+        ScheduleTemplate(BitSet[] weekdays) {
+            this.weekdays = weekdays;
+        }
+
+        BitSet slotStarts(LocalDate date) {
+            return weekdays[date.getDayOfWeek().getValue()];
+        }
+    }
+
+    /**
+     * 单个咨询师的可用性索引
+     */
+    public static final class CounselorAvailability {
+
+        private volatile ScheduleTemplate template;
+
+        private final LocalDate windowStart;
+
+        // 日期 -> (预约ID -> [开始分钟, 结束分钟))
+        private final Map<LocalDate, Map<Long, int[]>> bookings = new HashMap<>();
+
+        // 日期 -> 分钟级占用位图
+        private final Map<LocalDate, BitSet> occupied = new HashMap<>();
+
+        CounselorAvailability(ScheduleTemplate template, LocalDate windowStart) {
+            this.template = template;
+            this.windowStart = windowStart;
+        }
+
+        /**
+         * 是否已设置排班
+         */
+        public boolean hasSchedule() {
+            return template != null;
+        }
+
+        /**
+         * 排班数据是否可解析
+         */
+        public boolean isScheduleValid() {
+            return template != ScheduleTemplate.INVALID;
+        }
+
+        /**
+         * 日期是否在索引窗口内
+         */
+        public boolean covers(LocalDate date) {
+            return !date.isBefore(windowStart) && date.isBefore(windowStart.plusDays(WINDOW_DAYS));
+        }
+
+        /**
+         * 获取索引窗口内某日的时段列表，非工作日返回空列表
+         */
+        public synchronized List<TimeSlotVO> getDaySlots(LocalDate date) {
+            return buildSlots(date, occupied.get(date));
+        }
+
+        /**
+         * 使用给定的预约计算某日时段列表（用于索引窗口外的日期）
+         */
+        public List<TimeSlotVO> getDaySlots(LocalDate date, List<Appointment> appointments) {
+            BitSet bits = new BitSet(MINUTES_PER_DAY);
+            for (Appointment appointment : appointments) {
+                int[] range = toMinuteRange(appointment);
+                bits.set(range[0], Math.max(range[0], range[1]));
+            }
+            return buildSlots(date, bits);
+        }
+
+        /**
+         * 某日是否排班
+         */
+        public boolean isWorkDay(LocalDate date) {
+            return template != null && template.slotStarts(date) != null;
+        }
+
+        /**
+         * 从今天起在索引窗口内查找第一个可用时段
+         *
+         * @return 最近可用时间（格式：yyyy-MM-dd HH:mm），没有则返回 null
+         */
+        public synchronized String findNextAvailableTime() {
+            if (template == null) {
+                return null;
+            }
+            LocalDate today = LocalDate.now();
+            for (int i = 0; i < WINDOW_DAYS; i++) {
+                LocalDate date = today.plusDays(i);
+                BitSet starts = template.slotStarts(date);
+                if (starts == null) {
+                    continue;
+                }
+                BitSet dayOccupied = occupied.get(date);
+                int pastLimit = pastLimit(date);
+                for (int s = starts.nextSetBit(0); s >= 0; s = starts.nextSetBit(s + 1)) {
+                    if (isFree(dayOccupied, s, pastLimit)) {
+                        return date + " " + format(s);
+                    }
+                }
+            }
+            return null;
+        }
+
+        synchronized void updateSchedule(ScheduleTemplate template) {
+            this.template = template;
+        }
+
+        synchronized void book(Appointment appointment) {
+            LocalDate date = appointment.getStartTime().toLocalDate();
+            if (!covers(date)) {
+                return;
+            }
+            bookings.computeIfAbsent(date, d -> new HashMap<>()).put(appointment.getId(), toMinuteRange(appointment));
+            rebuildOccupied(date);
+        }
+
+        synchronized void release(Long appointmentId, LocalDate date) {
+            Map<Long, int[]> dayBookings = bookings.get(date);
+            if (dayBookings != null && dayBookings.remove(appointmentId) != null) {
+                rebuildOccupied(date);
+            }
+        }
+
+        /**
+         * 跨天后窗口起点已过期（存活时间由缓存控制）
+         */
+        boolean isStale() {
+            return !windowStart.equals(LocalDate.now());
+        }
+
+        private void rebuildOccupied(LocalDate date) {
+            BitSet bits = new BitSet(MINUTES_PER_DAY);
+            for (int[] range : bookings.getOrDefault(date, Collections.emptyMap()).values()) {
+                bits.set(range[0], Math.max(range[0], range[1]));
+            }
+            occupied.put(date, bits);
+        }
+
+        private List<TimeSlotVO> buildSlots(LocalDate date, BitSet dayOccupied) {
+            List<TimeSlotVO> slots = new ArrayList<>();
+            BitSet starts = template != null ? template.slotStarts(date) : null;
+            if (starts == null) {
+                return slots;
+            }
+            int pastLimit = pastLimit(date);
+            for (int s = starts.nextSetBit(0); s >= 0; s = starts.nextSetBit(s + 1)) {
+                slots.add(TimeSlotVO.builder()
+                        .startTime(format(s))
+                        .endTime(format(s + SLOT_MINUTES))
+                        .available(isFree(dayOccupied, s, pastLimit))
+                        .build());
+            }
+            return slots;
+        }
+
+        /**
+         * 预约在开始当天占用的分钟区间 [start, end)
+         */
+        private static int[] toMinuteRange(Appointment appointment) {
+            LocalDate date = appointment.getStartTime().toLocalDate();
+            int start = appointment.getStartTime().toLocalTime().toSecondOfDay() / 60;
+            int end = appointment.getEndTime().toLocalDate().isAfter(date)
+                    ? MINUTES_PER_DAY
+                    : (appointment.getEndTime().toLocalTime().toSecondOfDay() + 59) / 60;
+            return new int[]{start, end};
+        }
+
+        /**
+         * 时段结束分钟不大于该值的视为已过去
+         */
+        private static int pastLimit(LocalDate date) {
+            LocalDateTime now = LocalDateTime.now();
+            if (date.isBefore(now.toLocalDate())) {
+                return Integer.MAX_VALUE;
+            }
+            if (date.isAfter(now.toLocalDate())) {
+                return -1;
+            }
+            return now.toLocalTime().toSecondOfDay() / 60;
+        }
+
+        private static boolean isFree(BitSet dayOccupied, int slotStart, int pastLimit) {
+            if (slotStart + SLOT_MINUTES <= pastLimit) {
+                return false;
+            }
+            if (dayOccupied == null) {
+                return true;
+            }
+            int next = dayOccupied.nextSetBit(slotStart);
+            return next < 0 || next >= slotStart + SLOT_MINUTES;
+        }
+
+        private static String format(int minuteOfDay) {
+            return LocalTime.ofSecondOfDay(minuteOfDay * 60L).format(TIME_FORMATTER);
+        }
+    }
+}
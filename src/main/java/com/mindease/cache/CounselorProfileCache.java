@@ -0,0 +1,293 @@
+package com.mindease.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindease.common.utils.TransactionUtil;
+import com.mindease.mapper.CounselorProfileMapper;
+import com.mindease.pojo.dto.ScheduleSetDTO;
+import com.mindease.pojo.entity.CounselorProfile;
+import com.mindease.pojo.vo.ProfileCacheStatsVO;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 咨询师资料快照缓存
+ * 缓存不可变的咨询师资料快照，擅长领域与排班在加载时解析一次，
+ * 推荐、详情、可用时段、预约列表、通知等读取路径不再各自查询资料并重复解析 JSON。
+ * 排班、评分、审核等修改资料后调用 {@link #onProfileChanged(Long)}，事务提交后移除缓存，下次读取时重新加载；
+ * 失效前已开始的加载不会再把旧资料写回缓存。
+ * 已查询到资料行的调用方使用 {@link #snapshotOf(CounselorProfile)}，总是以传入的资料构建快照，
+ * 擅长领域与排班按 JSON 原文缓存解析结果，内容相同即可复用，不会读到旧数据。
+ */
+@Component
+@Slf4j
+public class CounselorProfileCache {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Autowired
+    private CounselorProfileMapper counselorProfileMapper;
+
+    @Value("${mindease.counselor-profile-cache.max-size:2000}")
+    private int maxSize;
+
+    // 缓存条目最长存活时间，作为多实例部署或直接改库时的兜底刷新
+    @Value("${mindease.counselor-profile-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private VersionedLruCache<Long, CounselorSnapshot> cache;
+
+    // 擅长领域 JSON 原文 -> 解析结果
+    private VersionedLruCache<String, List<String>> parsedSpecialty;
+
+    // 排班 JSON 原文 -> 编译后的排班
+    private VersionedLruCache<String, WorkSchedule> parsedWorkSchedule;
+
+    @PostConstruct
+    public void init() {
+        cache = new VersionedLruCache<>(maxSize, ttlSeconds * 1000);
+        // 以内容为键，不会过期失效
+        parsedSpecialty = new VersionedLruCache<>(maxSize, 0);
+        parsedWorkSchedule = new VersionedLruCache<>(maxSize, 0);
+    }
+
+    /**
+     * 获取咨询师资料快照，未命中或过期时从数据库加载
+     *
+     * @param counselorId 咨询师ID
+     * @return 资料快照，咨询师资料不存在时返回 null
+     */
+    public CounselorSnapshot get(Long counselorId) {
+        CounselorSnapshot snapshot = cache.get(counselorId);
+        if (snapshot != null) {
+            hits.incrementAndGet();
+            return snapshot;
+        }
+        misses.incrementAndGet();
+        long stamp = cache.startLoad();
+        CounselorProfile profile = counselorProfileMapper.getByUserId(counselorId);
+        if (profile == null) {
+            return null;
+        }
+        snapshot = build(profile);
+        cache.putLoaded(counselorId, snapshot, stamp);
+        return snapshot;
+    }
+
+    /**
+     * 由已查询到的资料构建快照（如推荐列表批量查询的结果），不访问数据库
+     * 总是使用传入的资料，不返回缓存中可能更旧的快照，也不写入资料缓存（查询时间未知，无法判断是否比缓存新）
+     *
+     * @param profile 咨询师资料
+     * @return 资料快照
+     */
+    public CounselorSnapshot snapshotOf(CounselorProfile profile) {
+        return build(profile);
+    }
+
+    /**
+     * 咨询师资料变更后移除缓存（事务提交后生效）
+     */
+    public void onProfileChanged(Long counselorId) {
+        TransactionUtil.afterCommit(() -> {
+            cache.invalidate(counselorId);
+            log.debug("咨询师资料缓存已失效，咨询师ID:{}", counselorId);
+        });
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    public ProfileCacheStatsVO getStats() {
+        long hit = hits.get();
+        long miss = misses.get();
+        long total = hit + miss;
+        return ProfileCacheStatsVO.builder()
+                .hits(hit)
+                .misses(miss)
+                .size(cache.size())
+                .hitRatio(total == 0 ? 0 : (double) hit / total)
+                .build();
+    }
+
+    private CounselorSnapshot build(CounselorProfile profile) {
+        return new CounselorSnapshot(profile, parseSpecialty(profile), parseWorkSchedule(profile));
+    }
+
+    private List<String> parseSpecialty(CounselorProfile profile) {
+        String json = profile.getSpecialty();
+        if (json == null || json.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> specialty = parsedSpecialty.get(json);
+        if (specialty != null) {
+            return specialty;
+        }
+        try {
+            specialty = Collections.unmodifiableList(new ArrayList<>(objectMapper.readValue(json,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, String.class))));
+        } catch (Exception e) {
+            log.error("解析咨询师 {} 擅长领域失败", profile.getUserId(), e);
+            specialty = Collections.emptyList();
+        }
+        parsedSpecialty.put(json, specialty);
+        return specialty;
+    }
+
+    private WorkSchedule parseWorkSchedule(CounselorProfile profile) {
+        String json = profile.getWorkSchedule();
+        if (json == null || json.trim().isEmpty()) {
+            return null;
+        }
+        WorkSchedule schedule = parsedWorkSchedule.get(json);
+        if (schedule != null) {
+            return schedule;
+        }
+        try {
+            schedule = WorkSchedule.compile(objectMapper.readValue(json, ScheduleSetDTO.class));
+        } catch (Exception e) {
+            log.error("解析咨询师 {} 排班数据失败", profile.getUserId(), e);
+            schedule = WorkSchedule.INVALID;
+        }
+        parsedWorkSchedule.put(json, schedule);
+        return schedule;
+    }
+
+    /**
+     * 不可变的咨询师资料快照
+     */
+    @Getter
+    public static final class CounselorSnapshot {
+
+        private final Long userId;
+
+        private final String realName;
+
+        private final String title;
+
+        private final Integer experienceYears;
+
+        // 已解析的擅长领域（不可修改）
+        private final List<String> specialty;
+
+        private final String bio;
+
+        private final String qualificationUrl;
+
+        private final String location;
+
+        // 编译后的排班，未设置排班时为 null
+        private final WorkSchedule workSchedule;
+
+        private final BigDecimal pricePerHour;
+
+        private final BigDecimal rating;
+
+        private final Integer reviewCount;
+
+        private CounselorSnapshot(CounselorProfile profile, List<String> specialty, WorkSchedule workSchedule) {
+            this.userId = profile.getUserId();
+            this.realName = profile.getRealName();
+            this.title = profile.getTitle();
+            this.experienceYears = profile.getExperienceYears();
+            this.specialty = specialty;
+            this.bio = profile.getBio();
+            this.qualificationUrl = profile.getQualificationUrl();
+            this.location = profile.getLocation();
+            this.workSchedule = workSchedule;
+            this.pricePerHour = profile.getPricePerHour();
+            this.rating = profile.getRating();
+            this.reviewCount = profile.getReviewCount();
+        }
+    }
+
+    /**
+     * 编译后的排班：工作日集合与每天的工作时间段（分钟，左闭右开）
+     */
+    public static final class WorkSchedule {
+
+        /**
+         * 排班数据无法解析
+         */
+        public static final WorkSchedule INVALID = new WorkSchedule(new boolean[8], new int[0][]);
+
+        // 下标 1-7（Monday=1）
+        private final boolean[] workDays;
+
+        // 每个时间段为 [开始分钟, 结束分钟)
+        private final int[][] workHours;
+
+        private WorkSchedule(boolean[] workDays, int[][] workHours) {
+            this.workDays = workDays;
+            this.workHours = workHours;
+        }
+
+        /**
+         * 编译排班配置
+         */
+        public static WorkSchedule compile(ScheduleSetDTO schedule) {
+            boolean[] workDays = new boolean[8];
+            if (schedule == null || schedule.getWorkDays() == null || schedule.getWorkHours() == null) {
+                return new WorkSchedule(workDays, new int[0][]);
+            }
+            for (Integer day : schedule.getWorkDays()) {
+                if (day != null && day >= 1 && day <= 7) {
+                    workDays[day] = true;
+                }
+            }
+            int[][] workHours = new int[schedule.getWorkHours().size()][];
+            for (int i = 0; i < workHours.length; i++) {
+                ScheduleSetDTO.WorkHour workHour = schedule.getWorkHours().get(i);
+                int start = LocalTime.parse(workHour.getStart(), TIME_FORMATTER).toSecondOfDay() / 60;
+                int end = LocalTime.parse(workHour.getEnd(), TIME_FORMATTER).toSecondOfDay() / 60;
+                workHours[i] = new int[]{start, end};
+            }
+            return new WorkSchedule(workDays, workHours);
+        }
+
+        public boolean isValid() {
+            return this != INVALID;
+        }
+
+        public boolean isWorkDay(DayOfWeek dayOfWeek) {
+            return workDays[dayOfWeek.getValue()];
+        }
+
+        /**
+         * 时间段数量
+         */
+        public int workHourCount() {
+            return workHours.length;
+        }
+
+        /**
+         * 第 i 个时间段的开始分钟
+         */
+        public int startMinute(int i) {
+            return workHours[i][0];
+        }
+
+        /**
+         * 第 i 个时间段的结束分钟
+         */
+        public int endMinute(int i) {
+            return workHours[i][1];
+        }
+    }
+}
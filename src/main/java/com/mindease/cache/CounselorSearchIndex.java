@@ -0,0 +1,399 @@
+package com.mindease.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindease.common.utils.TransactionUtil;
+import com.mindease.mapper.CounselorProfileMapper;
+import com.mindease.pojo.entity.CounselorProfile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 咨询师关键词搜索索引
+ * 对正常状态咨询师的姓名、职称、擅长领域、简介、地区按单字与二元组（bigram）建立内存倒排索引，
+ * 关键词推荐先用倒排表求出候选，再按子串匹配校验并计分（擅长领域50、姓名40、职称30、简介20、地区10），
+ * 结果与 {@link CounselorProfileMapper#recommendCounselorsByKeywords(List, String)} 一致，不再对整表逐行 LIKE / JSON_SEARCH。
+ * 关键词按字面匹配：SQL 路径会先转义 % 与 _，不作为通配符。
+ * 与数据库的差异：索引只用 toLowerCase 做大小写折叠，数据库按列的排序规则比较
+ * （如 utf8mb4_general_ci、utf8mb4_0900_ai_ci 还会把重音字母、部分全角字母视为相同，JSON 文档则按二进制比较），
+ * 含这类非中文字符的关键词在两条路径下的匹配结果可能不同；中文关键词不受影响。
+ * 启动后在后台全量构建，咨询师资料或账号状态变化后调用 {@link #onProfileChanged(Long)}，
+ * 事务提交后在索引线程上增量更新，不占用请求线程；
+ * 索引未就绪或已关闭时 {@link #search(List, String)} 返回 null，调用方回退到 SQL 查询。
+ */
+@Component
+@Slf4j
+public class CounselorSearchIndex {
+
+    // 与 recommendCounselors 的 LIMIT 保持一致
+    private static final int RESULT_LIMIT = 10;
+
+    private static final int SPECIALTY_WEIGHT = 50;
+
+    private static final int REAL_NAME_WEIGHT = 40;
+
+    private static final int TITLE_WEIGHT = 30;
+
+    private static final int BIO_WEIGHT = 20;
+
+    private static final int LOCATION_WEIGHT = 10;
+
+    private static final Comparator<BigDecimal> ASC_NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    // MySQL 降序时 NULL 排在最后
+    private static final Comparator<BigDecimal> DESC_NULLS_LAST = ASC_NULLS_FIRST.reversed();
+
+    @Autowired
+    private CounselorProfileMapper counselorProfileMapper;
+
+    @Value("${mindease.counselor-search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mindease.counselor-search.rebuild-interval-minutes:30}")
+    private long rebuildIntervalMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 读查询与增量更新之间的锁
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "counselor-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 全量构建完成前为 null
+    private volatile SearchIndex index;
+
+    /**
+     * 应用就绪后在后台构建索引，并按配置定时全量重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        if (rebuildIntervalMinutes > 0) {
+            rebuildExecutor.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildIntervalMinutes, TimeUnit.MINUTES);
+        } else {
+            rebuildExecutor.execute(this::rebuildQuietly);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 按关键词搜索咨询师
+     *
+     * @param keywords 关键词列表
+     * @param sort 排序方式（smart / price_asc / rating_desc）
+     * @return 按排序方式排列的咨询师ID（最多10个），索引未就绪时返回 null
+     */
+    public List<Long> search(List<String> keywords, String sort) {
+        SearchIndex current = index;
+        if (!enabled || current == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = new HashMap<>();
+            for (String keyword : keywords) {
+                if (keyword == null || keyword.isEmpty()) {
+                    continue;
+                }
+                String normalized = normalize(keyword);
+                for (Long counselorId : current.candidates(normalized)) {
+                    int score = current.documents.get(counselorId).score(normalized);
+                    if (score > 0) {
+                        scores.merge(counselorId, score, Integer::sum);
+                    }
+                }
+            }
+
+            List<Map.Entry<Long, Integer>> matched = new ArrayList<>(scores.entrySet());
+            matched.sort(comparator(sort, current));
+            List<Long> result = new ArrayList<>(Math.min(RESULT_LIMIT, matched.size()));
+            for (int i = 0; i < matched.size() && i < RESULT_LIMIT; i++) {
+                result.add(matched.get(i).getKey());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 咨询师资料或账号状态变更后重新索引该咨询师（事务提交后在索引线程上执行），账号未启用时从索引中移除
+     */
+    public void onProfileChanged(Long counselorId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> {
+            try {
+                rebuildExecutor.execute(() -> reindexQuietly(counselorId));
+            } catch (RejectedExecutionException e) {
+                log.debug("咨询师搜索索引已关闭，跳过更新，咨询师ID:{}", counselorId);
+            }
+        });
+    }
+
+    private void reindexQuietly(Long counselorId) {
+        try {
+            reindex(counselorId);
+        } catch (Exception e) {
+            log.error("更新咨询师搜索索引失败，咨询师ID:{}", counselorId, e);
+        }
+    }
+
+    private synchronized void reindex(Long counselorId) {
+        SearchIndex current = index;
+        if (current == null) {
+            // 全量构建尚未完成，构建时会读取最新数据
+            return;
+        }
+        CounselorProfile profile = counselorProfileMapper.getActiveByUserId(counselorId);
+        lock.writeLock().lock();
+        try {
+            current.remove(counselorId);
+            if (profile != null) {
+                current.add(toDocument(profile));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("咨询师搜索索引已更新，咨询师ID:{}", counselorId);
+    }
+
+    /**
+     * 全量重建，与增量更新互斥，避免重建读到的旧数据覆盖刚提交的修改
+     */
+    synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        SearchIndex rebuilt = new SearchIndex();
+        for (CounselorProfile profile : counselorProfileMapper.getAllActiveProfiles()) {
+            rebuilt.add(toDocument(profile));
+        }
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("咨询师搜索索引构建完成，咨询师数:{}，词项数:{}，耗时:{}ms",
+                rebuilt.documents.size(), rebuilt.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("咨询师搜索索引构建失败", e);
+        }
+    }
+
+    private Comparator<Map.Entry<Long, Integer>> comparator(String sort, SearchIndex current) {
+        Comparator<Map.Entry<Long, Integer>> byRatingDesc =
+                Comparator.comparing(entry -> current.documents.get(entry.getKey()).rating, DESC_NULLS_LAST);
+        Comparator<Map.Entry<Long, Integer>> byPriceAsc =
+                Comparator.comparing(entry -> current.documents.get(entry.getKey()).pricePerHour, ASC_NULLS_FIRST);
+        Comparator<Map.Entry<Long, Integer>> comparator;
+        if ("price_asc".equals(sort)) {
+            comparator = byPriceAsc.thenComparing(byRatingDesc);
+        } else if ("rating_desc".equals(sort)) {
+            comparator = byRatingDesc.thenComparing(byPriceAsc);
+        } else {
+            comparator = Comparator.<Map.Entry<Long, Integer>, Integer>comparing(Map.Entry::getValue).reversed()
+                    .thenComparing(byRatingDesc);
+        }
+        return comparator.thenComparing(Map.Entry::getKey);
+    }
+
+    private Document toDocument(CounselorProfile profile) {
+        List<String> specialty = new ArrayList<>();
+        String json = profile.getSpecialty();
+        if (json != null && !json.trim().isEmpty()) {
+            try {
+                List<String> parsed = objectMapper.readValue(json,
+                        objectMapper.getTypeFactory().constructCollectionType(List.class, String.class));
+                for (String item : parsed) {
+                    if (item != null) {
+                        specialty.add(normalize(item));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("解析咨询师 {} 擅长领域失败", profile.getUserId(), e);
+            }
+        }
+        return new Document(profile.getUserId(), normalize(profile.getRealName()), normalize(profile.getTitle()),
+                specialty, normalize(profile.getBio()), normalize(profile.getLocation()),
+                profile.getRating(), profile.getPricePerHour());
+    }
+
+    // 匹配不区分大小写（只折叠大小写，不模拟排序规则的重音等折叠）
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 文本的全部单字与相邻二元组
+     */
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            grams.add(text.substring(i, i + 1));
+            if (i + 1 < text.length()) {
+                grams.add(text.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 倒排索引，只在持有写锁时修改
+     */
+    private static final class SearchIndex {
+
+        // 咨询师ID -> 索引文档
+        private final Map<Long, Document> documents = new HashMap<>();
+
+        // 单字或二元组 -> 包含它的咨询师ID
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+
+        private void add(Document document) {
+            documents.put(document.userId, document);
+            for (String gram : document.grams()) {
+                postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.userId);
+            }
+        }
+
+        private void remove(Long counselorId) {
+            Document document = documents.remove(counselorId);
+            if (document == null) {
+                return;
+            }
+            for (String gram : document.grams()) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(counselorId);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 包含关键词全部二元组（单字关键词为该字）的咨询师，是子串匹配的超集
+         */
+        private Set<Long> candidates(String keyword) {
+            if (keyword.length() == 1) {
+                return postings.getOrDefault(keyword, Collections.emptySet());
+            }
+            List<Set<Long>> lists = new ArrayList<>();
+            for (int i = 0; i + 1 < keyword.length(); i++) {
+                Set<Long> ids = postings.get(keyword.substring(i, i + 2));
+                if (ids == null) {
+                    return Collections.emptySet();
+                }
+                lists.add(ids);
+            }
+            // 从最短的倒排表开始求交集
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> result = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 索引文档，文本字段均已转为小写
+     */
+    private static final class Document {
+
+        private final Long userId;
+
+        private final String realName;
+
+        private final String title;
+
+        private final List<String> specialty;
+
+        private final String bio;
+
+        private final String location;
+
+        private final BigDecimal rating;
+
+        private final BigDecimal pricePerHour;
+
+        private Document(Long userId, String realName, String title, List<String> specialty, String bio,
+                         String location, BigDecimal rating, BigDecimal pricePerHour) {
+            this.userId = userId;
+            this.realName = realName;
+            this.title = title;
+            this.specialty = specialty;
+            this.bio = bio;
+            this.location = location;
+            this.rating = rating;
+            this.pricePerHour = pricePerHour;
+        }
+
+        /**
+         * 单个关键词的匹配得分，与 recommendCounselors 中的 CASE WHEN 计分相同
+         */
+        private int score(String keyword) {
+            int score = 0;
+            for (String item : specialty) {
+                if (item.contains(keyword)) {
+                    score += SPECIALTY_WEIGHT;
+                    break;
+                }
+            }
+            if (realName.contains(keyword)) {
+                score += REAL_NAME_WEIGHT;
+            }
+            if (title.contains(keyword)) {
+                score += TITLE_WEIGHT;
+            }
+            if (bio.contains(keyword)) {
+                score += BIO_WEIGHT;
+            }
+            if (location.contains(keyword)) {
+                score += LOCATION_WEIGHT;
+            }
+            return score;
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            grams.addAll(CounselorSearchIndex.grams(realName));
+            grams.addAll(CounselorSearchIndex.grams(title));
+            for (String item : specialty) {
+                grams.addAll(CounselorSearchIndex.grams(item));
+            }
+            grams.addAll(CounselorSearchIndex.grams(bio));
+            grams.addAll(CounselorSearchIndex.grams(location));
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mindease.cache;
+
+import com.mindease.common.utils.TransactionUtil;
+import com.mindease.mapper.UserMapper;
+import com.mindease.pojo.entity.User;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户账号状态缓存
+ * 拦截器需要在每个咨询师请求上判断账号是否待审核，状态先从本缓存读取，未命中或过期时再查询 sys_user。
+ * 修改账号状态后调用 {@link #onStatusChanged(Long, Integer)}，事务提交后立即更新缓存，审核通过即刻生效；
+ * 更新前已开始的数据库查询不会再把旧状态写回缓存。
+ */
+@Component
+@Slf4j
+public class UserStatusCache {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${mindease.user-status-cache.max-size:10000}")
+    private int maxSize;
+
+    // 缓存条目最长存活时间，作为多实例部署或直接改库时的兜底刷新
+    @Value("${mindease.user-status-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private VersionedLruCache<Long, Integer> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new VersionedLruCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * 获取用户账号状态
+     *
+     * @param userId 用户ID
+     * @return 账号状态，用户不存在时返回 null（不缓存）
+     */
+    public Integer getStatus(Long userId) {
+        Integer status = cache.get(userId);
+        if (status != null) {
+            return status;
+        }
+        long stamp = cache.startLoad();
+        User user = userMapper.getById(userId);
+        status = user != null ? user.getStatus() : null;
+        cache.putLoaded(userId, status, stamp);
+        return status;
+    }
+
+    /**
+     * 账号状态变更后更新缓存（事务提交后生效）
+     */
+    public void onStatusChanged(Long userId, Integer status) {
+        TransactionUtil.afterCommit(() -> {
+            if (status != null) {
+                cache.put(userId, status);
+            } else {
+                cache.invalidate(userId);
+            }
+            log.info("用户状态缓存已更新，用户ID:{}，状态:{}", userId, status);
+        });
+    }
+
+    /**
+     * 移除指定用户的缓存
+     */
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+}
@@ -0,0 +1,144 @@
+package com.mindease.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 带版本戳的本地 LRU 缓存
+ * 条目超过容量时淘汰最久未访问的条目，超过存活时间后视为未命中。
+ * 读穿加载在查询数据库之前调用 {@link #startLoad()} 取得版本戳，加载完成后用 {@link #putLoaded} 写入；
+ * 若加载期间该键被 {@link #put} 或 {@link #invalidate} 修改过，加载结果被丢弃，
+ * 避免先开始的加载把修改前的旧值写回缓存。
+ * 所有方法在同一把锁内执行，可在多线程间共享。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型，不缓存 null
+ */
+public final class VersionedLruCache<K, V> {
+
+    private final long ttlMillis;
+
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    // 修改时钟，每次 put / invalidate / markChanged 加一
+    private long clock;
+
+    // 已被淘汰条目的最大修改时间；对应键可能已没有记录，早于该时间开始的加载一律不写入
+    private long evictedFloor;
+
+    /**
+     * @param maxSize 最大条目数（含失效标记）
+     * @param ttlMillis 条目存活时间（毫秒），小于等于0表示不过期
+     */
+    public VersionedLruCache(int maxSize, long ttlMillis) {
+        int capacity = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > capacity) {
+                    evictedFloor = Math.max(evictedFloor, eldest.getValue().modifiedAt);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取未过期的值，未命中、已过期或已失效时返回 null
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null || entry.value == null || isExpired(entry)) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 开始一次读穿加载，必须在查询数据源之前调用
+     *
+     * @return 版本戳
+     */
+    public synchronized long startLoad() {
+        return clock;
+    }
+
+    /**
+     * 写入加载结果，加载开始后该键被修改过时放弃写入
+     *
+     * @param stamp {@link #startLoad()} 返回的版本戳
+     * @return 是否写入
+     */
+    public synchronized boolean putLoaded(K key, V value, long stamp) {
+        if (value == null || stamp < evictedFloor) {
+            return false;
+        }
+        Entry<V> existing = map.get(key);
+        if (existing != null && existing.modifiedAt > stamp) {
+            return false;
+        }
+        map.put(key, new Entry<>(value, stamp));
+        return true;
+    }
+
+    /**
+     * 写入已确认的最新值（如事务提交后的变更），覆盖任何正在进行的加载
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, new Entry<>(value, ++clock));
+    }
+
+    /**
+     * 使缓存失效，并阻止失效前开始的加载写回旧值
+     */
+    public synchronized void invalidate(K key) {
+        map.put(key, new Entry<>(null, ++clock));
+    }
+
+    /**
+     * 标记缓存中的值已被原地修改（值对象自身可变时使用），正在进行的加载不再写入
+     */
+    public synchronized void markChanged(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry != null && entry.value != null) {
+            entry.modifiedAt = ++clock;
+        } else {
+            map.put(key, new Entry<>(null, ++clock));
+        }
+    }
+
+    /**
+     * 缓存中的有效值数量
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Iterator<Entry<V>> it = map.values().iterator(); it.hasNext(); ) {
+            if (it.next().value != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt >= ttlMillis;
+    }
+
+    private static final class Entry<V> {
+
+        // 为 null 表示失效标记
+        private final V value;
+
+        private final long loadedAt = System.currentTimeMillis();
+
+        private long modifiedAt;
+
+        private Entry(V value, long modifiedAt) {
+            this.value = value;
+            this.modifiedAt = modifiedAt;
+        }
+    }
+}
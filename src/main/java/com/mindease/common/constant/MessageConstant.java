@@ -10,4 +10,6 @@ public class MessageConstant {
     public static final String USERNAME_ALREADY_EXISTS = "用户名已存在";
     public static final String COUNSELOR_REGISTER_SUCCESS = "账号注册成功，请登录并提交资质证明进行审核。";
     public static final String INVALID_ROLE = "无效的角色类型";
+    public static final String SYSTEM_BUSY = "系统繁忙，请稍后重试";
+    public static final String REPORT_ACCESS_DENIED = "无权导出该用户的报告";
 }
@@ -0,0 +1,54 @@
+package com.mindease.common.handler;
+
+import com.mindease.common.utils.AesEncryptUtil;
+import com.mindease.common.utils.LazyEncryptedString;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 延迟解密字段 TypeHandler
+ * 与 EncryptedStringTypeHandler 使用相同的密文格式，读取时不解密，只包装为 LazyEncryptedString
+ * 
+ * 使用方式：在 Mapper XML 中指定 typeHandler="com.mindease.common.handler.LazyEncryptedStringTypeHandler"
+ */
+@MappedTypes(LazyEncryptedString.class)
+public class LazyEncryptedStringTypeHandler extends BaseTypeHandler<LazyEncryptedString> {
+
+    /**
+     * 设置参数（写入数据库前加密）
+     */
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, LazyEncryptedString parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, AesEncryptUtil.encrypt(parameter.get()));
+    }
+
+    /**
+     * 根据列名获取结果（保留密文，访问时再解密）
+     */
+    @Override
+    public LazyEncryptedString getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return LazyEncryptedString.of(rs.getString(columnName));
+    }
+
+    /**
+     * 根据列索引获取结果（保留密文，访问时再解密）
+     */
+    @Override
+    public LazyEncryptedString getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return LazyEncryptedString.of(rs.getString(columnIndex));
+    }
+
+    /**
+     * 获取存储过程结果（保留密文，访问时再解密）
+     */
+    @Override
+    public LazyEncryptedString getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return LazyEncryptedString.of(cs.getString(columnIndex));
+    }
+}
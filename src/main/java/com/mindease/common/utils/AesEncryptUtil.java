@@ -9,7 +9,9 @@ import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 /**
  * AES-256-GCM 加密工具类
@@ -19,6 +21,11 @@ import java.util.Base64;
  * - 使用 AES-256-GCM 模式（带认证加密）
  * - 每次加密生成随机 IV（防止相同明文产生相同密文）
  * - 自动验证数据完整性（防止篡改）
+ * 
+ * 性能：
+ * - 密钥在初始化时构建一次并缓存
+ * - 每个线程复用各自的 Cipher 实例，每次仅以新 IV 重新 init
+ * - 批量解密 {@link #decryptAll(List)} 在一个线程内复用同一 Cipher 与 Base64 解码器
  */
 @Slf4j
 @Component
@@ -38,6 +45,24 @@ public class AesEncryptUtil {
      * 实际使用的密钥（从配置文件读取）
      */
     private static String actualSecretKey;
+
+    /**
+     * 缓存的密钥对象（密钥不变，无需每次加解密重建）
+     */
+    private static volatile SecretKeySpec cachedKeySpec;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    /**
+     * 每个线程一个 Cipher：Cipher 非线程安全，但 getInstance 开销远大于 init
+     */
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (Exception e) {
+            throw new IllegalStateException("初始化 AES-GCM Cipher 失败", e);
+        }
+    });
     
     private final com.mindease.config.SecurityProperties securityProperties;
     
@@ -68,18 +93,20 @@ public class AesEncryptUtil {
             throw new IllegalStateException("❌ AES-256 密钥必须为 32 字节，当前长度: " 
                     + actualSecretKey.getBytes(StandardCharsets.UTF_8).length);
         }
+        cachedKeySpec = new SecretKeySpec(actualSecretKey.getBytes(StandardCharsets.UTF_8), "AES");
     }
     
     /**
-     * 获取密钥字节数组
+     * 获取密钥
      */
-    private static byte[] getSecretKey() {
-        if (actualSecretKey == null) {
-            // 如果在 Spring 容器初始化前调用，使用默认密钥
+    private static SecretKeySpec getKeySpec() {
+        SecretKeySpec keySpec = cachedKeySpec;
+        if (keySpec == null) {
+            // 如果在 Spring 容器初始化前调用，使用默认密钥（不缓存，初始化后使用配置的密钥）
             log.warn("密钥尚未初始化，使用默认密钥");
-            return DEFAULT_SECRET_KEY.getBytes(StandardCharsets.UTF_8);
+            return new SecretKeySpec(DEFAULT_SECRET_KEY.getBytes(StandardCharsets.UTF_8), "AES");
         }
-        return actualSecretKey.getBytes(StandardCharsets.UTF_8);
+        return keySpec;
     }
     
     /**
@@ -96,26 +123,23 @@ public class AesEncryptUtil {
         try {
             // 1. 生成随机 IV
             byte[] iv = new byte[GCM_IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
-            
-            // 2. 初始化密钥
-            SecretKeySpec keySpec = new SecretKeySpec(getSecretKey(), "AES");
+            SECURE_RANDOM.nextBytes(iv);
             
-            // 3. 初始化加密器
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            // 2. 初始化加密器（复用当前线程的 Cipher 与缓存的密钥）
+            Cipher cipher = CIPHER.get();
             GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, parameterSpec);
+            cipher.init(Cipher.ENCRYPT_MODE, getKeySpec(), parameterSpec);
             
-            // 4. 加密
+            // 3. 加密
             byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
             
-            // 5. 将 IV 和密文拼接（IV 在前，密文在后）
+            // 4. 将 IV 和密文拼接（IV 在前，密文在后）
             byte[] combined = ByteBuffer.allocate(iv.length + ciphertext.length)
                     .put(iv)
                     .put(ciphertext)
                     .array();
             
-            // 6. Base64 编码后返回
+            // 5. Base64 编码后返回
             return Base64.getEncoder().encodeToString(combined);
         } catch (Exception e) {
             log.error("AES-GCM 加密失败，明文长度: {}", plaintext.length(), e);
@@ -135,33 +159,50 @@ public class AesEncryptUtil {
         }
         
         try {
-            // 1. Base64 解码
-            byte[] combined = Base64.getDecoder().decode(ciphertext);
-            
-            // 2. 分离 IV 和密文
-            ByteBuffer buffer = ByteBuffer.wrap(combined);
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            buffer.get(iv);
-            byte[] ciphertextBytes = new byte[buffer.remaining()];
-            buffer.get(ciphertextBytes);
-            
-            // 3. 初始化密钥
-            SecretKeySpec keySpec = new SecretKeySpec(getSecretKey(), "AES");
-            
-            // 4. 初始化解密器
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, parameterSpec);
-            
-            // 5. 解密
-            byte[] plaintext = cipher.doFinal(ciphertextBytes);
-            
-            return new String(plaintext, StandardCharsets.UTF_8);
+            return decrypt(CIPHER.get(), getKeySpec(), ciphertext);
         } catch (Exception e) {
             log.error("AES-GCM 解密失败，密文: {}", ciphertext.substring(0, Math.min(50, ciphertext.length())), e);
             // 解密失败可能是数据损坏或密钥错误，返回特殊标记
             return "[解密失败]";
         }
     }
-}
 
+    /**
+     * 批量解密，单条失败时该位置返回 "[解密失败]"，不影响其他数据
+     * 
+     * @param ciphertexts Base64 编码的密文列表（元素可为 null）
+     * @return 与输入顺序一致的明文列表
+     */
+    public static List<String> decryptAll(List<String> ciphertexts) {
+        List<String> result = new ArrayList<>(ciphertexts.size());
+        Cipher cipher = CIPHER.get();
+        SecretKeySpec keySpec = getKeySpec();
+        for (String ciphertext : ciphertexts) {
+            if (ciphertext == null || ciphertext.isEmpty()) {
+                result.add(ciphertext);
+                continue;
+            }
+            try {
+                result.add(decrypt(cipher, keySpec, ciphertext));
+            } catch (Exception e) {
+                log.error("AES-GCM 解密失败，密文: {}", ciphertext.substring(0, Math.min(50, ciphertext.length())), e);
+                result.add("[解密失败]");
+            }
+        }
+        return result;
+    }
+
+    private static String decrypt(Cipher cipher, SecretKeySpec keySpec, String ciphertext) throws Exception {
+        // 1. Base64 解码
+        byte[] combined = Base64.getDecoder().decode(ciphertext);
+        
+        // 2. 以前 12 字节为 IV 初始化解密器，剩余部分为密文，无需拷贝
+        GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, combined, 0, GCM_IV_LENGTH);
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, parameterSpec);
+        
+        // 3. 解密
+        byte[] plaintext = cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
+        
+        return new String(plaintext, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mindease.common.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JWT 签发与校验组件
+ * 签名密钥与解析器在启动时根据 mindease.jwt.secret-key 构建一次，之后所有请求复用；
+ * 校验通过的令牌放入有界 LRU 缓存，同一令牌再次访问时不再验签，缓存项在令牌过期后失效。
+ */
+@Component
+@Slf4j
+public class JwtTokenProvider {
+
+    @Value("${mindease.jwt.secret-key}")
+    private String secretKey;
+
+    @Value("${mindease.jwt.ttl}")
+    private Long ttl;
+
+    @Value("${mindease.jwt.cache-size:10000}")
+    private int cacheSize;
+
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    // 令牌 -> 已校验的声明
+    private Map<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        key = JwtUtil.buildKey(secretKey);
+        parser = JwtUtil.buildParser(key);
+        int capacity = Math.max(1, cacheSize);
+        verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<String, Claims>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * 生成令牌
+     *
+     * @param claims 设置的信息
+     * @return
+     */
+    public String createToken(Map<String, Object> claims) {
+        return JwtUtil.createJWT(key, ttl, claims);
+    }
+
+    /**
+     * 校验并解析令牌，签名错误或已过期时抛出 JwtException
+     *
+     * @param token 令牌
+     * @return
+     */
+    public Claims parseToken(String token) {
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            Date expiration = cached.getExpiration();
+            if (expiration == null || expiration.getTime() > System.currentTimeMillis()) {
+                return cached;
+            }
+            verifiedTokens.remove(token);
+        }
+
+        Claims claims = JwtUtil.parseJWT(parser, token);
+        verifiedTokens.put(token, claims);
+        return claims;
+    }
+}
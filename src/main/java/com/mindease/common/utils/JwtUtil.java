@@ -1,6 +1,7 @@
 package com.mindease.common.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -20,13 +21,22 @@ public class JwtUtil {
      * @return
      */
     public static String createJWT(String secretKey, long ttlMillis, Map<String, Object> claims) {
+        return createJWT(buildKey(secretKey), ttlMillis, claims);
+    }
+
+    /**
+     * 使用已构建的签名密钥生成jwt
+     *
+     * @param key       签名密钥
+     * @param ttlMillis jwt过期时间(毫秒)
+     * @param claims    设置的信息
+     * @return
+     */
+    public static String createJWT(SecretKey key, long ttlMillis, Map<String, Object> claims) {
         // 生成JWT的时间
         long expMillis = System.currentTimeMillis() + ttlMillis;
         Date exp = new Date(expMillis);
 
-        // 生成签名密钥
-        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
-
         // 设置jwt的body
         String jwt = Jwts.builder()
                 // 如果有私有声明，一定要先设置这个自己创建的私有的声明，这个是给builder的claim赋值，一旦写在标准的声明赋值之后，就是覆盖了那些标准的声明的
@@ -48,19 +58,44 @@ public class JwtUtil {
      * @return
      */
     public static Claims parseJWT(String secretKey, String token) {
-        // 生成签名密钥
-        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        return parseJWT(buildParser(buildKey(secretKey)), token);
+    }
 
-        // 得到DefaultJwtParser
-        Claims claims = Jwts.parser()
-                // 设置签名的秘钥
-                .verifyWith(key)
-                .build()
+    /**
+     * 使用已构建的解析器解析Token，解析器线程安全，可复用
+     *
+     * @param parser jwt解析器
+     * @param token  加密后的token
+     * @return
+     */
+    public static Claims parseJWT(JwtParser parser, String token) {
+        return parser
                 // 设置需要解析的jwt
                 .parseSignedClaims(token)
                 .getPayload();
-        
-        return claims;
+    }
+
+    /**
+     * 生成签名密钥
+     *
+     * @param secretKey jwt秘钥
+     * @return
+     */
+    public static SecretKey buildKey(String secretKey) {
+        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 构建jwt解析器
+     *
+     * @param key 签名密钥
+     * @return
+     */
+    public static JwtParser buildParser(SecretKey key) {
+        // 得到DefaultJwtParser，设置签名的秘钥
+        return Jwts.parser()
+                .verifyWith(key)
+                .build();
     }
 
 }
@@ -0,0 +1,123 @@
+package com.mindease.common.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 推荐关键词分析器
+ * 从测评结论等文本中提取关键词，并生成去后缀、末尾裁剪等匹配变体。
+ * 正则、测评词与地名词典在类加载时编译一次（词典复用 {@link SensitiveWordMatcher} 自动机，一次扫描完成多词包含判断），
+ * 去重使用哈希集合；无状态，可在多线程间共享。
+ */
+@Component
+public class KeywordAnalyzer {
+
+    // 2-4 个汉字的连续片段
+    private static final Pattern CHINESE_WORD_PATTERN = Pattern.compile("[\\u4e00-\\u9fa5]{2,4}");
+
+    // 测评结论中的关键字到推荐关键词的映射
+    private static final Map<String, List<String>> ASSESSMENT_KEYWORD_MAP = new LinkedHashMap<String, List<String>>() {{
+        put("焦虑", Arrays.asList("焦虑", "紧张", "担忧", "恐慌"));
+        put("抑郁", Arrays.asList("抑郁", "情绪低落", "悲伤", "失落"));
+        put("失眠", Arrays.asList("失眠", "睡眠", "入睡困难", "睡眠障碍"));
+        put("压力", Arrays.asList("压力", "疲惫", "倦怠", "应激"));
+        put("强迫", Arrays.asList("强迫", "反复", "重复行为"));
+        put("恐惧", Arrays.asList("恐惧", "害怕", "回避"));
+    }};
+
+    // 常见的无意义词
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "的", "是", "在", "有", "和", "了", "不", "与", "中", "为", "对", "及",
+        "个", "等", "但", "或", "从", "到", "而", "由", "也", "很", "就", "可能",
+        "轻度", "中度", "重度", "严重", "明显", "症状", "状态", "情况", "程度"
+    ));
+
+    // 中文地名列表
+    private static final Set<String> CHINESE_CITIES = new HashSet<>(Arrays.asList(
+        "北京", "上海", "广州", "深圳", "天津", "重庆", "成都", "杭州", "武汉", "西安",
+        "南京", "郑州", "长沙", "沈阳", "青岛", "大连", "宁波", "厦门", "济南", "哈尔滨",
+        "苏州", "无锡", "福州", "石家庄", "昆明", "兰州", "太原", "合肥", "南昌", "贵阳",
+        "南宁", "海口", "银川", "西宁", "呼和浩特", "乌鲁木齐", "拉萨", "线上", "在线"
+    ));
+
+    // 去后缀变体使用的后缀
+    private static final String[] SUFFIXES = {"症", "障碍", "问题", "情况", "状态", "情绪", "病", "感"};
+
+    private static final SensitiveWordMatcher ASSESSMENT_MATCHER = SensitiveWordMatcher.compile(ASSESSMENT_KEYWORD_MAP.keySet());
+
+    private static final SensitiveWordMatcher CITY_MATCHER = SensitiveWordMatcher.compile(CHINESE_CITIES);
+
+    /**
+     * 从文本中提取关键词：测评关键字映射的推荐词在前，其余为文本中的 2-4 字中文片段（已过滤停用词）
+     *
+     * @param text 文本（如测评结论）
+     * @return 去重后的关键词，保持出现顺序
+     */
+    public List<String> extractKeywords(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> keywords = new LinkedHashSet<>();
+
+        for (String key : ASSESSMENT_MATCHER.findAll(text)) {
+            keywords.addAll(ASSESSMENT_KEYWORD_MAP.get(key));
+        }
+
+        Matcher matcher = CHINESE_WORD_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String word = matcher.group();
+            if (!STOP_WORDS.contains(word)) {
+                keywords.add(word);
+            }
+        }
+        return new ArrayList<>(keywords);
+    }
+
+    /**
+     * 生成关键词匹配变体：保留原词，追加去后缀变体，非地名且长度大于3的词追加去掉末字的变体
+     *
+     * @param source 原始关键词
+     * @return 去重后的关键词与变体，保持出现顺序
+     */
+    public List<String> expandVariants(List<String> source) {
+        if (source == null || source.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (String kw : source) {
+            if (kw == null) {
+                continue;
+            }
+            String base = kw.trim();
+            if (base.isEmpty()) {
+                continue;
+            }
+
+            // 总是保留原词
+            result.add(base);
+
+            // 去后缀变体
+            for (String suffix : SUFFIXES) {
+                if (base.endsWith(suffix) && base.length() - suffix.length() >= 2) {
+                    result.add(base.substring(0, base.length() - suffix.length()));
+                }
+            }
+
+            // 地名不做末尾裁剪，避免“乌鲁木齐”变成“乌鲁木”
+            if (base.length() > 3 && !isLocationName(base)) {
+                result.add(base.substring(0, base.length() - 1));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * 判断是否为（或包含）地名
+     */
+    public boolean isLocationName(String word) {
+        return CITY_MATCHER.containsAny(word);
+    }
+}
@@ -0,0 +1,61 @@
+package com.mindease.common.utils;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.Serializable;
+
+/**
+ * 延迟解密的加密字符串
+ * 查询时只保存密文，第一次调用 {@link #get()} 时才解密并缓存明文。
+ * 用于列表、统计类查询：只有真正读取的加密字段才付出解密开销。
+ */
+public final class LazyEncryptedString implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String ciphertext;
+
+    private transient volatile String plaintext;
+
+    private LazyEncryptedString(String ciphertext) {
+        this.ciphertext = ciphertext;
+    }
+
+    /**
+     * 包装数据库中读取的密文
+     *
+     * @param ciphertext Base64 编码的密文
+     * @return 密文为 null 时返回 null
+     */
+    public static LazyEncryptedString of(String ciphertext) {
+        return ciphertext == null ? null : new LazyEncryptedString(ciphertext);
+    }
+
+    /**
+     * 获取明文，首次调用时解密
+     */
+    @JsonValue
+    public String get() {
+        String value = plaintext;
+        if (value == null) {
+            value = AesEncryptUtil.decrypt(ciphertext);
+            plaintext = value;
+        }
+        return value;
+    }
+
+    /**
+     * 是否已经解密过
+     */
+    public boolean isDecrypted() {
+        return plaintext != null;
+    }
+
+    /**
+     * 不输出明文，避免日志中泄露敏感内容
+     */
+    @Override
+    public String toString() {
+        return "******";
+    }
+}
@@ -0,0 +1,32 @@
+package com.mindease.common.utils;
+
+/**
+ * 密码编码器
+ */
+public interface PasswordEncoder {
+
+    /**
+     * 对明文密码进行哈希
+     *
+     * @param rawPassword 明文密码
+     * @return 包含算法参数与盐的编码结果
+     */
+    String encode(CharSequence rawPassword);
+
+    /**
+     * 校验明文密码与已存储的编码是否匹配
+     *
+     * @param rawPassword     明文密码
+     * @param encodedPassword 已存储的编码
+     * @return 是否匹配
+     */
+    boolean matches(CharSequence rawPassword, String encodedPassword);
+
+    /**
+     * 已存储的编码是否需要升级（旧算法或强度低于当前配置）
+     *
+     * @param encodedPassword 已存储的编码
+     * @return 是否需要重新哈希
+     */
+    boolean needsUpgrade(String encodedPassword);
+}
@@ -0,0 +1,132 @@
+package com.mindease.common.utils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HMAC-SHA256 密码编码器
+ * 编码格式：pbkdf2$迭代次数$盐$哈希（盐与哈希为无填充 Base64），迭代次数由 mindease.password.iterations 配置。
+ * 兼容早期的无盐 MD5 十六进制哈希，校验通过后由调用方调用 {@link #needsUpgrade(String)} 判断并重新哈希。
+ */
+@Component
+@Slf4j
+public class Pbkdf2PasswordEncoder implements PasswordEncoder {
+
+    private static final String PREFIX = "pbkdf2";
+
+    private static final String SEPARATOR = "$";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final int SALT_BYTES = 16;
+
+    private static final int HASH_BITS = 256;
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${mindease.password.iterations:310000}")
+    private int iterations;
+
+    /**
+     * 启动时测量一次哈希耗时，便于按登录耗时预算调整迭代次数
+     */
+    @PostConstruct
+    public void init() {
+        long start = System.nanoTime();
+        encode("calibration");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("PBKDF2 密码哈希迭代次数:{}，单次耗时约 {}ms", iterations, millis);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(rawPassword, salt, iterations);
+        return PREFIX + SEPARATOR + iterations + SEPARATOR + ENCODER.encodeToString(salt) + SEPARATOR + ENCODER.encodeToString(hash);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        if (isLegacyMd5(encodedPassword)) {
+            String md5 = DigestUtils.md5DigestAsHex(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(md5.getBytes(StandardCharsets.US_ASCII),
+                    encodedPassword.toLowerCase().getBytes(StandardCharsets.US_ASCII));
+        }
+        String[] parts = encodedPassword.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = DECODER.decode(parts[2]);
+            byte[] expected = DECODER.decode(parts[3]);
+            byte[] actual = pbkdf2(rawPassword, salt, storedIterations);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            log.warn("密码编码格式错误");
+            return false;
+        }
+    }
+
+    @Override
+    public boolean needsUpgrade(String encodedPassword) {
+        if (encodedPassword == null || isLegacyMd5(encodedPassword)) {
+            return true;
+        }
+        String[] parts = encodedPassword.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 早期版本存储的是32位十六进制的无盐 MD5
+     */
+    private boolean isLegacyMd5(String encodedPassword) {
+        if (encodedPassword.length() != 32) {
+            return false;
+        }
+        for (int i = 0; i < encodedPassword.length(); i++) {
+            if (Character.digit(encodedPassword.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] pbkdf2(CharSequence rawPassword, byte[] salt, int iterationCount) {
+        char[] chars = rawPassword.toString().toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, iterationCount, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("密码哈希失败", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -4,30 +4,21 @@ import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import com.mindease.pojo.vo.EmotionReportVO;
 import lombok.extern.slf4j.Slf4j;
-import org.jfree.chart.ChartFactory;
-import org.jfree.chart.ChartUtils;
-import org.jfree.chart.JFreeChart;
-import org.jfree.chart.axis.CategoryAxis;
-import org.jfree.chart.axis.NumberAxis;
-import org.jfree.chart.plot.CategoryPlot;
-import org.jfree.chart.plot.PiePlot;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.renderer.category.LineAndShapeRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
-import org.jfree.data.general.DefaultPieDataset;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 @Slf4j
 public class PdfExportUtil {
 
+    @Autowired
+    private ReportChartRenderer chartRenderer;
+
     // 加载中文字体
     private static com.itextpdf.text.Font getChineseFont(int size, int style) {
         try {
@@ -44,14 +35,22 @@ public class PdfExportUtil {
     private static final com.itextpdf.text.Font NORMAL_FONT = getChineseFont(12, com.itextpdf.text.Font.NORMAL);
     private static final com.itextpdf.text.Font SMALL_FONT = getChineseFont(10, com.itextpdf.text.Font.NORMAL);
 
+    // 最近记录表格每累积多少行写出一次
+    private static final int TABLE_FLUSH_ROWS = 50;
+
     /**
-     * 生成情绪报告PDF
+     * 生成情绪报告PDF，直接写入输出流（如HTTP响应），不在内存中缓存整个文件
+     * 输出流由调用方负责关闭
      */
-    public byte[] generateEmotionReportPdf(EmotionReportVO report) throws DocumentException, IOException {
+    public void writeEmotionReportPdf(EmotionReportVO report, OutputStream outputStream) throws DocumentException, IOException {
+        // 先提交两张图表的渲染（命中缓存时直接返回），与下面的文档排版并行
+        CompletableFuture<byte[]> trendChart = chartRenderer.renderTrendChart(report.getTrendData());
+        CompletableFuture<byte[]> pieChart = chartRenderer.renderPieChart(report.getDistribution());
+
         Document document = new Document(PageSize.A4);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         
         PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        writer.setCloseStream(false);
         document.open();
 
         // 添加标题
@@ -64,10 +63,10 @@ public class PdfExportUtil {
         addStatistics(document, report);
         
         // 添加趋势分析
-        addTrendAnalysis(document, report);
+        addTrendAnalysis(document, report, trendChart);
         
         // 添加情绪分布
-        addDistribution(document, report);
+        addDistribution(document, report, pieChart);
         
         // 添加最近记录
         addRecentLogs(document, report);
@@ -76,8 +75,7 @@ public class PdfExportUtil {
         addAiSuggestions(document, report);
         
         document.close();
-        
-        return outputStream.toByteArray();
+        outputStream.flush();
     }
 
     /**
@@ -134,20 +132,18 @@ public class PdfExportUtil {
     /**
      * 添加趋势分析
      */
-    private void addTrendAnalysis(Document document, EmotionReportVO report) throws DocumentException, IOException {
+    private void addTrendAnalysis(Document document, EmotionReportVO report, CompletableFuture<byte[]> trendChart) throws DocumentException, IOException {
         Paragraph trendParagraph = new Paragraph("情绪趋势", SUBTITLE_FONT);
         trendParagraph.setSpacingAfter(10);
         document.add(trendParagraph);
 
-        // 生成情绪趋势图
-        if (report.getTrendData() != null) {
-            byte[] chartBytes = generateTrendChart(report.getTrendData());
-            if (chartBytes != null) {
-                com.itextpdf.text.Image chartImage = com.itextpdf.text.Image.getInstance(chartBytes);
-                chartImage.setAlignment(Element.ALIGN_CENTER);
-                chartImage.scaleToFit(500, 300);
-                document.add(chartImage);
-            }
+        // 添加情绪趋势图
+        byte[] chartBytes = chartRenderer.await(trendChart);
+        if (chartBytes != null) {
+            com.itextpdf.text.Image chartImage = com.itextpdf.text.Image.getInstance(chartBytes);
+            chartImage.setAlignment(Element.ALIGN_CENTER);
+            chartImage.scaleToFit(500, 300);
+            document.add(chartImage);
         }
 
         Paragraph description = new Paragraph(
@@ -162,7 +158,7 @@ public class PdfExportUtil {
     /**
      * 添加情绪分布
      */
-    private void addDistribution(Document document, EmotionReportVO report) throws DocumentException, IOException {
+    private void addDistribution(Document document, EmotionReportVO report, CompletableFuture<byte[]> pieChart) throws DocumentException, IOException {
         Paragraph distributionParagraph = new Paragraph("情绪类型分布", SUBTITLE_FONT);
         distributionParagraph.setSpacingAfter(10);
         document.add(distributionParagraph);
@@ -187,116 +183,14 @@ public class PdfExportUtil {
 
         document.add(table);
 
-        // 生成情绪分布饼图
-        if (report.getDistribution() != null && !report.getDistribution().isEmpty()) {
-            byte[] chartBytes = generatePieChart(report.getDistribution());
-            if (chartBytes != null) {
-                com.itextpdf.text.Image chartImage = com.itextpdf.text.Image.getInstance(chartBytes);
-                chartImage.setAlignment(Element.ALIGN_CENTER);
-                chartImage.scaleToFit(400, 300);
-                document.add(chartImage);
-            }
-        }
-    }
-
-    /**
-     * 生成情绪趋势图
-     */
-    private byte[] generateTrendChart(EmotionReportVO.TrendData trendData) throws IOException {
-        if (trendData == null || trendData.getDates() == null || trendData.getScores() == null || trendData.getDates().size() < 2) {
-            return null;
-        }
-
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        List<String> dates = trendData.getDates();
-        List<Integer> scores = trendData.getScores();
-
-        for (int i = 0; i < dates.size() && i < scores.size(); i++) {
-            dataset.addValue(scores.get(i), "月平均分数", dates.get(i));
-        }
-
-        JFreeChart chart = ChartFactory.createLineChart(
-                "情绪趋势",
-                "日期",
-                "月平均分数",
-                dataset,
-                PlotOrientation.VERTICAL,
-                true, true, false
-        );
-
-        // 设置图表样式
-        CategoryPlot plot = chart.getCategoryPlot();
-        LineAndShapeRenderer renderer = (LineAndShapeRenderer) plot.getRenderer();
-        renderer.setSeriesPaint(0, Color.BLUE);
-        renderer.setSeriesStroke(0, new BasicStroke(2.0f));
-        // 显示连线
-        renderer.setSeriesLinesVisible(0, true);
-        // 同时显示数据点
-        renderer.setSeriesShapesVisible(0, true);
-        renderer.setSeriesShape(0, new java.awt.geom.Ellipse2D.Double(-5.0, -5.0, 10.0, 10.0));
-        renderer.setSeriesOutlinePaint(0, Color.BLUE);
-        renderer.setSeriesFillPaint(0, Color.WHITE);
-
-        // 设置图表标题字体
-        chart.getTitle().setFont(new java.awt.Font("SimHei", java.awt.Font.BOLD, 14));
-        
-        // 设置坐标轴
-        CategoryAxis xAxis = plot.getDomainAxis();
-        xAxis.setLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
-        xAxis.setTickLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 10));
-
-        NumberAxis yAxis = (NumberAxis) plot.getRangeAxis();
-        yAxis.setLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
-        yAxis.setRange(0, 10);
-        yAxis.setTickUnit(new org.jfree.chart.axis.NumberTickUnit(1));
-
-        // 设置图例字体
-        chart.getLegend().setItemFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
-        
-        // 保存图表到字节数组
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ChartUtils.writeChartAsPNG(baos, chart, 600, 400);
-        return baos.toByteArray();
-    }
-
-    /**
-     * 生成情绪分布饼图
-     */
-    private byte[] generatePieChart(Map<String, String> distribution) throws IOException {
-        DefaultPieDataset dataset = new DefaultPieDataset();
-
-        for (Map.Entry<String, String> entry : distribution.entrySet()) {
-            String type = entry.getKey();
-            String percentageStr = entry.getValue().replace("%", "");
-            try {
-                double percentage = Double.parseDouble(percentageStr);
-                dataset.setValue(type, percentage);
-            } catch (NumberFormatException e) {
-                log.warn("无法解析百分比: {}", percentageStr);
-            }
+        // 添加情绪分布饼图
+        byte[] chartBytes = chartRenderer.await(pieChart);
+        if (chartBytes != null) {
+            com.itextpdf.text.Image chartImage = com.itextpdf.text.Image.getInstance(chartBytes);
+            chartImage.setAlignment(Element.ALIGN_CENTER);
+            chartImage.scaleToFit(400, 300);
+            document.add(chartImage);
         }
-
-        JFreeChart chart = ChartFactory.createPieChart(
-                "情绪类型分布",
-                dataset,
-                true,
-                true,
-                false
-        );
-
-        // 设置图表样式
-        PiePlot plot = (PiePlot) chart.getPlot();
-        plot.setLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
-        plot.setLabelGenerator(new org.jfree.chart.labels.StandardPieSectionLabelGenerator("{0}: {1}%"));
-        // 设置图例字体
-        chart.getLegend().setItemFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
-        // 设置标题字体
-        chart.getTitle().setFont(new java.awt.Font("SimHei", java.awt.Font.BOLD, 14));
-
-        // 保存图表到字节数组
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ChartUtils.writeChartAsPNG(baos, chart, 500, 350);
-        return baos.toByteArray();
     }
 
     /**
@@ -308,7 +202,9 @@ public class PdfExportUtil {
         document.add(logsParagraph);
 
         if (report.getRecentLogs() != null && !report.getRecentLogs().isEmpty()) {
+            // 大表格分批写出：已排版的行写入文档后即释放，内存占用与记录条数无关
             PdfPTable table = new PdfPTable(4);
+            table.setComplete(false);
             table.setWidthPercentage(100);
             table.setSpacingBefore(10);
             table.setSpacingAfter(15);
@@ -320,13 +216,18 @@ public class PdfExportUtil {
             table.addCell(createCell("内容", true));
 
             // 数据
-            report.getRecentLogs().forEach(log -> {
+            int rows = 0;
+            for (EmotionReportVO.RecentLog log : report.getRecentLogs()) {
                 table.addCell(createCell(log.getDate(), false));
                 table.addCell(createCell(log.getMoodType(), false));
                 table.addCell(createCell(log.getScore().toString(), false));
                 table.addCell(createCell(log.getContent() != null ? log.getContent() : "", false));
-            });
+                if (++rows % TABLE_FLUSH_ROWS == 0) {
+                    document.add(table);
+                }
+            }
 
+            table.setComplete(true);
             document.add(table);
         } else {
             Paragraph noData = new Paragraph("暂无记录", NORMAL_FONT);
@@ -0,0 +1,254 @@
+package com.mindease.common.utils;
+
+import com.mindease.pojo.vo.EmotionReportVO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtils;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.renderer.category.LineAndShapeRenderer;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.DefaultPieDataset;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 报告图表渲染
+ * 以图表数据的内容哈希为键缓存渲染好的PNG，同样的趋势数据或分布再次导出时直接复用；
+ * 渲染在专用的有界线程池上执行，限制同时进行的AWT绘制，相同图表并发请求只渲染一次。
+ */
+@Component
+@Slf4j
+public class ReportChartRenderer {
+
+    private static final String TREND_CHART = "trend";
+
+    private static final String PIE_CHART = "pie";
+
+    @Autowired
+    @Qualifier("chartRenderExecutor")
+    private ThreadPoolTaskExecutor chartRenderExecutor;
+
+    @Value("${mindease.chart-cache.max-size:200}")
+    private int maxSize;
+
+    @Value("${mindease.chart-render.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    // 内容哈希 -> PNG
+    private Map<String, byte[]> cache;
+
+    // 正在渲染的图表，相同图表的并发请求共用一次渲染
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(1, maxSize);
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * 开始渲染情绪趋势图，数据不足时返回 null
+     */
+    public CompletableFuture<byte[]> renderTrendChart(EmotionReportVO.TrendData trendData) {
+        if (trendData == null || trendData.getDates() == null || trendData.getScores() == null || trendData.getDates().size() < 2) {
+            return null;
+        }
+        String key = cacheKey(TREND_CHART, trendData.getDates() + "|" + trendData.getScores());
+        return render(key, () -> drawTrendChart(trendData));
+    }
+
+    /**
+     * 开始渲染情绪分布饼图，没有分布数据时返回 null
+     */
+    public CompletableFuture<byte[]> renderPieChart(Map<String, String> distribution) {
+        if (distribution == null || distribution.isEmpty()) {
+            return null;
+        }
+        // 分布是无序Map，排序后再计算哈希
+        String key = cacheKey(PIE_CHART, new TreeMap<>(distribution).toString());
+        Map<String, String> snapshot = new LinkedHashMap<>(distribution);
+        return render(key, () -> drawPieChart(snapshot));
+    }
+
+    /**
+     * 等待图表渲染完成，超时、失败或线程池繁忙时返回 null，报告中省略该图表
+     */
+    public byte[] await(CompletableFuture<byte[]> future) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            log.warn("图表渲染超时，报告中省略该图表");
+            return null;
+        } catch (ExecutionException e) {
+            log.error("图表渲染失败", e.getCause());
+            return null;
+        }
+    }
+
+    private CompletableFuture<byte[]> render(String key, Supplier<byte[]> drawer) {
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = rendering.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            chartRenderExecutor.execute(() -> {
+                try {
+                    byte[] png = drawer.get();
+                    // 先写缓存再移除渲染中标记，后续请求总能命中其一
+                    cache.put(key, png);
+                    future.complete(png);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    rendering.remove(key, future);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("图表渲染线程池已满，报告中省略该图表");
+            rendering.remove(key, future);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    private String cacheKey(String chartType, String content) {
+        return chartType + ":" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 绘制情绪趋势图
+     */
+    private byte[] drawTrendChart(EmotionReportVO.TrendData trendData) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        List<String> dates = trendData.getDates();
+        List<Integer> scores = trendData.getScores();
+
+        for (int i = 0; i < dates.size() && i < scores.size(); i++) {
+            dataset.addValue(scores.get(i), "月平均分数", dates.get(i));
+        }
+
+        JFreeChart chart = ChartFactory.createLineChart(
+                "情绪趋势",
+                "日期",
+                "月平均分数",
+                dataset,
+                PlotOrientation.VERTICAL,
+                true, true, false
+        );
+
+        // 设置图表样式
+        CategoryPlot plot = chart.getCategoryPlot();
+        LineAndShapeRenderer renderer = (LineAndShapeRenderer) plot.getRenderer();
+        renderer.setSeriesPaint(0, Color.BLUE);
+        renderer.setSeriesStroke(0, new BasicStroke(2.0f));
+        // 显示连线
+        renderer.setSeriesLinesVisible(0, true);
+        // 同时显示数据点
+        renderer.setSeriesShapesVisible(0, true);
+        renderer.setSeriesShape(0, new java.awt.geom.Ellipse2D.Double(-5.0, -5.0, 10.0, 10.0));
+        renderer.setSeriesOutlinePaint(0, Color.BLUE);
+        renderer.setSeriesFillPaint(0, Color.WHITE);
+
+        // 设置图表标题字体
+        chart.getTitle().setFont(new java.awt.Font("SimHei", java.awt.Font.BOLD, 14));
+
+        // 设置坐标轴
+        CategoryAxis xAxis = plot.getDomainAxis();
+        xAxis.setLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
+        xAxis.setTickLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 10));
+
+        NumberAxis yAxis = (NumberAxis) plot.getRangeAxis();
+        yAxis.setLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
+        yAxis.setRange(0, 10);
+        yAxis.setTickUnit(new org.jfree.chart.axis.NumberTickUnit(1));
+
+        // 设置图例字体
+        chart.getLegend().setItemFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
+
+        return toPng(chart, 600, 400);
+    }
+
+    /**
+     * 绘制情绪分布饼图
+     */
+    private byte[] drawPieChart(Map<String, String> distribution) {
+        DefaultPieDataset dataset = new DefaultPieDataset();
+
+        for (Map.Entry<String, String> entry : distribution.entrySet()) {
+            String type = entry.getKey();
+            String percentageStr = entry.getValue().replace("%", "");
+            try {
+                double percentage = Double.parseDouble(percentageStr);
+                dataset.setValue(type, percentage);
+            } catch (NumberFormatException e) {
+                log.warn("无法解析百分比: {}", percentageStr);
+            }
+        }
+
+        JFreeChart chart = ChartFactory.createPieChart(
+                "情绪类型分布",
+                dataset,
+                true,
+                true,
+                false
+        );
+
+        // 设置图表样式
+        PiePlot plot = (PiePlot) chart.getPlot();
+        plot.setLabelFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
+        plot.setLabelGenerator(new org.jfree.chart.labels.StandardPieSectionLabelGenerator("{0}: {1}%"));
+        // 设置图例字体
+        chart.getLegend().setItemFont(new java.awt.Font("SimHei", java.awt.Font.PLAIN, 12));
+        // 设置标题字体
+        chart.getTitle().setFont(new java.awt.Font("SimHei", java.awt.Font.BOLD, 14));
+
+        return toPng(chart, 500, 350);
+    }
+
+    private byte[] toPng(JFreeChart chart, int width, int height) {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ChartUtils.writeChartAsPNG(baos, chart, width, height);
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
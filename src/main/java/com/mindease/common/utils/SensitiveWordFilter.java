@@ -1,13 +1,38 @@
 package com.mindease.common.utils;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 敏感词过滤器
+ * 词库从 mindease.sensitive-word.location 指定的文件加载，后台线程定期检查内容变化，
+ * 编译成新的自动机后原子替换，检测过程无锁且不会看到半成品词库。
+ * 词库为空或比当前版本缩减过多时视为文件损坏（截断、误改），拒绝发布并保留当前版本，避免危机词检测被悄悄关闭。
+ */
 @Component
+@Slf4j
 public class SensitiveWordFilter {
 
-    // 敏感词库，可以从数据库或配置文件加载
-    private static final Set<String> SENSITIVE_WORDS = new HashSet<>(Arrays.asList(
+    // 内置兜底词库，仅在词库文件首次加载失败时使用
+    private static final Set<String> FALLBACK_WORDS = new HashSet<>(Arrays.asList(
             "自杀", "自残", "自尽", "轻生", "寻死", "了结生命", "结束生命",
             "割腕", "上吊", "跳楼", "投河", "服毒", "割脉", "开煤气","想死",
             "自戕", "自绝", "自裁", "轻生念头", "不想活了", "活着没意义",
@@ -19,6 +44,131 @@ public class SensitiveWordFilter {
             "活着太累了", "撑不下去了", "没有活下去的勇气", "了结一切", "一了百了", "摆脱困境"
     ));
 
+    @Value("${mindease.sensitive-word.location:classpath:sensitive-words.txt}")
+    private String location;
+
+    @Value("${mindease.sensitive-word.refresh-interval:60}")
+    private long refreshIntervalSeconds;
+
+    // 新词库相对当前版本允许缩减的最大比例，超过时拒绝发布
+    @Value("${mindease.sensitive-word.max-shrink-ratio:0.5}")
+    private double maxShrinkRatio;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    // 当前生效的词库版本，检测线程只读取引用，永远不会看到构建中的状态
+    private final AtomicReference<Dictionary> current = new AtomicReference<>(
+            Dictionary.of(SensitiveWordMatcher.compile(FALLBACK_WORDS), 0, "builtin", "builtin", 0));
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    // 词库加载与编译线程
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sensitive-word-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        // 首次加载同样在后台线程完成，加载完成前使用内置词库
+        reloadExecutor.execute(() -> {
+            try {
+                loadAndSwap(false);
+            } catch (Exception e) {
+                log.error("加载敏感词库失败，使用内置词库，location:{}", location, e);
+            }
+        });
+        if (refreshIntervalSeconds > 0) {
+            reloadExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    loadAndSwap(false);
+                } catch (Exception e) {
+                    log.error("定时刷新敏感词库失败，继续使用版本 {}", current.get().getVersion(), e);
+                }
+            }, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        reloadExecutor.shutdownNow();
+    }
+
+    /**
+     * 异步重新加载词库，编译完成后原子替换
+     * @return 加载完成后的词库信息
+     */
+    public CompletableFuture<Dictionary> reload() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadAndSwap(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, reloadExecutor);
+    }
+
+    /**
+     * 当前生效的词库信息
+     */
+    public Dictionary getDictionary() {
+        return current.get();
+    }
+
+    /**
+     * 读取词库文件，内容未变化时跳过编译
+     */
+    private Dictionary loadAndSwap(boolean force) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        byte[] bytes;
+        try (InputStream in = resource.getInputStream()) {
+            bytes = in.readAllBytes();
+        }
+        String checksum = DigestUtils.md5DigestAsHex(bytes);
+        Dictionary previous = current.get();
+        if (!force && checksum.equals(previous.getChecksum())) {
+            return previous;
+        }
+
+        List<String> words = new ArrayList<>();
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\\R")) {
+            String word = line.trim();
+            if (!word.isEmpty() && !word.startsWith("#")) {
+                words.add(word);
+            }
+        }
+
+        long start = System.nanoTime();
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(words);
+        long compileMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        validate(matcher, previous);
+
+        Dictionary next = Dictionary.of(matcher, versionSequence.incrementAndGet(), checksum, location, compileMillis);
+        current.set(next);
+        log.info("敏感词库已加载，版本:{}，词数:{}，编译耗时:{}ms，来源:{}",
+                next.getVersion(), next.getWordCount(), compileMillis, location);
+        return next;
+    }
+
+    /**
+     * 校验新词库，空词库或缩减超过允许比例时抛出异常，调用方保留当前版本
+     */
+    private void validate(SensitiveWordMatcher matcher, Dictionary previous) {
+        if (matcher.size() == 0) {
+            log.error("敏感词库为空，拒绝发布，继续使用版本 {}，来源:{}", previous.getVersion(), location);
+            throw new IllegalStateException("敏感词库为空，已保留当前版本");
+        }
+        int minimum = (int) Math.ceil(previous.getWordCount() * (1 - maxShrinkRatio));
+        if (matcher.size() < minimum) {
+            log.error("敏感词库词数由 {} 降至 {}，超过允许的缩减比例 {}，拒绝发布，继续使用版本 {}，来源:{}",
+                    previous.getWordCount(), matcher.size(), maxShrinkRatio, previous.getVersion(), location);
+            throw new IllegalStateException(String.format("敏感词库词数由 %d 降至 %d，疑似文件损坏，已保留当前版本",
+                    previous.getWordCount(), matcher.size()));
+        }
+    }
+
     /**
      * 检测文本中是否包含敏感词
      * @param text 待检测的文本
@@ -28,17 +178,7 @@ public class SensitiveWordFilter {
         if (text == null || text.isEmpty()) {
             return false;
         }
-
-        // 转换为小写进行检测，提高匹配率
-        String lowerText = text.toLowerCase();
-
-        for (String word : SENSITIVE_WORDS) {
-            if (lowerText.contains(word.toLowerCase())) {
-                return true;
-            }
-        }
-
-        return false;
+        return current.get().getMatcher().containsAny(text);
     }
 
     /**
@@ -50,38 +190,63 @@ public class SensitiveWordFilter {
         if (text == null || text.isEmpty()) {
             return null;
         }
-
-        String lowerText = text.toLowerCase();
-
-        for (String word : SENSITIVE_WORDS) {
-            if (lowerText.contains(word.toLowerCase())) {
-                return word;
-            }
-        }
-
-        return null;
+        return current.get().getMatcher().findFirst(text);
     }
     
     /**
      * 获取文本中所有的敏感词
      * @param text 待检测的文本
-     * @return 返回检测到的所有敏感词列表，如果没有则返回空列表
+     * @return 返回检测到的所有敏感词列表（按首次出现顺序），如果没有则返回空列表
      */
     public List<String> getAllSensitiveWords(String text) {
-        List<String> foundWords = new ArrayList<>();
-        
         if (text == null || text.isEmpty()) {
-            return foundWords;
+            return new ArrayList<>();
         }
+        return current.get().getMatcher().findAll(text);
+    }
+
+    /**
+     * 创建增量扫描器，用于逐段检测流式文本（如AI流式回复）
+     * @return 新的扫描器，每个流单独使用
+     */
+    public SensitiveWordMatcher.StreamScanner newStreamScanner() {
+        return current.get().getMatcher().newStreamScanner();
+    }
 
-        String lowerText = text.toLowerCase();
+    /**
+     * 不可变的词库版本
+     */
+    @Getter
+    public static final class Dictionary {
 
-        for (String word : SENSITIVE_WORDS) {
-            if (lowerText.contains(word.toLowerCase())) {
-                foundWords.add(word);
-            }
+        private final SensitiveWordMatcher matcher;
+
+        private final long version;
+
+        private final String checksum;
+
+        private final String source;
+
+        private final int wordCount;
+
+        private final long compileMillis;
+
+        private final LocalDateTime loadedAt;
+
+        private Dictionary(SensitiveWordMatcher matcher, long version, String checksum, String source,
+                           long compileMillis) {
+            this.matcher = matcher;
+            this.version = version;
+            this.checksum = checksum;
+            this.source = source;
+            this.wordCount = matcher.size();
+            this.compileMillis = compileMillis;
+            this.loadedAt = LocalDateTime.now();
         }
 
-        return foundWords;
+        static Dictionary of(SensitiveWordMatcher matcher, long version, String checksum, String source,
+                             long compileMillis) {
+            return new Dictionary(matcher, version, checksum, source, compileMillis);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,291 @@
+package com.mindease.common.utils;
+
+import java.util.*;
+
+/**
+ * 编译后的敏感词匹配自动机（Aho-Corasick）
+ * 构建完成后不可变，可在多线程间共享；一次扫描即可找出文本中的全部敏感词，匹配过程不分配对象。
+ * 匹配前对字符做小写转换，与原有的忽略大小写检测保持一致。
+ */
+public final class SensitiveWordMatcher {
+
+    private static final int ROOT = 0;
+
+    // 词库（下标即词ID）
+    private final String[] words;
+
+    // 词库中出现过的字符（已排序），用于把字符压缩为列下标
+    private final char[] alphabet;
+
+    // 完整状态转移表：transitions[state * alphabet.length + column]
+    private final int[] transitions;
+
+    // 以该状态结尾的词ID，没有则为 -1
+    private final int[] outputWord;
+
+    // 沿失败链的下一个带输出的状态，没有则为 -1
+    private final int[] outputLink;
+
+    private SensitiveWordMatcher(String[] words, char[] alphabet, int[] transitions, int[] outputWord, int[] outputLink) {
+        this.words = words;
+        this.alphabet = alphabet;
+        this.transitions = transitions;
+        this.outputWord = outputWord;
+        this.outputLink = outputLink;
+    }
+
+    /**
+     * 根据词库编译自动机
+     *
+     * @param dictionary 敏感词集合
+     * @return 编译后的自动机
+     */
+    public static SensitiveWordMatcher compile(Collection<String> dictionary) {
+        // 1. 规范化词库：去空、转小写、去重
+        LinkedHashSet<String> normalized = new LinkedHashSet<>();
+        for (String word : dictionary) {
+            if (word != null && !word.trim().isEmpty()) {
+                normalized.add(word.trim().toLowerCase());
+            }
+        }
+        String[] words = normalized.toArray(new String[0]);
+
+        // 2. 字符表
+        TreeSet<Character> chars = new TreeSet<>();
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                chars.add(word.charAt(i));
+            }
+        }
+        char[] alphabet = new char[chars.size()];
+        int k = 0;
+        for (Character c : chars) {
+            alphabet[k++] = c;
+        }
+        int width = Math.max(1, alphabet.length);
+
+        // 3. 构建字典树（goto 函数）
+        List<int[]> gotoRows = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        gotoRows.add(newRow(width));
+        outputs.add(-1);
+        for (int w = 0; w < words.length; w++) {
+            int state = ROOT;
+            String word = words[w];
+            for (int i = 0; i < word.length(); i++) {
+                int column = Arrays.binarySearch(alphabet, word.charAt(i));
+                int next = gotoRows.get(state)[column];
+                if (next < 0) {
+                    next = gotoRows.size();
+                    gotoRows.add(newRow(width));
+                    outputs.add(-1);
+                    gotoRows.get(state)[column] = next;
+                }
+                state = next;
+            }
+            outputs.set(state, w);
+        }
+
+        // 4. BFS 计算失败函数，并把 goto 补全为确定性转移表
+        int stateCount = gotoRows.size();
+        int[] transitions = new int[stateCount * width];
+        int[] fail = new int[stateCount];
+        int[] outputWord = new int[stateCount];
+        int[] outputLink = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            outputWord[s] = outputs.get(s);
+            outputLink[s] = -1;
+        }
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] rootRow = gotoRows.get(ROOT);
+        for (int c = 0; c < width; c++) {
+            int next = rootRow[c];
+            if (next < 0) {
+                transitions[c] = ROOT;
+            } else {
+                transitions[c] = next;
+                fail[next] = ROOT;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failState = fail[state];
+            outputLink[state] = outputWord[failState] >= 0 ? failState : outputLink[failState];
+            int[] row = gotoRows.get(state);
+            for (int c = 0; c < width; c++) {
+                int next = row[c];
+                if (next < 0) {
+                    transitions[state * width + c] = transitions[failState * width + c];
+                } else {
+                    transitions[state * width + c] = next;
+                    fail[next] = transitions[failState * width + c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        return new SensitiveWordMatcher(words, alphabet, transitions, outputWord, outputLink);
+    }
+
+    private static int[] newRow(int width) {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * 词库大小
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * 状态转移，字符不在词库字符表中时回到根状态
+     */
+    int next(int state, char ch) {
+        int column = Arrays.binarySearch(alphabet, Character.toLowerCase(ch));
+        if (column < 0) {
+            return ROOT;
+        }
+        return transitions[state * alphabet.length + column];
+    }
+
+    /**
+     * 状态上的第一个匹配词ID，没有则为 -1
+     */
+    int firstMatch(int state) {
+        return outputWord[state] >= 0 ? state : outputLink[state];
+    }
+
+    String word(int wordId) {
+        return words[wordId];
+    }
+
+    /**
+     * 检测文本中是否包含敏感词
+     */
+    public boolean containsAny(CharSequence text) {
+        if (text == null || words.length == 0) {
+            return false;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            if (firstMatch(state) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 返回最先出现（按结束位置）的敏感词，没有则返回 null
+     */
+    public String findFirst(CharSequence text) {
+        if (text == null || words.length == 0) {
+            return null;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            int matched = firstMatch(state);
+            if (matched >= 0) {
+                return words[outputWord[matched]];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 返回文本中出现的全部敏感词（按首次出现顺序去重）
+     */
+    public List<String> findAll(CharSequence text) {
+        List<String> found = new ArrayList<>();
+        if (text == null || words.length == 0) {
+            return found;
+        }
+        BitSet seen = new BitSet(words.length);
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            collect(state, seen, found);
+        }
+        return found;
+    }
+
+    /**
+     * 沿输出链收集当前状态上的全部匹配词
+     */
+    void collect(int state, BitSet seen, List<String> found) {
+        for (int s = firstMatch(state); s >= 0; s = outputLink[s]) {
+            int wordId = outputWord[s];
+            if (!seen.get(wordId)) {
+                seen.set(wordId);
+                found.add(words[wordId]);
+            }
+        }
+    }
+
+    /**
+     * 创建增量扫描器，用于逐段扫描流式文本（如AI流式回复），跨片段的敏感词同样能被识别
+     */
+    public StreamScanner newStreamScanner() {
+        return new StreamScanner(this);
+    }
+
+    /**
+     * 增量扫描器，非线程安全，每个流单独创建
+     */
+    public static final class StreamScanner {
+
+        private final SensitiveWordMatcher matcher;
+
+        private final BitSet seen;
+
+        private final List<String> matched = new ArrayList<>();
+
+        private int state = ROOT;
+
+        private StreamScanner(SensitiveWordMatcher matcher) {
+            this.matcher = matcher;
+            this.seen = new BitSet(matcher.size());
+        }
+
+        /**
+         * 扫描下一段文本
+         *
+         * @param chunk 文本片段
+         * @return 本片段新发现的敏感词，没有则返回空列表
+         */
+        public List<String> feed(CharSequence chunk) {
+            if (chunk == null || chunk.length() == 0 || matcher.size() == 0) {
+                return Collections.emptyList();
+            }
+            int before = matched.size();
+            for (int i = 0; i < chunk.length(); i++) {
+                state = matcher.next(state, chunk.charAt(i));
+                matcher.collect(state, seen, matched);
+            }
+            return before == matched.size()
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(new ArrayList<>(matched.subList(before, matched.size())));
+        }
+
+        /**
+         * 是否已发现敏感词
+         */
+        public boolean hasMatched() {
+            return !matched.isEmpty();
+        }
+
+        /**
+         * 目前为止发现的全部敏感词
+         */
+        public List<String> getMatched() {
+            return Collections.unmodifiableList(matched);
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package com.mindease.config;
 
 import com.mindease.aiservice.ConsultantService;
+import com.mindease.rag.LocalEmbeddingStore;
 import dev.langchain4j.community.store.embedding.redis.RedisEmbeddingStore;
 import dev.langchain4j.data.document.Document;
-import dev.langchain4j.data.document.DocumentSplitter;
 import dev.langchain4j.data.document.loader.ClassPathDocumentLoader;
 import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
 import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
-import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
@@ -17,13 +17,14 @@ import dev.langchain4j.rag.content.retriever.ContentRetriever;
 import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
 import dev.langchain4j.service.AiServices;
 import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
 import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
 import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
 import java.util.List;
 
 @Configuration
@@ -38,6 +39,13 @@ public class AiConfiguration {
     @Autowired
     private RedisEmbeddingStore redisEmbeddingStore;
 
+    // 向量库类型：redis 或 local（进程内向量库）
+    @Value("${mindease.rag.store:redis}")
+    private String storeType;
+
+    @Value("${mindease.rag.snapshot-path:data/knowledge-base.snapshot}")
+    private String snapshotPath;
+
 //    @Autowired
 //    private ChatModel qwenChatModel;
 //
@@ -75,25 +83,14 @@ public class AiConfiguration {
     }
 
     // 构建向量数据库操作对象
+    // 文档的切割、向量化与存储由 KnowledgeBaseIngestor 在应用就绪后于后台增量完成
     @Bean
-    public EmbeddingStore store() {
-        // 加载文档进内存
-        List<Document> documents = ClassPathDocumentLoader.loadDocuments("content");
+    public EmbeddingStore<TextSegment> store() {
         //List<Document> documents = ClassPathDocumentLoader.loadDocuments("content", new ApachePdfBoxDocumentParser()); pdf版本好像有点不兼容？
-        // 构建向量数据库操作对象
         //InMemoryEmbeddingStore store = new InMemoryEmbeddingStore();
-
-        // 构建文档分割器对象
-        DocumentSplitter ds = DocumentSplitters.recursive(500, 100);
-
-        // 构建一个EmbeddingStoreIngestor对象，完成对文本数据切割，向量化，存储
-        EmbeddingStoreIngestor ingestor = EmbeddingStoreIngestor.builder()
-                .embeddingStore(redisEmbeddingStore)
-                .documentSplitter(ds)
-                .embeddingModel(embeddingModel)
-                .build();
-        // 执行向量化存储
-        ingestor.ingest(documents);
+        if ("local".equalsIgnoreCase(storeType)) {
+            return new LocalEmbeddingStore(Paths.get(snapshotPath));
+        }
         return redisEmbeddingStore;
     }
 
@@ -101,7 +98,7 @@ public class AiConfiguration {
     @Bean
     public ContentRetriever contentRetriever() {
         return EmbeddingStoreContentRetriever.builder()
-                .embeddingStore(redisEmbeddingStore)
+                .embeddingStore(store())
                 .minScore(0.5)
                 .maxResults(3)
                 .embeddingModel(embeddingModel)
@@ -0,0 +1,106 @@
+package com.mindease.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 配置类，注册业务使用的有界线程池
+ */
+@Configuration
+@Slf4j
+public class ExecutorConfiguration {
+
+    /**
+     * 情绪日记AI分析线程池
+     * 队列有界，队列满时拒绝任务，由调用方降级处理，避免模型变慢时任务无限堆积
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor moodAnalysisExecutor(@Value("${mindease.mood-analysis.pool-size:4}") int poolSize,
+                                                       @Value("${mindease.mood-analysis.queue-capacity:200}") int queueCapacity) {
+        log.info("初始化情绪分析线程池，线程数:{}，队列容量:{}", poolSize, queueCapacity);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mood-analysis-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 密码哈希线程池
+     * 线程数默认等于CPU核数，限制同时进行的哈希计算，登录突增时超出队列的请求快速失败而不是占满请求线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor passwordHashExecutor(@Value("${mindease.password.pool-size:0}") int poolSize,
+                                                       @Value("${mindease.password.queue-capacity:100}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        log.info("初始化密码哈希线程池，线程数:{}，队列容量:{}", threads, queueCapacity);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 报告图表渲染线程池
+     * 限制同时进行的AWT绘制，导出突增时超出队列的图表直接省略，不占满请求线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor chartRenderExecutor(@Value("${mindease.chart-render.pool-size:2}") int poolSize,
+                                                      @Value("${mindease.chart-render.queue-capacity:50}") int queueCapacity) {
+        log.info("初始化图表渲染线程池，线程数:{}，队列容量:{}", poolSize, queueCapacity);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chart-render-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 报告导出线程池
+     * 报告汇总与PDF生成不占用Tomcat请求线程，队列满时拒绝新的导出任务
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor reportExportExecutor(@Value("${mindease.report-export.pool-size:2}") int poolSize,
+                                                       @Value("${mindease.report-export.queue-capacity:20}") int queueCapacity) {
+        log.info("初始化报告导出线程池，线程数:{}，队列容量:{}", poolSize, queueCapacity);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 聊天消息持久化调度器
+     * 流式对话中的数据库读写都在该调度器上执行，不占用 Reactor 与模型回调线程，
+     * 数据库变慢时只影响当前会话，不会拖慢其他会话的 token 推送
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler chatPersistenceScheduler(@Value("${mindease.chat-persistence.pool-size:8}") int poolSize,
+                                              @Value("${mindease.chat-persistence.queue-capacity:1000}") int queueCapacity) {
+        log.info("初始化聊天持久化调度器，线程数:{}，队列容量:{}", poolSize, queueCapacity);
+        return Schedulers.newBoundedElastic(poolSize, queueCapacity, "chat-persistence");
+    }
+}
@@ -0,0 +1,38 @@
+package com.mindease.controller.admin;
+
+import com.mindease.cache.CounselorProfileCache;
+import com.mindease.common.exception.BaseException;
+import com.mindease.common.result.Result;
+import com.mindease.pojo.vo.ProfileCacheStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 管理员缓存统计控制器
+ */
+@RestController
+@RequestMapping("/admin/cache")
+@Slf4j
+public class AdminCacheController {
+
+    @Autowired
+    private CounselorProfileCache counselorProfileCache;
+
+    /**
+     * 查询咨询师资料缓存命中统计
+     *
+     * @param role 当前用户角色（从token中获取）
+     * @return
+     */
+    @GetMapping("/counselor-profile")
+    public Result<ProfileCacheStatsVO> getCounselorProfileCacheStats(@RequestAttribute String role) {
+        if (!"ADMIN".equalsIgnoreCase(role)) {
+            throw new BaseException("无权访问，仅管理员可操作");
+        }
+        return Result.success(counselorProfileCache.getStats());
+    }
+}
@@ -0,0 +1,79 @@
+package com.mindease.controller.admin;
+
+import com.mindease.common.exception.BaseException;
+import com.mindease.common.result.Result;
+import com.mindease.common.utils.SensitiveWordFilter;
+import com.mindease.pojo.vo.SensitiveWordDictionaryVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理员敏感词库控制器
+ */
+@RestController
+@RequestMapping("/admin/sensitive-words")
+@Slf4j
+public class AdminSensitiveWordController {
+
+    @Autowired
+    private SensitiveWordFilter sensitiveWordFilter;
+
+    /**
+     * 查询当前词库版本、词数与加载耗时
+     *
+     * @param role 当前用户角色（从token中获取）
+     * @return
+     */
+    @GetMapping("/stats")
+    public Result<SensitiveWordDictionaryVO> getStats(@RequestAttribute String role) {
+        checkAdmin(role);
+        return Result.success(toVO(sensitiveWordFilter.getDictionary()));
+    }
+
+    /**
+     * 立即重新加载词库
+     *
+     * @param role 当前用户角色（从token中获取）
+     * @return
+     */
+    @PostMapping("/reload")
+    public Result<SensitiveWordDictionaryVO> reload(@RequestAttribute String role) {
+        checkAdmin(role);
+        log.info("管理员触发敏感词库重新加载");
+        try {
+            SensitiveWordFilter.Dictionary dictionary = sensitiveWordFilter.reload().get(30, TimeUnit.SECONDS);
+            return Result.success(toVO(dictionary));
+        } catch (ExecutionException e) {
+            // 词库校验未通过时返回具体原因，当前版本保持不变
+            if (e.getCause() instanceof IllegalStateException) {
+                return Result.error(e.getCause().getMessage());
+            }
+            log.error("重新加载敏感词库失败", e);
+            throw new BaseException("重新加载敏感词库失败");
+        } catch (Exception e) {
+            log.error("重新加载敏感词库失败", e);
+            throw new BaseException("重新加载敏感词库失败");
+        }
+    }
+
+    private void checkAdmin(String role) {
+        if (!"ADMIN".equalsIgnoreCase(role)) {
+            throw new BaseException("无权访问，仅管理员可操作");
+        }
+    }
+
+    private SensitiveWordDictionaryVO toVO(SensitiveWordFilter.Dictionary dictionary) {
+        return SensitiveWordDictionaryVO.builder()
+                .version(dictionary.getVersion())
+                .checksum(dictionary.getChecksum())
+                .source(dictionary.getSource())
+                .wordCount(dictionary.getWordCount())
+                .compileMillis(dictionary.getCompileMillis())
+                .loadedAt(dictionary.getLoadedAt())
+                .build();
+    }
+}
@@ -2,14 +2,13 @@ package com.mindease.controller.admin;
 
 import com.mindease.common.constant.JwtClaimsConstant;
 import com.mindease.common.result.Result;
-import com.mindease.common.utils.JwtUtil;
+import com.mindease.common.utils.JwtTokenProvider;
 import com.mindease.pojo.dto.UserLoginDTO;
 import com.mindease.pojo.entity.User;
 import com.mindease.pojo.vo.UserLoginVO;
 import com.mindease.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -29,11 +28,8 @@ public class CommonController {
     @Autowired
     private UserService userService;
 
-    @Value("${mindease.jwt.secret-key}")
-    private String secretKey;
-
-    @Value("${mindease.jwt.ttl}")
-    private Long ttl;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
 
     /**
      * 管理员登录
@@ -52,7 +48,7 @@ public class CommonController {
         claims.put(JwtClaimsConstant.USER_ID, user.getId());
         claims.put(JwtClaimsConstant.USERNAME, user.getUsername());
         claims.put(JwtClaimsConstant.ROLE, user.getRole());
-        String token = JwtUtil.createJWT(secretKey, ttl, claims);
+        String token = jwtTokenProvider.createToken(claims);
 
         UserLoginVO userLoginVO = UserLoginVO.builder()
                 .userId(user.getId())
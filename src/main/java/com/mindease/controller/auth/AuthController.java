@@ -4,7 +4,7 @@ import com.mindease.common.constant.JwtClaimsConstant;
 import com.mindease.common.constant.MessageConstant;
 import com.mindease.common.constant.StatusConstant;
 import com.mindease.common.result.Result;
-import com.mindease.common.utils.JwtUtil;
+import com.mindease.common.utils.JwtTokenProvider;
 import com.mindease.pojo.dto.UserLoginDTO;
 import com.mindease.pojo.dto.UserRegisterDTO;
 import com.mindease.pojo.dto.UserUpdateDTO;
@@ -17,7 +17,6 @@ import com.mindease.service.AppointmentService;
 import com.mindease.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -37,11 +36,8 @@ public class AuthController {
     @Autowired
     private AppointmentService appointmentService;
 
-    @Value("${mindease.jwt.secret-key}")
-    private String secretKey;
-
-    @Value("${mindease.jwt.ttl}")
-    private Long ttl;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
 
     /**
      * 用户注册
@@ -60,7 +56,7 @@ public class AuthController {
         claims.put(JwtClaimsConstant.USER_ID, user.getId());
         claims.put(JwtClaimsConstant.USERNAME, user.getUsername());
         claims.put(JwtClaimsConstant.ROLE, user.getRole());
-        String token = JwtUtil.createJWT(secretKey, ttl, claims);
+        String token = jwtTokenProvider.createToken(claims);
 
         // 根据用户类型返回不同的消息
         String message = "success";
@@ -104,7 +100,7 @@ public class AuthController {
         claims.put(JwtClaimsConstant.USER_ID, user.getId());
         claims.put(JwtClaimsConstant.USERNAME, user.getUsername());
         claims.put(JwtClaimsConstant.ROLE, user.getRole());
-        String token = JwtUtil.createJWT(secretKey, ttl, claims);
+        String token = jwtTokenProvider.createToken(claims);
 
         UserLoginVO userLoginVO = UserLoginVO.builder()
                 .userId(user.getId())
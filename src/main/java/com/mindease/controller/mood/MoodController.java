@@ -32,6 +32,18 @@ public class MoodController {
         return Result.success(moodLogVO);
     }
 
+    /**
+     * 查询日记的AI情绪分析结果（提交后轮询）
+     */
+    @GetMapping("/log/{id}/analysis")
+    public Result<MoodLogVO> getMoodAnalysis(@PathVariable Long id, HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+
+        MoodLogVO result = moodService.getMoodAnalysis(id, userId);
+
+        return Result.success(result);
+    }
+
     /**
      * 获取情绪日记列表
      */
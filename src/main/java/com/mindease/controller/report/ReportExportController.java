@@ -1,7 +1,12 @@
 package com.mindease.controller.report;
 
 import com.itextpdf.text.DocumentException;
+import com.mindease.common.constant.MessageConstant;
+import com.mindease.common.exception.BaseException;
+import com.mindease.common.result.Result;
 import com.mindease.pojo.vo.EmotionReportVO;
+import com.mindease.pojo.vo.ReportExportJobVO;
+import com.mindease.service.ReportExportService;
 import com.mindease.service.ReportService;
 import com.mindease.common.utils.PdfExportUtil;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,14 +14,19 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 /**
  * 报告导出控制器
@@ -29,13 +39,14 @@ public class ReportExportController {
 
     private final ReportService reportService;
     private final PdfExportUtil pdfExportUtil;
+    private final ReportExportService reportExportService;
 
     /**
      * 导出报告PDF
      */
     @GetMapping("/export")
     @Operation(summary = "导出报告PDF", description = "导出用户整体情绪报告的PDF文件")
-    public ResponseEntity<byte[]> exportReport(
+    public ResponseEntity<StreamingResponseBody> exportReport(
             @Parameter(description = "导出格式，当前仅支持pdf", required = true, example = "pdf")
             @RequestParam String format,
             
@@ -44,49 +55,28 @@ public class ReportExportController {
         try {
             // 验证格式参数
             if (!"pdf".equalsIgnoreCase(format)) {
-                return ResponseEntity.badRequest()
-                        .body("不支持的导出格式，当前仅支持pdf".getBytes());
+                return errorResponse(HttpStatus.BAD_REQUEST, "不支持的导出格式，当前仅支持pdf");
             }
 
             // 获取用户ID
             Long userId = (Long) request.getAttribute("userId");
             if (userId == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body("用户未登录或token无效".getBytes());
+                return errorResponse(HttpStatus.UNAUTHORIZED, "用户未登录或token无效");
             }
 
             // 生成用户整体情绪报告
             EmotionReportVO report = reportService.generateOverallReport(userId);
             
-            // 生成PDF
-            byte[] pdfBytes = pdfExportUtil.generateEmotionReportPdf(report);
-
-            // 设置响应头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
             // 使用URL编码处理中文文件名
             String fileName = generateFileName(report.getPeriod()) + ".pdf";
-            try {
-                String encodedFileName = java.net.URLEncoder.encode(fileName, "UTF-8");
-                headers.setContentDispositionFormData("attachment", encodedFileName);
-            } catch (Exception e) {
-                // 如果编码失败，使用默认文件名
-                headers.setContentDispositionFormData("attachment", "emotion_report.pdf");
-            }
-            headers.setContentLength(pdfBytes.length);
-
-            log.info("用户 {} 成功导出整体情绪报告PDF", userId);
             
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            log.info("用户 {} 开始导出整体情绪报告PDF", userId);
+            
+            return pdfResponse(report, fileName, "emotion_report.pdf");
 
-        } catch (DocumentException | IOException e) {
-            log.error("生成PDF报告失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("生成PDF报告失败".getBytes());
         } catch (Exception e) {
             log.error("导出报告失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("导出报告失败".getBytes());
+            return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "导出报告失败");
         }
     }
 
@@ -94,7 +84,7 @@ public class ReportExportController {
      * 咨询师查看用户的情绪档案
      */
     @GetMapping("/export/{userId}")
-    public ResponseEntity<byte[]> exportUserReport(
+    public ResponseEntity<StreamingResponseBody> exportUserReport(
             @Parameter(description = "用户ID", required = true, example = "1")
             @PathVariable Long userId,
             
@@ -106,50 +96,122 @@ public class ReportExportController {
         try {
             // 验证格式参数
             if (!"pdf".equalsIgnoreCase(format)) {
-                return ResponseEntity.badRequest()
-                        .body("不支持的导出格式，当前仅支持pdf".getBytes());
+                return errorResponse(HttpStatus.BAD_REQUEST, "不支持的导出格式，当前仅支持pdf");
             }
 
             // 获取咨询师ID
             Long counselorId = (Long) request.getAttribute("userId");
             if (counselorId == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body("咨询师未登录或token无效".getBytes());
+                return errorResponse(HttpStatus.UNAUTHORIZED, "咨询师未登录或token无效");
+            }
+            if (!reportExportService.canExport(counselorId, (String) request.getAttribute("role"), userId)) {
+                log.warn("用户 {} 无权导出用户 {} 的情绪档案", counselorId, userId);
+                return errorResponse(HttpStatus.FORBIDDEN, MessageConstant.REPORT_ACCESS_DENIED);
             }
 
             // 生成用户整体情绪报告
             EmotionReportVO report = reportService.generateOverallReport(userId);
             
-            // 生成PDF
-            byte[] pdfBytes = pdfExportUtil.generateEmotionReportPdf(report);
-
-            // 设置响应头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
             // 使用URL编码处理中文文件名
             String fileName = "用户情绪档案_" + userId + "_" + generateFileName(report.getPeriod()) + ".pdf";
-            try {
-                String encodedFileName = java.net.URLEncoder.encode(fileName, "UTF-8");
-                headers.setContentDispositionFormData("attachment", encodedFileName);
-            } catch (Exception e) {
-                // 如果编码失败，使用默认文件名
-                headers.setContentDispositionFormData("attachment", "user_emotion_report.pdf");
-            }
-            headers.setContentLength(pdfBytes.length);
 
-            log.info("咨询师 {} 成功查看用户 {} 的情绪档案PDF", counselorId, userId);
+            log.info("咨询师 {} 开始导出用户 {} 的情绪档案PDF", counselorId, userId);
             
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            return pdfResponse(report, fileName, "user_emotion_report.pdf");
 
-        } catch (DocumentException | IOException e) {
-            log.error("生成PDF报告失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("生成PDF报告失败".getBytes());
         } catch (Exception e) {
             log.error("导出报告失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("导出报告失败".getBytes());
+            return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "导出报告失败");
+        }
+    }
+
+    /**
+     * 提交异步导出任务，不传 userId 时导出当前用户自己的报告；
+     * 导出他人报告仅限与该用户有预约关系的咨询师
+     */
+    @PostMapping("/export/jobs")
+    @Operation(summary = "提交报告导出任务", description = "在后台生成整体情绪报告PDF，数据未变化时直接复用已生成的文件")
+    public Result<ReportExportJobVO> submitExportJob(
+            @Parameter(description = "报告所属用户ID，默认为当前用户", example = "1")
+            @RequestParam(required = false) Long userId,
+
+            @Parameter(description = "导出格式，当前仅支持pdf", required = true, example = "pdf")
+            @RequestParam String format,
+
+            HttpServletRequest request) {
+
+        if (!"pdf".equalsIgnoreCase(format)) {
+            return Result.error("不支持的导出格式，当前仅支持pdf");
+        }
+
+        Long requesterId = (Long) request.getAttribute("userId");
+        Long targetUserId = userId != null ? userId : requesterId;
+        if (!reportExportService.canExport(requesterId, (String) request.getAttribute("role"), targetUserId)) {
+            log.warn("用户 {} 无权导出用户 {} 的报告", requesterId, targetUserId);
+            throw new BaseException(MessageConstant.REPORT_ACCESS_DENIED);
         }
+        log.info("用户 {} 提交报告导出任务，报告用户ID: {}", requesterId, targetUserId);
+
+        return Result.success(reportExportService.submitExport(targetUserId, requesterId));
+    }
+
+    /**
+     * 查询导出任务状态
+     */
+    @GetMapping("/export/jobs/{jobId}")
+    @Operation(summary = "查询报告导出任务", description = "任务状态：PENDING/RUNNING/COMPLETED/FAILED")
+    public Result<ReportExportJobVO> getExportJob(@PathVariable String jobId, HttpServletRequest request) {
+        Long requesterId = (Long) request.getAttribute("userId");
+        return Result.success(reportExportService.getJob(jobId, requesterId));
+    }
+
+    /**
+     * 下载导出任务生成的PDF
+     */
+    @GetMapping("/export/jobs/{jobId}/file")
+    @Operation(summary = "下载导出的报告PDF")
+    public ResponseEntity<Resource> downloadExportFile(@PathVariable String jobId, HttpServletRequest request) {
+        Long requesterId = (Long) request.getAttribute("userId");
+        ReportExportJobVO job = reportExportService.getJob(jobId, requesterId);
+        Path file = reportExportService.getJobFile(jobId, requesterId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment",
+                java.net.URLEncoder.encode(job.getFileName(), StandardCharsets.UTF_8));
+
+        return new ResponseEntity<>(new FileSystemResource(file), headers, HttpStatus.OK);
+    }
+
+    /**
+     * 以流式响应返回PDF：文件边生成边写入响应（分块传输），不在内存中缓存整个文件
+     * 报告数据已在请求线程中查询完成，响应开始写出后出错只能记录日志并中断连接
+     */
+    private ResponseEntity<StreamingResponseBody> pdfResponse(EmotionReportVO report, String fileName, String defaultFileName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        try {
+            String encodedFileName = java.net.URLEncoder.encode(fileName, "UTF-8");
+            headers.setContentDispositionFormData("attachment", encodedFileName);
+        } catch (Exception e) {
+            // 如果编码失败，使用默认文件名
+            headers.setContentDispositionFormData("attachment", defaultFileName);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                pdfExportUtil.writeEmotionReportPdf(report, outputStream);
+            } catch (DocumentException e) {
+                log.error("生成PDF报告失败", e);
+                throw new IOException("生成PDF报告失败", e);
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<StreamingResponseBody> errorResponse(HttpStatus status, String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status).body(outputStream -> outputStream.write(bytes));
     }
 
     /**
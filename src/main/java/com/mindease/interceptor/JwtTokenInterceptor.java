@@ -1,18 +1,16 @@
 package com.mindease.interceptor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindease.cache.UserStatusCache;
 import com.mindease.common.constant.JwtClaimsConstant;
 import com.mindease.common.constant.StatusConstant;
 import com.mindease.common.result.Result;
-import com.mindease.common.utils.JwtUtil;
-import com.mindease.mapper.UserMapper;
-import com.mindease.pojo.entity.User;
+import com.mindease.common.utils.JwtTokenProvider;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
@@ -28,11 +26,11 @@ import java.util.List;
 @Slf4j
 public class JwtTokenInterceptor implements HandlerInterceptor {
 
-    @Value("${mindease.jwt.secret-key}")
-    private String secretKey;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
 
     @Autowired
-    private UserMapper userMapper;
+    private UserStatusCache userStatusCache;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -68,15 +66,15 @@ public class JwtTokenInterceptor implements HandlerInterceptor {
         //2、校验令牌
         try {
             log.info("jwt校验:{}", token);
-            Claims claims = JwtUtil.parseJWT(secretKey, token);
+            Claims claims = jwtTokenProvider.parseToken(token);
             Long userId = Long.valueOf(claims.get(JwtClaimsConstant.USER_ID).toString());
             String role = claims.get(JwtClaimsConstant.ROLE).toString();
             log.info("当前用户id：{}，角色：{}", userId, role);
 
             //3、检查待审核咨询师的访问权限
             if ("COUNSELOR".equalsIgnoreCase(role)) {
-                User user = userMapper.getById(userId);
-                if (user != null && user.getStatus() == StatusConstant.PENDING) {
+                Integer status = userStatusCache.getStatus(userId);
+                if (StatusConstant.PENDING.equals(status)) {
                     // 待审核咨询师，检查是否访问允许的接口
                     String requestURI = request.getRequestURI();
                     if (!isAllowedForPendingCounselor(requestURI)) {
@@ -58,6 +58,18 @@ public interface AppointmentMapper {
                                  @Param("dayStart") LocalDateTime dayStart,
                                  @Param("dayEnd") LocalDateTime dayEnd);
 
+    /**
+     * 批量查询多个咨询师在指定时间范围内的有效预约
+     *
+     * @param counselorIds
+     * @param rangeStart
+     * @param rangeEnd
+     * @return
+     */
+    List<Appointment> getByCounselorIdsAndRange(@Param("counselorIds") List<Long> counselorIds,
+                                                @Param("rangeStart") LocalDateTime rangeStart,
+                                                @Param("rangeEnd") LocalDateTime rangeEnd);
+
     /**
      * 查询用户的预约列表
      *
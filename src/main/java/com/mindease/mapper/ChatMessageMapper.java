@@ -13,6 +13,11 @@ public interface ChatMessageMapper {
      * 插入新的消息
      */
     void insert(ChatMessage chatMessage);
+
+    /**
+     * 批量插入消息（多行 insert）
+     */
+    void insertBatch(@Param("messages") List<ChatMessage> messages);
     
     /**
      * 根据sessionId查询消息列表
@@ -3,6 +3,7 @@ package com.mindease.mapper;
 import com.mindease.pojo.entity.CounselorProfile;
 import org.apache.ibatis.annotations.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Mapper
@@ -36,6 +37,26 @@ public interface CounselorProfileMapper {
     List<CounselorProfile> recommendCounselors(@Param("keywords") List<String> keywords, 
                                                 @Param("sort") String sort);
 
+    /**
+     * 按字面关键词推荐咨询师：转义 LIKE / JSON_SEARCH 的通配符（% 与 _，默认转义符为反斜杠）后查询，
+     * 与 CounselorSearchIndex 的子串匹配一致
+     *
+     * @param keywords 关键词列表
+     * @param sort 排序方式
+     * @return
+     */
+    default List<CounselorProfile> recommendCounselorsByKeywords(List<String> keywords, String sort) {
+        if (keywords == null) {
+            return recommendCounselors(null, sort);
+        }
+        List<String> escaped = new ArrayList<>(keywords.size());
+        for (String keyword : keywords) {
+            escaped.add(keyword == null ? null
+                    : keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_"));
+        }
+        return recommendCounselors(escaped, sort);
+    }
+
     /**
      * 查询所有正常状态的咨询师
      *
@@ -43,6 +64,21 @@ public interface CounselorProfileMapper {
      */
     List<CounselorProfile> getAllActiveCounselors();
 
+    /**
+     * 查询全部正常状态的咨询师（不限条数，用于构建搜索索引）
+     *
+     * @return
+     */
+    List<CounselorProfile> getAllActiveProfiles();
+
+    /**
+     * 查询正常状态的咨询师资料，账号未启用时返回 null
+     *
+     * @param userId
+     * @return
+     */
+    CounselorProfile getActiveByUserId(@Param("userId") Long userId);
+
     /**
      * 插入咨询师资料
      *
@@ -62,10 +98,41 @@ public interface CounselorProfileMapper {
     @Update("update counselor_profile set real_name = #{realName}, title = #{title}, " +
             "experience_years = #{experienceYears}, specialty = #{specialty}, bio = #{bio}, " +
             "qualification_url = #{qualificationUrl}, location = #{location}, " +
-            "price_per_hour = #{pricePerHour}, rating = #{rating}, review_count = #{reviewCount} " +
+            "price_per_hour = #{pricePerHour} " +
             "where user_id = #{userId}")
     void update(CounselorProfile profile);
 
+    /**
+     * 新增一条评价后累加评分总和与评价数，并据此计算综合评分
+     * 单条语句在行锁下完成，并发提交评价不会丢失更新；
+     * MySQL 按书写顺序执行赋值，计算 rating 时使用的是已累加后的 rating_sum 与 review_count。
+     * 已有评价但评分总和为0说明该行未回填 rating_sum（升级前的数据），此时不累加，由调用方改用 {@link #recomputeRating(Long)}
+     *
+     * @param counselorId
+     * @param rating 本次评分
+     * @return 更新行数，咨询师资料不存在或评分总和未回填时为0
+     */
+    @Update("update counselor_profile set rating_sum = coalesce(rating_sum, 0) + #{rating}, " +
+            "review_count = coalesce(review_count, 0) + 1, " +
+            "rating = round(rating_sum / review_count, 1) " +
+            "where user_id = #{counselorId} " +
+            "and not (coalesce(rating_sum, 0) = 0 and coalesce(review_count, 0) > 0)")
+    int addReviewRating(@Param("counselorId") Long counselorId, @Param("rating") Integer rating);
+
+    /**
+     * 按该咨询师的全部评价重新计算评分总和、评价数与综合评分（用于回填未初始化的 rating_sum）
+     *
+     * @param counselorId
+     * @return 更新行数，咨询师资料不存在时为0
+     */
+    @Update("update counselor_profile cp " +
+            "join (select count(*) as cnt, coalesce(sum(rating), 0) as total from counselor_review " +
+            "where counselor_id = #{counselorId}) r " +
+            "set cp.rating_sum = r.total, cp.review_count = r.cnt, " +
+            "cp.rating = if(r.cnt = 0, cp.rating, round(r.total / r.cnt, 1)) " +
+            "where cp.user_id = #{counselorId}")
+    int recomputeRating(@Param("counselorId") Long counselorId);
+
     /**
      * 根据咨询师ID列表批量查询咨询师资料（协同过滤用）
      *
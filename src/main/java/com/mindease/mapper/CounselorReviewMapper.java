@@ -31,24 +31,6 @@ public interface CounselorReviewMapper {
                                             @Param("limit") Integer limit,
                                             @Param("offset") Integer offset);
 
-    /**
-     * 查询咨询师的评价总数
-     *
-     * @param counselorId
-     * @return
-     */
-    @Select("select count(*) from counselor_review where counselor_id = #{counselorId}")
-    int countByCounselorId(Long counselorId);
-
-    /**
-     * 查询咨询师的平均评分
-     *
-     * @param counselorId
-     * @return
-     */
-    @Select("select avg(rating) from counselor_review where counselor_id = #{counselorId}")
-    Double getAvgRatingByCounselorId(Long counselorId);
-
     /**
      * 根据预约ID查询评价数量（用于检查是否已评价）
      *
@@ -57,14 +39,5 @@ public interface CounselorReviewMapper {
      */
     @Select("select count(*) from counselor_review where appointment_id = #{appointmentId}")
     int countByAppointmentId(Long appointmentId);
-
-    /**
-     * 查询咨询师的所有评价（用于计算评分）
-     *
-     * @param counselorId
-     * @return
-     */
-    @Select("select * from counselor_review where counselor_id = #{counselorId}")
-    List<CounselorReview> listByCounselorId(Long counselorId);
 }
 
@@ -0,0 +1,38 @@
+package com.mindease.mapper;
+
+import lombok.Data;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+@Mapper
+public interface CounselorReviewTagMapper {
+
+    /**
+     * 累加咨询师某个标签的评价数，不存在时插入
+     *
+     * @param counselorId
+     * @param tag
+     */
+    @Insert("insert into counselor_review_tag(counselor_id, tag, tag_count) values(#{counselorId}, #{tag}, 1) " +
+            "on duplicate key update tag_count = tag_count + 1")
+    void increment(@Param("counselorId") Long counselorId, @Param("tag") String tag);
+
+    /**
+     * 查询咨询师的标签统计
+     *
+     * @param counselorId
+     * @return
+     */
+    @Select("select tag, tag_count from counselor_review_tag where counselor_id = #{counselorId} and tag_count > 0")
+    List<TagCount> getByCounselorId(@Param("counselorId") Long counselorId);
+
+    /**
+     * 标签统计结果类
+     */
+    @Data
+    static class TagCount {
+        private String tag;
+        private Integer tagCount;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mindease.mapper;
+
+import com.mindease.pojo.entity.MoodDailyStat;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface MoodDailyStatMapper {
+
+    /**
+     * 新增一条日记后累加日统计，不存在时插入
+     *
+     * @param userId
+     * @param statDate
+     * @param moodType
+     * @param score
+     * @param positive 是否积极情绪（1/0）
+     */
+    @Insert("insert into mood_daily_stat(user_id, stat_date, mood_type, log_count, score_sum, positive_count) " +
+            "values(#{userId}, #{statDate}, #{moodType}, 1, #{score}, #{positive}) " +
+            "on duplicate key update log_count = log_count + 1, score_sum = score_sum + #{score}, " +
+            "positive_count = positive_count + #{positive}")
+    void increment(@Param("userId") Long userId, @Param("statDate") LocalDate statDate, @Param("moodType") String moodType,
+                   @Param("score") Integer score, @Param("positive") Integer positive);
+
+    /**
+     * 删除一条日记后扣减日统计
+     *
+     * @param userId
+     * @param statDate
+     * @param moodType
+     * @param score
+     * @param positive 是否积极情绪（1/0）
+     */
+    @Update("update mood_daily_stat set log_count = log_count - 1, score_sum = score_sum - #{score}, " +
+            "positive_count = positive_count - #{positive} " +
+            "where user_id = #{userId} and stat_date = #{statDate} and mood_type = #{moodType}")
+    void decrement(@Param("userId") Long userId, @Param("statDate") LocalDate statDate, @Param("moodType") String moodType,
+                   @Param("score") Integer score, @Param("positive") Integer positive);
+
+    /**
+     * 清理已经没有日记的统计行
+     *
+     * @param userId
+     * @param statDate
+     */
+    @Delete("delete from mood_daily_stat where user_id = #{userId} and stat_date = #{statDate} and log_count <= 0")
+    void deleteEmpty(@Param("userId") Long userId, @Param("statDate") LocalDate statDate);
+
+    /**
+     * 按日期汇总用户的日统计（按日期升序），日期范围为空时不限制
+     *
+     * @param userId
+     * @param startDate
+     * @param endDate
+     * @return
+     */
+    List<MoodDailyStat> getDailyStats(@Param("userId") Long userId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+}
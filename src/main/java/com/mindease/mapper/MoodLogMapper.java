@@ -1,8 +1,11 @@
 package com.mindease.mapper;
 
+import com.mindease.common.utils.LazyEncryptedString;
 import com.mindease.pojo.entity.MoodLog;
 import lombok.Data;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,6 +29,34 @@ public interface MoodLogMapper {
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(MoodLog moodLog);
 
+    /**
+     * 回写AI情绪分析结果，只写入尚未分析的日记（补偿扫描重复提交时保留先完成的结果）
+     * 注意：ai_analysis 字段会自动加密
+     *
+     * @param id
+     * @param aiAnalysis
+     * @return
+     */
+    @Update("update mood_log set ai_analysis = " +
+            "#{aiAnalysis, typeHandler=com.mindease.common.handler.EncryptedStringTypeHandler} " +
+            "where id = #{id} and ai_analysis is null")
+    int updateAiAnalysis(@Param("id") Long id, @Param("aiAnalysis") String aiAnalysis);
+
+    /**
+     * 查询指定时间段内创建、仍未完成AI分析的情绪日志（用于补偿提交分析任务），走 idx_create_time 索引
+     *
+     * @param createdAfter
+     * @param createdBefore
+     * @param limit
+     * @return
+     */
+    @Select("select * from mood_log where create_time >= #{createdAfter} and create_time < #{createdBefore} " +
+            "and ai_analysis is null order by create_time, id limit #{limit}")
+    @ResultMap("MoodLogEncryptedResultMap")
+    List<MoodLog> listPendingAnalysis(@Param("createdAfter") LocalDateTime createdAfter,
+                                      @Param("createdBefore") LocalDateTime createdBefore,
+                                      @Param("limit") int limit);
+
     /**
      * 查询用户最近的情绪日志
      *
@@ -37,6 +68,18 @@ public interface MoodLogMapper {
     @ResultMap("MoodLogEncryptedResultMap")
     List<MoodLog> getRecentMoodLogs(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate);
 
+    /**
+     * 查询用户最近的情绪评分（不含加密字段，用于统计）
+     *
+     * @param userId
+     * @param startDate
+     * @return
+     */
+    @Select("select id, user_id, mood_type, mood_score, log_date, create_time from mood_log " +
+            "where user_id = #{userId} and log_date >= #{startDate} order by log_date desc")
+    @ResultMap("MoodLogScoreResultMap")
+    List<MoodLog> getRecentMoodScores(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate);
+
     /**
      * 检查用户是否有情绪日志
      *
@@ -56,6 +99,16 @@ public interface MoodLogMapper {
     @ResultMap("MoodLogEncryptedResultMap")
     MoodLog getById(Long id);
 
+    /**
+     * 根据ID查询情绪评分（不含加密字段，用于维护日统计）
+     *
+     * @param id
+     * @return
+     */
+    @Select("select id, user_id, mood_type, mood_score, log_date, create_time from mood_log where id = #{id}")
+    @ResultMap("MoodLogScoreResultMap")
+    MoodLog getScoreById(Long id);
+
     /**
      * 分页查询用户情绪日志
      *
@@ -77,6 +130,15 @@ public interface MoodLogMapper {
     @Select("select count(*) from mood_log where user_id = #{userId}")
     Long countByUserIdWithTotal(@Param("userId") Long userId);
 
+    /**
+     * 用户情绪日志的数据版本（条数-最大ID），新增或删除日志后变化，用于报告导出缓存
+     *
+     * @param userId
+     * @return
+     */
+    @Select("select concat(count(*), '-', coalesce(max(id), 0)) from mood_log where user_id = #{userId}")
+    String getDataVersion(@Param("userId") Long userId);
+
     /**
      * 删除情绪日志
      *
@@ -98,6 +160,47 @@ public interface MoodLogMapper {
     @ResultMap("MoodLogEncryptedResultMap")
     List<MoodLog> getByUserIdAndDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    /**
+     * 查询用户指定时间范围内的情绪评分（不含加密字段，用于趋势统计）
+     *
+     * @param userId
+     * @param startDate
+     * @param endDate
+     * @return
+     */
+    @Select("select id, user_id, mood_type, mood_score, log_date, create_time from mood_log " +
+            "where user_id = #{userId} and log_date between #{startDate} and #{endDate} order by log_date asc")
+    @ResultMap("MoodLogScoreResultMap")
+    List<MoodLog> getScoresByUserIdAndDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * 流式读取用户指定时间范围内的情绪摘要（日记内容延迟解密，用于报告）
+     * 结果逐行交给 handler 处理，不在内存中保留整个结果集
+     *
+     * @param userId
+     * @param startDate
+     * @param endDate
+     * @param handler
+     */
+    @Select("select id, mood_type, mood_score, content, log_date from mood_log " +
+            "where user_id = #{userId} and log_date between #{startDate} and #{endDate} order by log_date asc")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultMap("MoodLogDigestResultMap")
+    void streamDigestsByUserIdAndDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate,
+                                           @Param("endDate") LocalDateTime endDate, ResultHandler<MoodLogDigest> handler);
+
+    /**
+     * 查询用户最近的情绪摘要（日记内容延迟解密，用于报告）
+     *
+     * @param userId
+     * @param limit
+     * @return
+     */
+    @Select("select id, mood_type, mood_score, content, log_date from mood_log " +
+            "where user_id = #{userId} order by log_date desc limit #{limit}")
+    @ResultMap("MoodLogDigestResultMap")
+    List<MoodLogDigest> getDigestsByUserId(@Param("userId") Long userId, @Param("limit") Integer limit);
+
     /**
      * 计算用户情绪平均分
      *
@@ -123,4 +226,16 @@ public interface MoodLogMapper {
         private String moodType;
         private Long count;
     }
-}
\ No newline at end of file
+
+    /**
+     * 情绪日志摘要（报告使用的投影，日记内容延迟解密）
+     */
+    @Data
+    static class MoodLogDigest {
+        private Long id;
+        private String moodType;
+        private Integer moodScore;
+        private LazyEncryptedString content;
+        private LocalDateTime logDate;
+    }
+}
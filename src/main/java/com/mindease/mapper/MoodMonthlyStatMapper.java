@@ -0,0 +1,62 @@
+package com.mindease.mapper;
+
+import com.mindease.pojo.entity.MoodMonthlyStat;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface MoodMonthlyStatMapper {
+
+    /**
+     * 新增一条日记后累加月统计，不存在时插入
+     *
+     * @param userId
+     * @param statMonth 当月1日
+     * @param moodType
+     * @param score
+     * @param positive 是否积极情绪（1/0）
+     */
+    @Insert("insert into mood_monthly_stat(user_id, stat_month, mood_type, log_count, score_sum, positive_count) " +
+            "values(#{userId}, #{statMonth}, #{moodType}, 1, #{score}, #{positive}) " +
+            "on duplicate key update log_count = log_count + 1, score_sum = score_sum + #{score}, " +
+            "positive_count = positive_count + #{positive}")
+    void increment(@Param("userId") Long userId, @Param("statMonth") LocalDate statMonth, @Param("moodType") String moodType,
+                   @Param("score") Integer score, @Param("positive") Integer positive);
+
+    /**
+     * 删除一条日记后扣减月统计
+     *
+     * @param userId
+     * @param statMonth 当月1日
+     * @param moodType
+     * @param score
+     * @param positive 是否积极情绪（1/0）
+     */
+    @Update("update mood_monthly_stat set log_count = log_count - 1, score_sum = score_sum - #{score}, " +
+            "positive_count = positive_count - #{positive} " +
+            "where user_id = #{userId} and stat_month = #{statMonth} and mood_type = #{moodType}")
+    void decrement(@Param("userId") Long userId, @Param("statMonth") LocalDate statMonth, @Param("moodType") String moodType,
+                   @Param("score") Integer score, @Param("positive") Integer positive);
+
+    /**
+     * 清理已经没有日记的统计行
+     *
+     * @param userId
+     * @param statMonth 当月1日
+     */
+    @Delete("delete from mood_monthly_stat where user_id = #{userId} and stat_month = #{statMonth} and log_count <= 0")
+    void deleteEmpty(@Param("userId") Long userId, @Param("statMonth") LocalDate statMonth);
+
+    /**
+     * 按情绪类型汇总用户的全部月统计
+     *
+     * @param userId
+     * @return
+     */
+    @Select("select user_id, mood_type, sum(log_count) as log_count, sum(score_sum) as score_sum, " +
+            "sum(positive_count) as positive_count from mood_monthly_stat where user_id = #{userId} " +
+            "group by user_id, mood_type having sum(log_count) > 0")
+    List<MoodMonthlyStat> getTypeStats(@Param("userId") Long userId);
+}
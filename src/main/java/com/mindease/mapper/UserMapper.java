@@ -4,9 +4,12 @@ import com.mindease.pojo.entity.User;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+
 @Mapper
 public interface UserMapper {
 
@@ -38,6 +41,14 @@ public interface UserMapper {
     @Select("select * from sys_user where id = #{id}")
     User getById(Long id);
 
+    /**
+     * 根据ID列表批量查询用户
+     *
+     * @param ids 用户ID列表
+     * @return 用户列表
+     */
+    List<User> getByIds(@Param("ids") List<Long> ids);
+
     /**
      * 更新用户基本信息（昵称、头像）
      *
@@ -48,9 +59,21 @@ public interface UserMapper {
 
     /**
      * 更新用户状态
+     * 调用后需通过 UserStatusCache.onStatusChanged 同步状态缓存
      *
      * @param user 用户（需要包含id、status、updateTime）
      */
     @Update("update sys_user set status = #{status}, update_time = #{updateTime} where id = #{id}")
     void updateStatus(User user);
+
+    /**
+     * 更新用户密码哈希
+     *
+     * @param id          用户ID
+     * @param password    新的密码哈希
+     * @param oldPassword 原密码哈希，不一致时不更新（防止覆盖并发修改）
+     * @return 影响行数
+     */
+    @Update("update sys_user set password = #{password} where id = #{id} and password = #{oldPassword}")
+    int updatePassword(@Param("id") Long id, @Param("password") String password, @Param("oldPassword") String oldPassword);
 }
@@ -0,0 +1,34 @@
+package com.mindease.pojo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 情绪日统计（按用户、日期、情绪类型汇总）
+ * 按日期或情绪类型聚合查询时，未参与分组的字段为 null
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodDailyStat implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long userId;
+
+    private LocalDate statDate;
+
+    private String moodType;
+
+    private Integer logCount;
+
+    private Integer scoreSum;
+
+    private Integer positiveCount;
+}
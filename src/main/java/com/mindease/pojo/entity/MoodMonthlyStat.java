@@ -0,0 +1,34 @@
+package com.mindease.pojo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 情绪月统计（按用户、月份、情绪类型汇总）
+ * 月份以当月1日表示；按情绪类型聚合查询时，statMonth 为 null
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodMonthlyStat implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long userId;
+
+    private LocalDate statMonth;
+
+    private String moodType;
+
+    private Integer logCount;
+
+    private Integer scoreSum;
+
+    private Integer positiveCount;
+}
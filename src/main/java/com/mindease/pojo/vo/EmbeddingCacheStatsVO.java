@@ -0,0 +1,19 @@
+package com.mindease.pojo.vo;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class EmbeddingCacheStatsVO {
+
+    private Long localHits;
+
+    private Long redisHits;
+
+    private Long misses;
+
+    private Integer localSize;
+
+    private Double hitRatio;
+}
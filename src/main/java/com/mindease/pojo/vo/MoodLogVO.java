@@ -8,4 +8,7 @@ public class MoodLogVO {
     private Long logId;
     
     private String aiAnalysis;
-}
\ No newline at end of file
+
+    // AI分析状态：PENDING 分析中，COMPLETED 已完成
+    private String analysisStatus;
+}
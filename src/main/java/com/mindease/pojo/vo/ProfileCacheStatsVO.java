@@ -0,0 +1,17 @@
+package com.mindease.pojo.vo;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class ProfileCacheStatsVO {
+
+    private Long hits;
+
+    private Long misses;
+
+    private Integer size;
+
+    private Double hitRatio;
+}
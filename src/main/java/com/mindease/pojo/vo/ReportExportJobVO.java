@@ -0,0 +1,32 @@
+package com.mindease.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportExportJobVO {
+
+    // 任务ID
+    private String jobId;
+
+    // 报告所属用户ID
+    private Long userId;
+
+    // 任务状态：PENDING/RUNNING/COMPLETED/FAILED
+    private String status;
+
+    // 下载文件名（完成后才有）
+    private String fileName;
+
+    // 失败原因
+    private String message;
+
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,23 @@
+package com.mindease.pojo.vo;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+public class SensitiveWordDictionaryVO {
+
+    private Long version;
+
+    private String checksum;
+
+    private String source;
+
+    private Integer wordCount;
+
+    private Long compileMillis;
+
+    private LocalDateTime loadedAt;
+}
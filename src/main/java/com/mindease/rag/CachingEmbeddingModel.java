@@ -0,0 +1,213 @@
+package com.mindease.rag;
+
+import com.mindease.pojo.vo.EmbeddingCacheStatsVO;
+import dev.langchain4j.community.model.dashscope.QwenEmbeddingModel;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带缓存的向量模型
+ * 以规范化文本的哈希为键，先查进程内 LRU，再查 Redis，均未命中才调用远程向量模型。
+ * Redis 读取使用 MGET、写入使用管道，每批文本各只有一次往返。
+ * 检索时的用户问题（如常见的开场白）和导入时的重复分段都会命中缓存。
+ */
+@Component
+@Primary
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final String REDIS_KEY_PREFIX = "mindease:embedding:";
+
+    @Autowired
+    private QwenEmbeddingModel delegate;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${langchain4j.community.dashscope.embedding-model.model-name:default}")
+    private String modelName;
+
+    @Value("${mindease.embedding-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${mindease.embedding-cache.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${mindease.embedding-cache.redis-ttl-days:30}")
+    private long redisTtlDays;
+
+    private final AtomicLong localHits = new AtomicLong();
+
+    private final AtomicLong redisHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    // 进程内 LRU 缓存
+    private Map<String, float[]> localCache;
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(1, maxSize);
+        localCache = Collections.synchronizedMap(new LinkedHashMap<String, float[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        int size = textSegments.size();
+        Embedding[] results = new Embedding[size];
+        String[] keys = new String[size];
+
+        // 1. 进程内缓存
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = cacheKey(textSegments.get(i).text());
+            float[] vector = localCache.get(keys[i]);
+            if (vector != null) {
+                // 复制一份，避免调用方修改缓存中的向量
+                results[i] = Embedding.from(vector.clone());
+                localHits.incrementAndGet();
+            } else {
+                pending.add(i);
+            }
+        }
+
+        // 2. Redis 缓存
+        if (redisEnabled && !pending.isEmpty()) {
+            try {
+                List<String> redisKeys = new ArrayList<>(pending.size());
+                for (Integer i : pending) {
+                    redisKeys.add(REDIS_KEY_PREFIX + keys[i]);
+                }
+                List<String> values = redisTemplate.opsForValue().multiGet(redisKeys);
+                List<Integer> stillPending = new ArrayList<>();
+                for (int p = 0; p < pending.size(); p++) {
+                    int i = pending.get(p);
+                    String value = values != null ? values.get(p) : null;
+                    if (value != null) {
+                        float[] vector = decode(value);
+                        localCache.put(keys[i], vector);
+                        results[i] = Embedding.from(vector.clone());
+                        redisHits.incrementAndGet();
+                    } else {
+                        stillPending.add(i);
+                    }
+                }
+                pending = stillPending;
+            } catch (Exception e) {
+                log.warn("读取向量缓存失败，直接调用向量模型: {}", e.getMessage());
+            }
+        }
+
+        // 3. 调用远程向量模型
+        if (!pending.isEmpty()) {
+            misses.addAndGet(pending.size());
+            List<TextSegment> missing = new ArrayList<>(pending.size());
+            for (Integer i : pending) {
+                missing.add(textSegments.get(i));
+            }
+            List<Embedding> embedded = delegate.embedAll(missing).content();
+            Map<String, String> toRedis = new HashMap<>();
+            for (int p = 0; p < pending.size(); p++) {
+                int i = pending.get(p);
+                Embedding embedding = embedded.get(p);
+                results[i] = embedding;
+                localCache.put(keys[i], embedding.vector().clone());
+                toRedis.put(REDIS_KEY_PREFIX + keys[i], encode(embedding.vector()));
+            }
+            if (redisEnabled) {
+                writeToRedis(toRedis);
+            }
+        }
+
+        return Response.from(Arrays.asList(results));
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    public EmbeddingCacheStatsVO getStats() {
+        long local = localHits.get();
+        long redis = redisHits.get();
+        long miss = misses.get();
+        long total = local + redis + miss;
+        return EmbeddingCacheStatsVO.builder()
+                .localHits(local)
+                .redisHits(redis)
+                .misses(miss)
+                .localSize(localCache.size())
+                .hitRatio(total == 0 ? 0 : (double) (local + redis) / total)
+                .build();
+    }
+
+    /**
+     * 管道批量写入，一批向量只需一次往返
+     */
+    private void writeToRedis(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            long ttlSeconds = Duration.ofDays(redisTtlDays).getSeconds();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (Map.Entry<String, String> entry : entries.entrySet()) {
+                    stringConnection.setEx(entry.getKey(), ttlSeconds, entry.getValue());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("写入向量缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 规范化文本（全半角统一、去首尾空白、合并连续空白）后取哈希
+     */
+    private String cacheKey(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).trim().replaceAll("\\s+", " ");
+        return modelName + ":" + DigestUtils.md5DigestAsHex(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static float[] decode(String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] vector = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+}
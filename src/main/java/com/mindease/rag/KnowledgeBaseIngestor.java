@@ -0,0 +1,205 @@
+package com.mindease.rag;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.loader.ClassPathDocumentLoader;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 知识库增量导入
+ * 在 Redis 中维护文档与分段的内容哈希清单，启动后在后台线程中只对新增或变化的分段做向量化，
+ * 并删除已经不存在的分段，避免每次重启重复调用向量模型、重复写入向量。
+ */
+@Component
+@Slf4j
+public class KnowledgeBaseIngestor {
+
+    private static final String MANIFEST_KEY_PREFIX = "mindease:rag:manifest:";
+
+    private static final String CHUNK_KEY_SEPARATOR = "#";
+
+    private static final String CONTENT_DIRECTORY = "content";
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Autowired
+    private EmbeddingStore<TextSegment> store;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    // 清单按向量库类型区分，切换向量库后各自独立导入
+    @Value("${mindease.rag.store:redis}")
+    private String storeType;
+
+    private volatile boolean ready = false;
+
+    /**
+     * 应用就绪后在后台执行导入，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ingestOnStartup() {
+        Thread thread = new Thread(() -> {
+            try {
+                ingest();
+            } catch (Exception e) {
+                log.error("知识库导入失败", e);
+            }
+        }, "knowledge-base-ingest");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 知识库是否已完成导入
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 增量导入 content 目录下的文档
+     */
+    public synchronized void ingest() {
+        long start = System.currentTimeMillis();
+        List<Document> documents = ClassPathDocumentLoader.loadDocuments(CONTENT_DIRECTORY);
+        DocumentSplitter splitter = DocumentSplitters.recursive(500, 100);
+
+        // 本地向量库快照丢失时清单已失效，需要全量导入
+        if (store instanceof LocalEmbeddingStore localStore && localStore.size() == 0) {
+            redisTemplate.delete(Arrays.asList(documentManifestKey(), chunkManifestKey()));
+        }
+
+        Map<Object, Object> documentManifest = redisTemplate.opsForHash().entries(documentManifestKey());
+        Map<Object, Object> chunkManifest = redisTemplate.opsForHash().entries(chunkManifestKey());
+
+        Set<String> currentDocuments = new HashSet<>();
+        int embedded = 0;
+        int removed = 0;
+
+        for (Document document : documents) {
+            String documentName = documentName(document);
+            currentDocuments.add(documentName);
+            String documentHash = hash(document.text());
+            if (documentHash.equals(documentManifest.get(documentName))) {
+                log.info("知识库文档未变化，跳过：{}", documentName);
+                continue;
+            }
+
+            // 计算该文档的全部分段
+            Map<String, TextSegment> segments = new LinkedHashMap<>();
+            for (TextSegment segment : splitter.split(document)) {
+                segments.putIfAbsent(chunkKey(documentName, hash(segment.text())), segment);
+            }
+
+            // 只向量化新增的分段
+            List<String> newKeys = new ArrayList<>();
+            List<TextSegment> newSegments = new ArrayList<>();
+            for (Map.Entry<String, TextSegment> entry : segments.entrySet()) {
+                if (!chunkManifest.containsKey(entry.getKey())) {
+                    newKeys.add(entry.getKey());
+                    newSegments.add(entry.getValue());
+                }
+            }
+            if (!newSegments.isEmpty()) {
+                List<Embedding> embeddings = embeddingModel.embedAll(newSegments).content();
+                List<String> ids = new ArrayList<>(newSegments.size());
+                for (int i = 0; i < newSegments.size(); i++) {
+                    ids.add(UUID.randomUUID().toString());
+                }
+                store.addAll(ids, embeddings, newSegments);
+                Map<String, String> added = new HashMap<>();
+                for (int i = 0; i < newKeys.size(); i++) {
+                    added.put(newKeys.get(i), ids.get(i));
+                }
+                redisTemplate.opsForHash().putAll(chunkManifestKey(), added);
+                embedded += newSegments.size();
+            }
+
+            // 删除该文档中已不存在的分段
+            removed += removeChunks(chunkManifest, key -> key.startsWith(documentName + CHUNK_KEY_SEPARATOR)
+                    && !segments.containsKey(key));
+
+            redisTemplate.opsForHash().put(documentManifestKey(), documentName, documentHash);
+        }
+
+        // 删除已被移除的文档
+        for (Object name : documentManifest.keySet()) {
+            String documentName = name.toString();
+            if (!currentDocuments.contains(documentName)) {
+                removed += removeChunks(chunkManifest, key -> key.startsWith(documentName + CHUNK_KEY_SEPARATOR));
+                redisTemplate.opsForHash().delete(documentManifestKey(), documentName);
+            }
+        }
+
+        // 本地向量库在导入过程中只合并记录变更，导入结束后统一写一次快照
+        if (store instanceof LocalEmbeddingStore localStore) {
+            localStore.flushSnapshot();
+        }
+
+        ready = true;
+        log.info("知识库导入完成，文档数:{}，新增分段:{}，删除分段:{}，耗时:{}ms",
+                documents.size(), embedded, removed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 删除清单中满足条件的分段及其向量
+     */
+    private int removeChunks(Map<Object, Object> chunkManifest, Predicate<String> condition) {
+        List<String> staleKeys = new ArrayList<>();
+        List<String> staleIds = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : chunkManifest.entrySet()) {
+            String key = entry.getKey().toString();
+            if (condition.test(key)) {
+                staleKeys.add(key);
+                staleIds.add(entry.getValue().toString());
+            }
+        }
+        if (staleKeys.isEmpty()) {
+            return 0;
+        }
+        store.removeAll(staleIds);
+        redisTemplate.opsForHash().delete(chunkManifestKey(), staleKeys.toArray());
+        return staleKeys.size();
+    }
+
+    // 文档名 -> 文档内容哈希
+    private String documentManifestKey() {
+        return MANIFEST_KEY_PREFIX + storeType.toLowerCase() + ":documents";
+    }
+
+    // 文档名 + 分段内容哈希 -> 向量ID
+    private String chunkManifestKey() {
+        return MANIFEST_KEY_PREFIX + storeType.toLowerCase() + ":chunks";
+    }
+
+    private String documentName(Document document) {
+        String fileName = document.metadata().getString(Document.FILE_NAME);
+        return fileName != null ? fileName : hash(document.text());
+    }
+
+    private String chunkKey(String documentName, String chunkHash) {
+        return documentName + CHUNK_KEY_SEPARATOR + chunkHash;
+    }
+
+    private String hash(String text) {
+        return DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
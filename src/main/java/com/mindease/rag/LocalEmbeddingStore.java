@@ -0,0 +1,463 @@
+package com.mindease.rag;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 进程内向量库
+ * 知识库规模较小，向量全部归一化后按行存放在一块连续的 float 数组中，检索时对整块数组做精确的点积扫描，
+ * 省去每次检索访问 Redis 的网络往返。
+ * 数据变更后不立即写快照，而是合并到延迟任务中统一写入（导入结束时也会主动写一次），
+ * 批量导入时不会每次增删都重写整个文件；关闭时写入尚未落盘的变更。
+ * 重启时映射快照文件并一次性批量复制到向量矩阵。
+ */
+@Slf4j
+public class LocalEmbeddingStore implements EmbeddingStore<TextSegment>, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x4D454B42;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // 变更后延迟写快照的时间，期间的变更合并为一次写入
+    private static final long SNAPSHOT_DELAY_MILLIS = 2000;
+
+    private final Path snapshotPath;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 向量维度，首次写入时确定
+    private int dimension;
+
+    // 行优先的归一化向量矩阵：vectors[row * dimension + i]
+    private float[] vectors = new float[0];
+
+    private int size;
+
+    private final List<String> ids = new ArrayList<>();
+
+    private final List<TextSegment> segments = new ArrayList<>();
+
+    private final Map<String, Integer> rowById = new HashMap<>();
+
+    // 是否有尚未写入快照的变更，只在持有写锁时置位
+    private volatile boolean dirty;
+
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean(false);
+
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "local-embedding-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LocalEmbeddingStore(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+        loadSnapshot();
+    }
+
+    /**
+     * 当前向量数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(Collections.singletonList(id), Collections.singletonList(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(Collections.singletonList(id), Collections.singletonList(embedding), Collections.singletonList(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return addAll(embeddings, null);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> embedded) {
+        List<String> newIds = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            newIds.add(UUID.randomUUID().toString());
+        }
+        addAll(newIds, embeddings, embedded);
+        return newIds;
+    }
+
+    @Override
+    public void addAll(List<String> newIds, List<Embedding> embeddings, List<TextSegment> embedded) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (size == 0) {
+                dimension = embeddings.get(0).dimension();
+            }
+            ensureCapacity(size + embeddings.size());
+            for (int i = 0; i < embeddings.size(); i++) {
+                float[] vector = embeddings.get(i).vector();
+                if (vector.length != dimension) {
+                    throw new IllegalArgumentException("向量维度不一致，期望 " + dimension + "，实际 " + vector.length);
+                }
+                String id = newIds.get(i);
+                TextSegment segment = embedded != null ? embedded.get(i) : null;
+                Integer existing = rowById.get(id);
+                int row = existing != null ? existing : size++;
+                writeNormalized(vector, row);
+                if (existing != null) {
+                    segments.set(row, segment);
+                } else {
+                    ids.add(id);
+                    segments.add(segment);
+                    rowById.put(id, row);
+                }
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleSnapshot();
+    }
+
+    @Override
+    public void removeAll(Collection<String> idsToRemove) {
+        lock.writeLock().lock();
+        try {
+            boolean changed = false;
+            for (String id : idsToRemove) {
+                Integer row = rowById.remove(id);
+                if (row == null) {
+                    continue;
+                }
+                // 用最后一行填补空位，保持矩阵连续
+                int last = size - 1;
+                if (row != last) {
+                    System.arraycopy(vectors, last * dimension, vectors, row * dimension, dimension);
+                    ids.set(row, ids.get(last));
+                    segments.set(row, segments.get(last));
+                    rowById.put(ids.get(row), row);
+                }
+                ids.remove(last);
+                segments.remove(last);
+                size--;
+                changed = true;
+            }
+            if (changed) {
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleSnapshot();
+    }
+
+    @Override
+    public void removeAll() {
+        lock.writeLock().lock();
+        try {
+            vectors = new float[0];
+            size = 0;
+            ids.clear();
+            segments.clear();
+            rowById.clear();
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleSnapshot();
+    }
+
+    /**
+     * 立即把尚未落盘的变更写入快照（如一次导入结束后）
+     */
+    public synchronized void flushSnapshot() {
+        snapshotScheduled.set(false);
+        if (snapshotPath == null || !dirty) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            dirty = false;
+            saveSnapshot();
+        } catch (RuntimeException e) {
+            dirty = true;
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 停止延迟写入线程，并写入尚未落盘的变更
+     */
+    @Override
+    public void close() {
+        snapshotExecutor.shutdownNow();
+        flushSnapshot();
+    }
+
+    private void scheduleSnapshot() {
+        if (snapshotPath == null || !dirty || !snapshotScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            snapshotExecutor.schedule(() -> {
+                try {
+                    flushSnapshot();
+                } catch (Exception e) {
+                    log.error("写入向量快照失败，下次变更时重试：{}", snapshotPath, e);
+                }
+            }, SNAPSHOT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，close 中会写入
+            snapshotScheduled.set(false);
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        float[] query = normalize(request.queryEmbedding().vector());
+        int maxResults = request.maxResults();
+        double minScore = request.minScore();
+
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return new EmbeddingSearchResult<>(new ArrayList<>());
+            }
+
+            // 小顶堆保留得分最高的 maxResults 条
+            PriorityQueue<double[]> heap = new PriorityQueue<>(Comparator.comparingDouble(a -> a[0]));
+            for (int row = 0; row < size; row++) {
+                double score = RelevanceScore.fromCosineSimilarity(dot(query, vectors, row * dimension, dimension));
+                if (score < minScore) {
+                    continue;
+                }
+                if (heap.size() < maxResults) {
+                    heap.add(new double[]{score, row});
+                } else if (score > heap.peek()[0]) {
+                    heap.poll();
+                    heap.add(new double[]{score, row});
+                }
+            }
+
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                double[] top = heap.poll();
+                int row = (int) top[1];
+                float[] vector = Arrays.copyOfRange(vectors, row * dimension, (row + 1) * dimension);
+                matches.add(new EmbeddingMatch<>(top[0], ids.get(row), Embedding.from(vector), segments.get(row)));
+            }
+            Collections.reverse(matches);
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 点积，4 路展开便于 JIT 自动向量化
+     */
+    static float dot(float[] query, float[] matrix, int offset, int dimension) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = dimension & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * matrix[offset + i];
+            s1 += query[i + 1] * matrix[offset + i + 1];
+            s2 += query[i + 2] * matrix[offset + i + 2];
+            s3 += query[i + 3] * matrix[offset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += query[i] * matrix[offset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] result = new float[vector.length];
+        if (norm == 0) {
+            return result;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) (vector[i] / norm);
+        }
+        return result;
+    }
+
+    private void writeNormalized(float[] vector, int row) {
+        System.arraycopy(normalize(vector), 0, vectors, row * dimension, dimension);
+    }
+
+    private void ensureCapacity(int rows) {
+        int required = rows * dimension;
+        if (vectors.length < required) {
+            vectors = Arrays.copyOf(vectors, Math.max(required, vectors.length * 2));
+        }
+    }
+
+    /**
+     * 写入快照：先写临时文件再原子替换
+     */
+    private void saveSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            List<byte[]> records = new ArrayList<>(size * 3);
+            int recordBytes = 0;
+            for (int row = 0; row < size; row++) {
+                TextSegment segment = segments.get(row);
+                byte[] id = ids.get(row).getBytes(StandardCharsets.UTF_8);
+                byte[] text = segment != null ? segment.text().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                byte[] metadata = segment != null
+                        ? objectMapper.writeValueAsBytes(segment.metadata().toMap())
+                        : new byte[0];
+                records.add(id);
+                records.add(text);
+                records.add(metadata);
+                recordBytes += 3 * Integer.BYTES + id.length + text.length + metadata.length + 1;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(4 * Integer.BYTES + size * dimension * Float.BYTES + recordBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(dimension).putInt(size);
+            buffer.asFloatBuffer().put(vectors, 0, size * dimension);
+            buffer.position(buffer.position() + size * dimension * Float.BYTES);
+            for (int row = 0; row < size; row++) {
+                buffer.put((byte) (segments.get(row) != null ? 1 : 0));
+                for (int k = 0; k < 3; k++) {
+                    byte[] bytes = records.get(row * 3 + k);
+                    buffer.putInt(bytes.length).put(bytes);
+                }
+            }
+            buffer.flip();
+
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量快照失败: " + snapshotPath, e);
+        }
+    }
+
+    /**
+     * 通过内存映射加载快照，向量区一次批量复制到矩阵，不经过中间 byte[]
+     */
+    private void loadSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt() != SNAPSHOT_MAGIC || mapped.getInt() != SNAPSHOT_VERSION) {
+                log.warn("向量快照格式不匹配，忽略：{}", snapshotPath);
+                return;
+            }
+            int snapshotDimension = mapped.getInt();
+            int count = mapped.getInt();
+
+            float[] loaded = new float[count * snapshotDimension];
+            mapped.asFloatBuffer().get(loaded);
+            mapped.position(mapped.position() + loaded.length * Float.BYTES);
+
+            for (int row = 0; row < count; row++) {
+                boolean hasSegment = mapped.get() == 1;
+                String id = readString(mapped);
+                String text = readString(mapped);
+                String metadataJson = readString(mapped);
+                TextSegment segment = null;
+                if (hasSegment) {
+                    Map<String, Object> metadata = metadataJson.isEmpty()
+                            ? new HashMap<>()
+                            : objectMapper.readValue(metadataJson, new TypeReference<Map<String, Object>>() {});
+                    segment = TextSegment.from(text, Metadata.from(metadata));
+                }
+                ids.add(id);
+                segments.add(segment);
+                rowById.put(id, row);
+            }
+            dimension = snapshotDimension;
+            vectors = loaded;
+            size = count;
+            log.info("已从快照加载本地向量库，向量数:{}，维度:{}", count, snapshotDimension);
+        } catch (Exception e) {
+            log.error("加载向量快照失败，将重新导入：{}", snapshotPath, e);
+            ids.clear();
+            segments.clear();
+            rowById.clear();
+            vectors = new float[0];
+            size = 0;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
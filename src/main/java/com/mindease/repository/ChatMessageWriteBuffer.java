@@ -0,0 +1,492 @@
+package com.mindease.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindease.common.constant.MessageConstant;
+import com.mindease.common.exception.BaseException;
+import com.mindease.common.utils.AesEncryptUtil;
+import com.mindease.mapper.ChatMessageMapper;
+import com.mindease.pojo.entity.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 聊天消息批量写入缓冲（write-behind）
+ * 消息先追加到本地日志文件（内容加密）再进入内存队列，由后台线程按数量或时间阈值合并为多行 insert 写入数据库。
+ * 写入成功后删除对应的日志文件；进程崩溃后重启时从日志文件恢复未写入的消息。
+ * 恢复语义为至少一次：若崩溃发生在数据库提交之后、删除日志之前，重启后这一批消息会重复写入。
+ * 缓冲中的消息数量有上限，写满时 {@link #enqueue} 等待片刻后以系统繁忙拒绝，不在数据库不可用时无限占用内存。
+ * 写入失败按原因区分：数据库不可用、连接超时等暂时性错误时批次保留在日志文件中，按指数间隔（有上限）一直重试；
+ * 数据本身无法写入（违反约束、超长、非法字符等）时将批次二分重试，定位到的单条消息转存到死信文件，不再阻塞后续消息。
+ */
+@Component
+@DependsOn("aesEncryptUtil")
+@Slf4j
+public class ChatMessageWriteBuffer {
+
+    private static final String JOURNAL_FILE = "chat-messages.journal";
+
+    private static final String FLUSHING_FILE = "chat-messages.flushing";
+
+    private static final String DEAD_LETTER_FILE = "chat-messages.dead";
+
+    @Autowired
+    private ChatMessageMapper chatMessageMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${mindease.chat-write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Value("${mindease.chat-write-behind.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${mindease.chat-write-behind.spill-directory:data/chat-spill}")
+    private String spillDirectory;
+
+    // 每条消息追加后是否强制刷盘
+    @Value("${mindease.chat-write-behind.fsync:true}")
+    private boolean fsync;
+
+    // 缓冲中（含写入中）消息数量上限
+    @Value("${mindease.chat-write-behind.capacity:10000}")
+    private int capacity;
+
+    // 缓冲已满时追加消息的最长等待时间
+    @Value("${mindease.chat-write-behind.enqueue-timeout-ms:500}")
+    private long enqueueTimeoutMillis;
+
+    // 写入失败后重试间隔的上限（间隔按失败次数指数增长）
+    @Value("${mindease.chat-write-behind.max-backoff-ms:30000}")
+    private long maxBackoffMillis;
+
+    // 已写入日志、等待合并写入的消息
+    private final LinkedBlockingQueue<ChatMessage> queue = new LinkedBlockingQueue<>();
+
+    // 已从队列取出、正在写入（或写入失败等待重试）的消息，只由写入线程替换
+    private volatile List<ChatMessage> inFlight = Collections.emptyList();
+
+    // 保护日志文件的追加与轮转
+    private final Object journalLock = new Object();
+
+    // 写锁覆盖一次数据库插入及随后的 inFlight 更新，读锁覆盖历史查询，保证查询看到的数据库与缓冲互不重叠
+    private final ReentrantReadWriteLock insertLock = new ReentrantReadWriteLock();
+
+    // 缓冲剩余容量，消息写入数据库或转存死信后归还
+    private Semaphore permits;
+
+    // 当前批次连续失败次数与下次重试时间，只在 flush 中访问
+    private int failedAttempts;
+
+    private long nextAttemptAt;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat-message-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Path journalPath;
+
+    private Path flushingPath;
+
+    private Path deadLetterPath;
+
+    private FileChannel journal;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path directory = Paths.get(spillDirectory);
+        Files.createDirectories(directory);
+        journalPath = directory.resolve(JOURNAL_FILE);
+        flushingPath = directory.resolve(FLUSHING_FILE);
+        deadLetterPath = directory.resolve(DEAD_LETTER_FILE);
+
+        // 恢复上次未写入数据库的消息，统一并入待写入文件
+        List<ChatMessage> recovered = new ArrayList<>();
+        recovered.addAll(readJournal(flushingPath));
+        recovered.addAll(readJournal(journalPath));
+        if (!recovered.isEmpty()) {
+            log.warn("从本地日志恢复未写入的聊天消息 {} 条", recovered.size());
+            writeJournal(flushingPath, recovered);
+            Files.deleteIfExists(journalPath);
+            inFlight = List.copyOf(recovered);
+        } else {
+            Files.deleteIfExists(flushingPath);
+        }
+        journal = openJournal();
+        // 恢复的消息同样占用容量，可能为负，写完之前新消息需要等待
+        permits = new Semaphore(Math.max(1, capacity) - recovered.size());
+
+        flushExecutor.scheduleWithFixedDelay(() -> flushQuietly(false), flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 停机前尽量写完，失败的消息仍保留在日志文件中，下次启动恢复
+        flushQuietly(true);
+        synchronized (journalLock) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("关闭聊天消息日志失败", e);
+            }
+        }
+    }
+
+    /**
+     * 追加一条消息，落盘后立即返回，数据库写入由后台线程完成
+     * 该方法包含文件IO，缓冲已满时还会等待，需在持久化线程上调用
+     *
+     * @throws BaseException 缓冲已满且等待超时
+     */
+    public void enqueue(ChatMessage message) {
+        acquirePermit(message);
+        String line = AesEncryptUtil.encrypt(toJson(message)) + "\n";
+        synchronized (journalLock) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    journal.write(buffer);
+                }
+                if (fsync) {
+                    journal.force(false);
+                }
+            } catch (IOException e) {
+                permits.release();
+                throw new UncheckedIOException("写入聊天消息日志失败", e);
+            }
+            queue.add(message);
+        }
+        if (queue.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 查询数据库中的历史消息，并取得该会话尚未写入数据库的消息
+     * 查询期间不会有批次写入数据库，同一条消息不会既出现在查询结果中又出现在返回的待写入消息中，也不会两边都缺失
+     *
+     * @param sessionId 会话ID
+     * @param persistedRead 查询数据库的操作
+     * @return 待写入的消息，按创建时间排序
+     */
+    public List<ChatMessage> readWithPending(String sessionId, Runnable persistedRead) {
+        insertLock.readLock().lock();
+        try {
+            persistedRead.run();
+            List<ChatMessage> result = new ArrayList<>();
+            // 队列到 inFlight 的转移在 journalLock 内完成，两者在同一时刻读取
+            synchronized (journalLock) {
+                for (ChatMessage message : inFlight) {
+                    if (sessionId.equals(message.getSessionId())) {
+                        result.add(message);
+                    }
+                }
+                for (ChatMessage message : queue) {
+                    if (sessionId.equals(message.getSessionId())) {
+                        result.add(message);
+                    }
+                }
+            }
+            result.sort(Comparator.comparing(ChatMessage::getCreateTime));
+            return result;
+        } finally {
+            insertLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 丢弃会话尚未写入数据库的消息（删除会话前调用），同时从本地日志文件中移除，重启后不会再恢复写入
+     * 与批次写入互斥，返回后缓冲中不再有该会话的消息
+     *
+     * @param sessionId 会话ID
+     * @return 丢弃的消息条数
+     */
+    public synchronized int discardSession(String sessionId) {
+        synchronized (journalLock) {
+            try {
+                List<ChatMessage> keptInFlight = new ArrayList<>(inFlight.size());
+                for (ChatMessage message : inFlight) {
+                    if (!sessionId.equals(message.getSessionId())) {
+                        keptInFlight.add(message);
+                    }
+                }
+                int discardedInFlight = inFlight.size() - keptInFlight.size();
+                int queued = queue.size();
+                boolean queueChanged = queue.removeIf(message -> sessionId.equals(message.getSessionId()));
+                int discarded = discardedInFlight + queued - queue.size();
+                if (discarded == 0) {
+                    return 0;
+                }
+
+                if (discardedInFlight > 0) {
+                    if (keptInFlight.isEmpty()) {
+                        Files.deleteIfExists(flushingPath);
+                    } else {
+                        writeJournal(flushingPath, keptInFlight);
+                    }
+                    inFlight = List.copyOf(keptInFlight);
+                }
+                if (queueChanged) {
+                    journal.close();
+                    writeJournal(journalPath, new ArrayList<>(queue));
+                    journal = openJournal();
+                }
+                permits.release(discarded);
+                log.info("删除会话前丢弃未写入的聊天消息 {} 条，会话ID: {}", discarded, sessionId);
+                return discarded;
+            } catch (IOException e) {
+                throw new UncheckedIOException("重写聊天消息日志失败", e);
+            }
+        }
+    }
+
+    private void acquirePermit(ChatMessage message) {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        requestFlush();
+        try {
+            if (permits.tryAcquire(enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("聊天消息写入缓冲已满，拒绝写入，会话ID: {}", message.getSessionId());
+        throw new BaseException(MessageConstant.SYSTEM_BUSY);
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> flushQuietly(false));
+        }
+    }
+
+    private void flushQuietly(boolean force) {
+        flushRequested.set(false);
+        try {
+            flush(force);
+        } catch (Exception e) {
+            log.error("聊天消息批量写入失败（连续 {} 次），{} 条消息保留在本地日志中等待重试",
+                    failedAttempts, inFlight.size(), e);
+        }
+    }
+
+    /**
+     * 上一批写入成功后才从队列取下一批；暂时性错误时保留当前批次与对应日志文件，按指数间隔重试；
+     * 数据错误时拆分批次，无法写入的消息转存死信文件
+     *
+     * @param force 是否忽略重试等待间隔
+     */
+    private synchronized void flush(boolean force) throws IOException {
+        if (!force && System.currentTimeMillis() < nextAttemptAt) {
+            return;
+        }
+        if (inFlight.isEmpty()) {
+            synchronized (journalLock) {
+                if (queue.isEmpty()) {
+                    return;
+                }
+                List<ChatMessage> drained = new ArrayList<>(queue.size());
+                queue.drainTo(drained);
+                // 轮转日志：当前日志改名为待写入文件，新消息写入新日志
+                journal.close();
+                Files.move(journalPath, flushingPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                journal = openJournal();
+                inFlight = List.copyOf(drained);
+            }
+        }
+
+        List<ChatMessage> remaining = inFlight;
+        while (!remaining.isEmpty()) {
+            int end = Math.min(batchSize, remaining.size());
+            List<ChatMessage> batch = remaining.subList(0, end);
+            List<ChatMessage> rest = List.copyOf(remaining.subList(end, remaining.size()));
+            insertLock.writeLock().lock();
+            try {
+                try {
+                    chatMessageMapper.insertBatch(batch);
+                } catch (RuntimeException e) {
+                    if (!isDataError(e)) {
+                        scheduleRetry();
+                        throw e;
+                    }
+                    log.error("聊天消息批量写入出现数据错误，拆分批次定位无法写入的消息", e);
+                    List<ChatMessage> settled = new ArrayList<>(batch.size());
+                    try {
+                        insertSplitting(batch, settled);
+                    } catch (RuntimeException transientError) {
+                        // 拆分过程中数据库不可用：已写入或已转存的消息移出批次，其余保留在日志中等待重试
+                        List<ChatMessage> unsettled = new ArrayList<>(inFlight.size());
+                        Set<ChatMessage> done = Collections.newSetFromMap(new IdentityHashMap<>());
+                        done.addAll(settled);
+                        for (ChatMessage message : inFlight) {
+                            if (!done.contains(message)) {
+                                unsettled.add(message);
+                            }
+                        }
+                        writeJournal(flushingPath, unsettled);
+                        inFlight = List.copyOf(unsettled);
+                        permits.release(settled.size());
+                        scheduleRetry();
+                        throw transientError;
+                    }
+                }
+                inFlight = rest;
+            } finally {
+                insertLock.writeLock().unlock();
+            }
+            failedAttempts = 0;
+            nextAttemptAt = 0;
+            permits.release(end);
+            remaining = rest;
+        }
+        Files.deleteIfExists(flushingPath);
+    }
+
+    /**
+     * 二分写入批次，单条因数据错误仍无法写入的消息转存死信文件；遇到暂时性错误时直接抛出
+     *
+     * @param settled 已写入数据库或已转存死信的消息
+     */
+    private void insertSplitting(List<ChatMessage> batch, List<ChatMessage> settled) throws IOException {
+        int mid = batch.size() / 2;
+        for (List<ChatMessage> half : List.of(batch.subList(0, mid), batch.subList(mid, batch.size()))) {
+            if (half.isEmpty()) {
+                continue;
+            }
+            try {
+                chatMessageMapper.insertBatch(half);
+                settled.addAll(half);
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    throw e;
+                }
+                if (half.size() == 1) {
+                    deadLetter(half.get(0), e);
+                    settled.add(half.get(0));
+                } else {
+                    insertSplitting(half, settled);
+                }
+            }
+        }
+    }
+
+    /**
+     * 是否为数据本身导致的写入失败（重试也不会成功）：违反约束，或 SQLState 为 22（数据异常）、23（完整性约束）
+     * 连接失败、超时、死锁等其余错误均视为暂时性错误
+     */
+    static boolean isDataError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException) {
+                String sqlState = sqlException.getSQLState();
+                return sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("23"));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 暂时性错误后按连续失败次数指数退避，间隔不超过 maxBackoffMillis
+     */
+    private void scheduleRetry() {
+        failedAttempts++;
+        long backoff = flushIntervalMillis << Math.min(failedAttempts, 20);
+        nextAttemptAt = System.currentTimeMillis() + Math.min(maxBackoffMillis, backoff);
+    }
+
+    /**
+     * 追加到死信文件（内容加密），需人工排查后重新导入
+     */
+    private void deadLetter(ChatMessage message, Exception cause) throws IOException {
+        log.error("聊天消息无法写入数据库，已转存死信文件 {}，会话ID: {}", deadLetterPath, message.getSessionId(), cause);
+        String line = AesEncryptUtil.encrypt(toJson(message)) + "\n";
+        try (FileChannel channel = FileChannel.open(deadLetterPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<ChatMessage> readJournal(Path path) throws IOException {
+        List<ChatMessage> messages = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return messages;
+        }
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                lines.add(line);
+            }
+        }
+        for (String json : AesEncryptUtil.decryptAll(lines)) {
+            try {
+                messages.add(objectMapper.readValue(json, ChatMessage.class));
+            } catch (Exception e) {
+                // 崩溃时最后一行可能只写了一半
+                log.warn("跳过无法解析的聊天消息日志行，文件: {}", path);
+            }
+        }
+        return messages;
+    }
+
+    private void writeJournal(Path path, List<ChatMessage> messages) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (ChatMessage message : messages) {
+            content.append(AesEncryptUtil.encrypt(toJson(message))).append('\n');
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String toJson(ChatMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -13,6 +13,15 @@ public interface MoodService {
      */
     MoodLogVO submitMoodLog(MoodLogDTO moodLogDTO, Long userId);
 
+    /**
+     * 查询情绪日记的AI分析结果，分析未完成时状态为 PENDING
+     *
+     * @param id
+     * @param userId
+     * @return
+     */
+    MoodLogVO getMoodAnalysis(Long id, Long userId);
+
     /**
      * 获取情绪日记列表
      *
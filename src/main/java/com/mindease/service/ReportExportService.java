@@ -0,0 +1,41 @@
+package com.mindease.service;
+
+import com.mindease.pojo.vo.ReportExportJobVO;
+
+import java.nio.file.Path;
+
+public interface ReportExportService {
+
+    /**
+     * 判断是否可以导出指定用户的报告：本人，或与该用户有预约关系的咨询师
+     * @param requesterId 发起导出的用户ID
+     * @param role 发起导出的用户角色
+     * @param userId 报告所属用户ID
+     * @return 是否允许导出
+     */
+    boolean canExport(Long requesterId, String role, Long userId);
+
+    /**
+     * 提交整体情绪报告导出任务，数据未变化且已有缓存文件时直接返回已完成的任务
+     * @param userId 报告所属用户ID
+     * @param requesterId 发起导出的用户ID
+     * @return 导出任务
+     */
+    ReportExportJobVO submitExport(Long userId, Long requesterId);
+
+    /**
+     * 查询导出任务状态
+     * @param jobId 任务ID
+     * @param requesterId 发起导出的用户ID
+     * @return 导出任务
+     */
+    ReportExportJobVO getJob(String jobId, Long requesterId);
+
+    /**
+     * 获取已完成任务的PDF文件
+     * @param jobId 任务ID
+     * @param requesterId 发起导出的用户ID
+     * @return PDF文件路径
+     */
+    Path getJobFile(String jobId, Long requesterId);
+}
@@ -1,8 +1,10 @@
 package com.mindease.service.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindease.cache.CounselorAvailabilityIndex;
+import com.mindease.cache.CounselorProfileCache;
+import com.mindease.cache.CounselorProfileCache.CounselorSnapshot;
 import com.mindease.common.exception.BaseException;
 import com.mindease.mapper.AppointmentMapper;
 import com.mindease.mapper.CounselorProfileMapper;
@@ -24,7 +26,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -46,6 +47,12 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Autowired
     private SysNotificationMapper notificationMapper;
 
+    @Autowired
+    private CounselorAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private CounselorProfileCache counselorProfileCache;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -68,6 +75,8 @@ public class AppointmentServiceImpl implements AppointmentService {
             
             // 更新排班配置
             counselorProfileMapper.updateWorkSchedule(counselorId, workScheduleJson);
+            counselorProfileCache.onProfileChanged(counselorId);
+            availabilityIndex.onScheduleChanged(counselorId, scheduleSetDTO);
             
         } catch (JsonProcessingException e) {
             log.error("排班数据JSON转换失败", e);
@@ -82,94 +91,46 @@ public class AppointmentServiceImpl implements AppointmentService {
     public AvailableSlotsVO getAvailableSlots(Long counselorId, String date) {
         log.info("查询可用时段，咨询师ID:{}，日期:{}", counselorId, date);
 
-        // 1. 查询咨询师资料和排班
-        CounselorProfile profile = counselorProfileMapper.getByUserId(counselorId);
-        if (profile == null) {
+        // 1. 从可用时段索引获取咨询师排班
+        CounselorAvailabilityIndex.CounselorAvailability availability = availabilityIndex.get(counselorId);
+        if (availability == null) {
             throw new BaseException("咨询师不存在");
         }
 
-        if (profile.getWorkSchedule() == null || profile.getWorkSchedule().trim().isEmpty()) {
+        if (!availability.hasSchedule()) {
             throw new BaseException("咨询师未设置排班");
         }
 
+        if (!availability.isScheduleValid()) {
+            throw new BaseException("排班数据格式错误");
+        }
+
         // 2. 解析日期
         LocalDate targetDate = LocalDate.parse(date);
-        int dayOfWeek = targetDate.getDayOfWeek().getValue(); // 1-7，Monday=1
 
-        // 3. 解析排班数据
-        ScheduleSetDTO scheduleData;
-        try {
-            scheduleData = objectMapper.readValue(profile.getWorkSchedule(), ScheduleSetDTO.class);
-        } catch (JsonProcessingException e) {
-            log.error("解析排班数据失败", e);
-            throw new BaseException("排班数据格式错误");
+        // 3. 索引窗口内的日期直接位图计算
+        if (availability.covers(targetDate)) {
+            return AvailableSlotsVO.builder()
+                    .date(date)
+                    .slots(availability.getDaySlots(targetDate))
+                    .build();
         }
 
-        List<Integer> workDays = scheduleData.getWorkDays();
-        List<ScheduleSetDTO.WorkHour> workHours = scheduleData.getWorkHours();
-
-        // 4. 检查当天是否工作
-        if (!workDays.contains(dayOfWeek)) {
+        // 4. 窗口外的日期回退到数据库查询当天已有的预约
+        if (!availability.isWorkDay(targetDate)) {
             return AvailableSlotsVO.builder()
                     .date(date)
                     .slots(new ArrayList<>())
                     .build();
         }
 
-        // 5. 查询当天已有的预约
         LocalDateTime dayStart = targetDate.atStartOfDay();
         LocalDateTime dayEnd = targetDate.plusDays(1).atStartOfDay();
         List<Appointment> existingAppointments = appointmentMapper.getByDate(counselorId, dayStart, dayEnd);
 
-        // 6. 生成时段列表（使用 LinkedHashMap 去重并保持顺序）
-        java.util.LinkedHashMap<String, TimeSlotVO> slotMap = new java.util.LinkedHashMap<>();
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-
-        for (ScheduleSetDTO.WorkHour workHour : workHours) {
-            LocalTime start = LocalTime.parse(workHour.getStart(), timeFormatter);
-            LocalTime end = LocalTime.parse(workHour.getEnd(), timeFormatter);
-
-            // 按1小时分割时段
-            LocalTime currentStart = start;
-            while (currentStart.plusHours(1).isBefore(end) || currentStart.plusHours(1).equals(end)) {
-                LocalTime currentEnd = currentStart.plusHours(1);
-                LocalDateTime slotStart = LocalDateTime.of(targetDate, currentStart);
-                LocalDateTime slotEnd = LocalDateTime.of(targetDate, currentEnd);
-
-                // 使用时段的开始时间作为唯一key，避免重复
-                String slotKey = currentStart.format(timeFormatter) + "-" + currentEnd.format(timeFormatter);
-                
-                // 只添加未存在的时段
-                if (!slotMap.containsKey(slotKey)) {
-                    // 获取当前时间
-                    LocalDateTime now = LocalDateTime.now();
-                    
-                    // 检查时间段是否已过去：如果时间段的结束时间已经小于或等于当前时间，则不可用
-                    boolean isPast = slotEnd.isBefore(now) || slotEnd.isEqual(now);
-                    
-                    // 检查是否已被预约
-                    boolean isBooked = existingAppointments.stream()
-                            .anyMatch(apt ->
-                                    (apt.getStartTime().isBefore(slotEnd) && apt.getEndTime().isAfter(slotStart))
-                            );
-                    
-                    // 时间段可用 = 未过去 && 未被预约
-                    boolean isAvailable = !isPast && !isBooked;
-
-                    slotMap.put(slotKey, TimeSlotVO.builder()
-                            .startTime(currentStart.format(timeFormatter))
-                            .endTime(currentEnd.format(timeFormatter))
-                            .available(isAvailable)
-                            .build());
-                }
-
-                currentStart = currentEnd;
-            }
-        }
-
         return AvailableSlotsVO.builder()
                 .date(date)
-                .slots(new ArrayList<>(slotMap.values()))
+                .slots(availability.getDaySlots(targetDate, existingAppointments))
                 .build();
     }
 
@@ -182,7 +143,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         log.info("创建预约，用户ID:{}，预约数据:{}", userId, createDTO);
 
         // 1. 验证咨询师是否存在
-        CounselorProfile profile = counselorProfileMapper.getByUserId(createDTO.getCounselorId());
+        CounselorSnapshot profile = counselorProfileCache.get(createDTO.getCounselorId());
         if (profile == null) {
             throw new BaseException("咨询师不存在");
         }
@@ -211,6 +172,7 @@ public class AppointmentServiceImpl implements AppointmentService {
                 .build();
 
         appointmentMapper.insert(appointment);
+        availabilityIndex.onAppointmentBooked(appointment);
 
         // 4. 发送通知给咨询师
         sendNewAppointmentNotification(userId, createDTO.getCounselorId(), createDTO.getStartTime());
@@ -261,7 +223,7 @@ public class AppointmentServiceImpl implements AppointmentService {
                 targetRole = "user";
             } else {
                 // 用户看到咨询师信息
-                CounselorProfile profile = counselorProfileMapper.getByUserId(apt.getCounselorId());
+                CounselorSnapshot profile = counselorProfileCache.get(apt.getCounselorId());
                 targetName = profile != null ? profile.getRealName() : "未知咨询师";
                 User counselorUser = userMapper.getById(apt.getCounselorId());
                 targetAvatar = counselorUser != null ? counselorUser.getAvatar() : null;
@@ -298,7 +260,7 @@ public class AppointmentServiceImpl implements AppointmentService {
             throw new BaseException("预约不存在");
         }
 
-        CounselorProfile profile = counselorProfileMapper.getByUserId(appointment.getCounselorId());
+        CounselorSnapshot profile = counselorProfileCache.get(appointment.getCounselorId());
         String counselorName = profile != null ? profile.getRealName() : "未知咨询师";
 
         return AppointmentDetailVO.builder()
@@ -338,6 +300,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         }
 
         appointmentMapper.updateStatus(appointmentId, "CANCELLED", cancelDTO.getCancelReason(), LocalDateTime.now());
+        availabilityIndex.onAppointmentReleased(appointment);
 
         // 发送通知给对方
         Long receiverId = appointment.getUserId().equals(userId) ? appointment.getCounselorId() : appointment.getUserId();
@@ -396,6 +359,7 @@ public class AppointmentServiceImpl implements AppointmentService {
             try {
                 // 更新状态为已完成
                 appointmentMapper.updateStatus(appointment.getId(), "COMPLETED", null, now);
+                availabilityIndex.onAppointmentReleased(appointment);
                 
                 // 发送通知给用户，提醒可以评价
                 sendCompletionNotification(appointment.getUserId(), appointment.getCounselorId(), appointment.getStartTime());
@@ -445,7 +409,7 @@ public class AppointmentServiceImpl implements AppointmentService {
      */
     private void sendConfirmNotification(Long userId, Long counselorId, LocalDateTime startTime) {
         try {
-            CounselorProfile profile = counselorProfileMapper.getByUserId(counselorId);
+            CounselorSnapshot profile = counselorProfileCache.get(counselorId);
             String counselorName = profile != null ? profile.getRealName() : "咨询师";
 
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd HH:mm");
@@ -503,7 +467,7 @@ public class AppointmentServiceImpl implements AppointmentService {
      */
     private void sendCompletionNotification(Long userId, Long counselorId, LocalDateTime startTime) {
         try {
-            CounselorProfile profile = counselorProfileMapper.getByUserId(counselorId);
+            CounselorSnapshot profile = counselorProfileCache.get(counselorId);
             String counselorName = profile != null ? profile.getRealName() : "咨询师";
 
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd HH:mm");
@@ -8,13 +8,18 @@ import com.mindease.pojo.entity.ChatSession;
 import com.mindease.pojo.vo.*;
 import com.mindease.service.ChatService;
 import com.mindease.aiservice.ConsultantService;
+import com.mindease.repository.ChatMessageWriteBuffer;
 import com.mindease.repository.RedisChatMemoryStore;
 import com.mindease.common.utils.SensitiveWordFilter;
+import com.mindease.common.utils.SensitiveWordMatcher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -35,12 +40,19 @@ public class ChatServiceImpl implements ChatService {
     @Autowired
     private ConsultantService consultantService;
     
+    @Autowired
+    private ChatMessageWriteBuffer chatMessageWriteBuffer;
+
     @Autowired
     private RedisChatMemoryStore redisChatMemoryStore;
     
     @Autowired
     private SensitiveWordFilter sensitiveWordFilter;
 
+    @Autowired
+    @Qualifier("chatPersistenceScheduler")
+    private Scheduler chatPersistenceScheduler;
+
     @Override
     public ChatSessionCreateVO createSession(Long userId) {
         // 生成唯一的会话ID
@@ -91,10 +103,26 @@ public class ChatServiceImpl implements ChatService {
         String sessionId = chatMessageSendDTO.getSessionId();
         String content = chatMessageSendDTO.getContent();
         
+        // 检测用户输入中的危机词
+        List<String> userCrisisWords = sensitiveWordFilter.getAllSensitiveWords(content);
+        if (!userCrisisWords.isEmpty()) {
+            log.warn("用户消息包含危机词，会话ID: {}, 用户ID: {}, 词: {}", sessionId, userId, userCrisisWords);
+        }
+        
+        // 会话校验与用户消息保存在持久化调度器上执行，完成后再开始流式回复
+        return Mono.fromRunnable(() -> saveUserMessage(sessionId, userId, content))
+                .subscribeOn(chatPersistenceScheduler)
+                .thenMany(Flux.defer(() -> streamAiReply(sessionId, userId, content)));
+    }
+
+    /**
+     * 验证会话归属并保存用户消息，第一条消息同时设置会话标题
+     */
+    private void saveUserMessage(String sessionId, Long userId, String content) {
         // 验证会话是否存在且属于当前用户
         ChatSession chatSession = chatSessionMapper.selectBySessionId(sessionId);
         if (chatSession == null || !userId.equals(chatSession.getUserId())) {
-            return Flux.error(new RuntimeException("会话不存在或无权限访问"));
+            throw new RuntimeException("会话不存在或无权限访问");
         }
         
         // 保存用户消息
@@ -105,21 +133,32 @@ public class ChatServiceImpl implements ChatService {
         userMessage.setContent(content);
         userMessage.setCreateTime(LocalDateTime.now());
         userMessage.setUpdateTime(LocalDateTime.now());
-        chatMessageMapper.insert(userMessage);
+        chatMessageWriteBuffer.enqueue(userMessage);
         
         // 如果这是第一条消息，则设置会话标题
         if (chatSession.getSessionTitle() == null || chatSession.getSessionTitle().isEmpty()) {
             String title = content.length() > 20 ? content.substring(0, 20) + "..." : content;
             chatSessionMapper.updateTitle(sessionId, title);
         }
-        
-        // 调用AI服务获取回复，并收集完整内容
+    }
+
+    /**
+     * 调用AI服务获取流式回复，并收集完整内容；同时增量检测AI输出中的危机词
+     */
+    private Flux<String> streamAiReply(String sessionId, Long userId, String content) {
         StringBuilder fullResponse = new StringBuilder();
+        SensitiveWordMatcher.StreamScanner aiScanner = sensitiveWordFilter.newStreamScanner();
         
         Flux<String> aiResponse = consultantService.chat(sessionId, content)
-                .doOnNext(fullResponse::append);
+                .doOnNext(token -> {
+                    fullResponse.append(token);
+                    List<String> found = aiScanner.feed(token);
+                    if (!found.isEmpty()) {
+                        log.warn("AI回复包含危机词，会话ID: {}, 用户ID: {}, 词: {}", sessionId, userId, found);
+                    }
+                });
         
-        // 在流式响应完成后，保存AI消息到数据库
+        // 在流式响应完成后，将AI消息交给持久化调度器写入缓冲，不阻塞模型回调线程
         return aiResponse.doOnComplete(() -> {
             ChatMessage aiMessage = new ChatMessage();
             aiMessage.setSessionId(sessionId);
@@ -128,7 +167,9 @@ public class ChatServiceImpl implements ChatService {
             aiMessage.setContent(fullResponse.toString());
             aiMessage.setCreateTime(LocalDateTime.now());
             aiMessage.setUpdateTime(LocalDateTime.now());
-            chatMessageMapper.insert(aiMessage);
+            Mono.fromRunnable(() -> chatMessageWriteBuffer.enqueue(aiMessage))
+                    .subscribeOn(chatPersistenceScheduler)
+                    .subscribe(null, e -> log.error("保存AI消息失败，会话ID: {}", sessionId, e));
         });
     }
 
@@ -140,8 +181,18 @@ public class ChatServiceImpl implements ChatService {
             throw new RuntimeException("会话不存在或无权限访问");
         }
         
-        // 查询消息历史
-        List<ChatMessage> chatMessages = chatMessageMapper.selectBySessionIdAndUserId(sessionId, userId, limit);
+        // 查询消息历史，并补上尚在写入缓冲中的消息（两者在同一时刻读取，不会重复或遗漏）
+        List<ChatMessage> chatMessages = new ArrayList<>();
+        List<ChatMessage> pendingMessages = chatMessageWriteBuffer.readWithPending(sessionId,
+                () -> chatMessages.addAll(chatMessageMapper.selectBySessionIdAndUserId(sessionId, userId, limit)));
+        for (ChatMessage pending : pendingMessages) {
+            if (limit != null && chatMessages.size() >= limit) {
+                break;
+            }
+            if (userId.equals(pending.getUserId())) {
+                chatMessages.add(pending);
+            }
+        }
         
         // 转换为VO
         List<ChatMessageVO> chatMessageVOs = chatMessages.stream().map(chatMessage -> {
@@ -168,6 +219,9 @@ public class ChatServiceImpl implements ChatService {
             throw new RuntimeException("会话不存在或无权限访问");
         }
         
+        // 丢弃缓冲中尚未写入的消息，避免删除后再被写入
+        chatMessageWriteBuffer.discardSession(sessionId);
+
         // 删除会话相关的所有消息
         chatMessageMapper.deleteBySessionId(sessionId);
         
@@ -200,12 +254,9 @@ public class ChatServiceImpl implements ChatService {
             return result;
         }
         
-        // 检测是否包含敏感词
-        boolean containsSensitive = sensitiveWordFilter.containsSensitiveWord(content);
-        result.setContainsSensitiveWord(containsSensitive);
-        
-        // 获取所有敏感词
+        // 一次扫描获取所有敏感词
         List<String> sensitiveWords = sensitiveWordFilter.getAllSensitiveWords(content);
+        result.setContainsSensitiveWord(!sensitiveWords.isEmpty());
         result.setSensitiveWords(sensitiveWords);
         
         return result;
@@ -1,5 +1,8 @@
 package com.mindease.service.impl;
 
+import com.mindease.cache.CounselorProfileCache;
+import com.mindease.cache.CounselorSearchIndex;
+import com.mindease.cache.UserStatusCache;
 import com.mindease.common.exception.BaseException;
 import com.mindease.mapper.CounselorAuditRecordMapper;
 import com.mindease.mapper.CounselorProfileMapper;
@@ -39,9 +42,18 @@ public class CounselorAuditServiceImpl implements CounselorAuditService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserStatusCache userStatusCache;
+
     @Autowired
     private CounselorProfileMapper counselorProfileMapper;
 
+    @Autowired
+    private CounselorProfileCache counselorProfileCache;
+
+    @Autowired
+    private CounselorSearchIndex counselorSearchIndex;
+
     @Autowired
     private SysNotificationMapper notificationMapper;
 
@@ -123,20 +135,9 @@ public class CounselorAuditServiceImpl implements CounselorAuditService {
                 .map(record -> {
                     User user = userMapper.getById(record.getUserId());
 
-                    CounselorProfile profile = counselorProfileMapper.getByUserId(record.getUserId());
-                    
-                    // 解析专长领域 JSON 数组
-                    List<String> specialtyList = null;
-                    if (profile != null && profile.getSpecialty() != null && !profile.getSpecialty().trim().isEmpty()) {
-                        try {
-                            specialtyList = objectMapper.readValue(
-                                profile.getSpecialty(), 
-                                objectMapper.getTypeFactory().constructCollectionType(List.class, String.class)
-                            );
-                        } catch (JsonProcessingException e) {
-                            log.error("解析专长领域失败，userId:{}", record.getUserId(), e);
-                        }
-                    }
+                    // 专长领域取自资料快照中已解析的列表
+                    CounselorProfileCache.CounselorSnapshot profile = counselorProfileCache.get(record.getUserId());
+                    List<String> specialtyList = profile != null ? profile.getSpecialty() : null;
                     
                     return AuditListItemVO.builder()
                             .auditId(record.getId())
@@ -226,6 +227,7 @@ public class CounselorAuditServiceImpl implements CounselorAuditService {
             user.setStatus(1);  // StatusConstant.ENABLE
             user.setUpdateTime(LocalDateTime.now());
             userMapper.updateStatus(user);  // 使用专门更新状态的方法
+            userStatusCache.onStatusChanged(user.getId(), user.getStatus());
             log.info("咨询师账号状态已更新为启用，用户ID: {}", record.getUserId());
         }
 
@@ -250,6 +252,8 @@ public class CounselorAuditServiceImpl implements CounselorAuditService {
             counselorProfileMapper.update(existingProfile);
             log.info("更新咨询师资料成功，用户ID:{}", record.getUserId());
         }
+        counselorProfileCache.onProfileChanged(record.getUserId());
+        counselorSearchIndex.onProfileChanged(record.getUserId());
     }
 
     /**
@@ -296,6 +300,8 @@ public class CounselorAuditServiceImpl implements CounselorAuditService {
                 counselorProfileMapper.update(profile);
                 log.info("提交审核时更新咨询师资料草稿成功，用户ID:{}", userId);
             }
+            counselorProfileCache.onProfileChanged(userId);
+            counselorSearchIndex.onProfileChanged(userId);
         } catch (JsonProcessingException e) {
             log.error("序列化咨询师专长失败", e);
             throw new BaseException("专长格式错误，请检查后重试");
@@ -1,8 +1,11 @@
 package com.mindease.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindease.cache.CounselorAvailabilityIndex;
+import com.mindease.cache.CounselorProfileCache;
+import com.mindease.cache.CounselorProfileCache.CounselorSnapshot;
+import com.mindease.cache.CounselorSearchIndex;
 import com.mindease.common.exception.BaseException;
+import com.mindease.common.utils.KeywordAnalyzer;
 import com.mindease.mapper.*;
 import org.springframework.transaction.annotation.Transactional;
 import com.mindease.pojo.dto.ReviewSubmitDTO;
@@ -14,12 +17,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,23 +41,32 @@ public class CounselorServiceImpl implements CounselorService {
     @Autowired
     private CounselorReviewMapper counselorReviewMapper;
 
+    @Autowired
+    private CounselorReviewTagMapper counselorReviewTagMapper;
+
     @Autowired
     private AppointmentMapper appointmentMapper;
 
     @Autowired
     private com.mindease.service.AppointmentService appointmentService;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private CounselorAvailabilityIndex availabilityIndex;
 
-    // 测评量表到关键词的映射
-    private static final Map<String, List<String>> ASSESSMENT_KEYWORD_MAP = new HashMap<String, List<String>>() {{
-        put("焦虑", Arrays.asList("焦虑", "紧张", "担忧", "恐慌"));
-        put("抑郁", Arrays.asList("抑郁", "情绪低落", "悲伤", "失落"));
-        put("失眠", Arrays.asList("失眠", "睡眠", "入睡困难", "睡眠障碍"));
-        put("压力", Arrays.asList("压力", "疲惫", "倦怠", "应激"));
-        put("强迫", Arrays.asList("强迫", "反复", "重复行为"));
-        put("恐惧", Arrays.asList("恐惧", "害怕", "回避"));
-    }};
+    @Autowired
+    private CounselorProfileCache counselorProfileCache;
+
+    @Autowired
+    private CounselorSearchIndex counselorSearchIndex;
+
+    @Autowired
+    private KeywordAnalyzer keywordAnalyzer;
+
+    // 评价标签（按展示优先级排列），提交评价时统计，详情页展示提到次数最多的几个
+    private static final List<String> REVIEW_TAGS = Arrays.asList(
+        "专业", "耐心", "温和", "负责", "细心", "热情", "友善",
+        "经验丰富", "善于倾听", "有帮助", "靠谱", "值得信赖"
+    );
 
     // 情绪类型到关键词映射（基于实际数据库 mood_type 字段值）
     private static final Map<String, List<String>> MOOD_TYPE_KEYWORD_MAP = new HashMap<String, List<String>>() {{
@@ -88,14 +97,6 @@ public class CounselorServiceImpl implements CounselorService {
         "Anxious", "Sad", "Angry", "Tired"
     ));
 
-    // 中文地名列表
-    private static final Set<String> CHINESE_CITIES = new HashSet<>(Arrays.asList(
-        "北京", "上海", "广州", "深圳", "天津", "重庆", "成都", "杭州", "武汉", "西安",
-        "南京", "郑州", "长沙", "沈阳", "青岛", "大连", "宁波", "厦门", "济南", "哈尔滨",
-        "苏州", "无锡", "福州", "石家庄", "昆明", "兰州", "太原", "合肥", "南昌", "贵阳",
-        "南宁", "海口", "银川", "西宁", "呼和浩特", "乌鲁木齐", "拉萨", "线上", "在线"
-    ));
-
     /**
      * 智能推荐咨询师（增强版）
      */
@@ -111,7 +112,7 @@ public class CounselorServiceImpl implements CounselorService {
 
         // 1.1 查询用户最近7天的情绪日志
         LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        List<MoodLog> recentMoodLogs = moodLogMapper.getRecentMoodLogs(userId, sevenDaysAgo);
+        List<MoodLog> recentMoodLogs = moodLogMapper.getRecentMoodScores(userId, sevenDaysAgo);
 
         boolean isUrgent = false;
         
@@ -196,7 +197,7 @@ public class CounselorServiceImpl implements CounselorService {
 
             String resultLevel = latestAssessment.getResultLevel();
             if (resultLevel != null) {
-                List<String> extractedKeywords = extractKeywordsFromText(resultLevel);
+                List<String> extractedKeywords = keywordAnalyzer.extractKeywords(resultLevel);
                 keywords.addAll(extractedKeywords);
                 userTags.add(resultLevel);
                 log.info("从测评结果提取关键词: {}", extractedKeywords);
@@ -213,7 +214,7 @@ public class CounselorServiceImpl implements CounselorService {
         }
 
         // 1.4 生成关键词变体，提升模糊匹配（问题7：优化避免过度裁剪）
-        keywords = expandKeywordVariantsOptimized(keywords);
+        keywords = keywordAnalyzer.expandVariants(keywords);
         log.info("扩展后关键词: {}", keywords);
 
         // 【改进3】协同过滤：查询用户历史预约的咨询师
@@ -234,10 +235,7 @@ public class CounselorServiceImpl implements CounselorService {
         if (!hasKeyword) {
             profiles = counselorProfileMapper.getAllActiveCounselors();
         } else {
-            profiles = counselorProfileMapper.recommendCounselors(
-                    keywords,
-                    sort != null ? sort : "smart"
-            );
+            profiles = searchCounselors(keywords, sort != null ? sort : "smart");
         }
 
         // 【改进3】协同过滤增强：加入相似咨询师
@@ -261,38 +259,8 @@ public class CounselorServiceImpl implements CounselorService {
         // 【改进6】多样性控制：前5个按匹配度，后5个按多样性
         profiles = applyDiversityControl(profiles);
 
-        // 3. 构建推荐列表
-        final List<String> finalKeywords = keywords;
-        final boolean finalIsUrgent = isUrgent;
-        final List<Long> finalHistoryIds = historyCounselorIds;
-        
-        List<CounselorRecommendVO> counselors = profiles.stream().map(profile -> {
-            User user = userMapper.getById(profile.getUserId());
-            List<String> specialtyList = parseJsonArray(profile.getSpecialty());
-
-            String matchReason = generateMatchReason(profile, finalKeywords, finalIsUrgent, finalHistoryIds);
-
-            // 【改进5】真实检查"今日可约"标签
-            List<String> tags = generateTagsWithRealAvailability(profile, finalIsUrgent);
-
-            // 计算最近可用时间
-            String nextAvailableTime = calculateNextAvailableTime(profile.getUserId());
-
-            return CounselorRecommendVO.builder()
-                    .id(profile.getUserId())
-                    .realName(profile.getRealName())
-                    .avatar(user != null ? user.getAvatar() : null)
-                    .title(profile.getTitle())
-                    .experienceYears(profile.getExperienceYears())
-                    .specialty(specialtyList)
-                    .rating(profile.getRating())
-                    .pricePerHour(profile.getPricePerHour())
-                    .location(profile.getLocation())
-                    .nextAvailableTime(nextAvailableTime)
-                    .matchReason(matchReason)
-                    .tags(tags)
-                    .build();
-        }).collect(Collectors.toList());
+        // 3. 批量组装推荐列表（用户、排班、预约各一次查询）
+        List<CounselorRecommendVO> counselors = assembleRecommendCards(profiles, keywords, isUrgent, historyCounselorIds);
 
         // 4. 构建推荐上下文
         RecommendContextVO context = RecommendContextVO.builder()
@@ -308,95 +276,82 @@ public class CounselorServiceImpl implements CounselorService {
     }
 
     /**
-     * 【改进1】从文本中提取关键词（基于规则+NLP思想）
+     * 按关键词匹配咨询师，优先使用内存搜索索引，索引未就绪时回退到 SQL 匹配
      */
-    private List<String> extractKeywordsFromText(String text) {
-        List<String> keywords = new ArrayList<>();
-        if (text == null || text.trim().isEmpty()) {
-            return keywords;
+    private List<CounselorProfile> searchCounselors(List<String> keywords, String sort) {
+        List<Long> matchedIds = counselorSearchIndex.search(keywords, sort);
+        if (matchedIds == null) {
+            return counselorProfileMapper.recommendCounselorsByKeywords(keywords, sort);
         }
-
-        // 遍历映射表，查找匹配的关键词
-        for (Map.Entry<String, List<String>> entry : ASSESSMENT_KEYWORD_MAP.entrySet()) {
-            if (text.contains(entry.getKey())) {
-                keywords.addAll(entry.getValue());
-            }
+        if (matchedIds.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        // 使用正则提取中文关键词（2-4个字）
-        Pattern pattern = Pattern.compile("[\\u4e00-\\u9fa5]{2,4}");
-        Matcher matcher = pattern.matcher(text);
-        while (matcher.find()) {
-            String word = matcher.group();
-            // 过滤掉常见的无意义词
-            if (!isStopWord(word)) {
-                addIfAbsent(keywords, word);
+        // 按索引给出的顺序排列
+        Map<Long, CounselorProfile> profileMap = counselorProfileMapper.getByCounselorIds(matchedIds).stream()
+                .collect(Collectors.toMap(CounselorProfile::getUserId, p -> p, (a, b) -> a));
+        List<CounselorProfile> profiles = new ArrayList<>(matchedIds.size());
+        for (Long counselorId : matchedIds) {
+            CounselorProfile profile = profileMap.get(counselorId);
+            if (profile != null) {
+                profiles.add(profile);
             }
         }
-
-        return keywords.stream().distinct().collect(Collectors.toList());
+        return profiles;
     }
 
     /**
-     * 判断是否为停用词
+     * 批量组装推荐卡片
+     * 一次性加载候选咨询师的用户信息，标签与最近可用时间由可用时段索引在内存中计算，避免逐个咨询师查询
      */
-    private boolean isStopWord(String word) {
-        Set<String> stopWords = new HashSet<>(Arrays.asList(
-            "的", "是", "在", "有", "和", "了", "不", "与", "中", "为", "对", "及", 
-            "个", "等", "但", "或", "从", "到", "而", "由", "也", "很", "就", "可能",
-            "轻度", "中度", "重度", "严重", "明显", "症状", "状态", "情况", "程度"
-        ));
-        return stopWords.contains(word);
-    }
-
-    /**
-     * 【改进7】优化的关键词扩展：避免过度裁剪地名等
-     */
-    private List<String> expandKeywordVariantsOptimized(List<String> source) {
-        if (source == null || source.isEmpty()) {
+    private List<CounselorRecommendVO> assembleRecommendCards(List<CounselorProfile> profiles, List<String> keywords,
+                                                              boolean isUrgent, List<Long> historyIds) {
+        if (profiles.isEmpty()) {
             return new ArrayList<>();
         }
-        List<String> suffixes = Arrays.asList("症", "障碍", "问题", "情况", "状态", "情绪", "病", "感");
-        List<String> result = new ArrayList<>();
-        
-        for (String kw : source) {
-            if (kw == null) continue;
-            String base = kw.trim();
-            if (base.isEmpty()) continue;
-            
-            // 总是保留原词
-            addIfAbsent(result, base);
-            
-            // 去后缀变体
-            for (String suffix : suffixes) {
-                if (base.endsWith(suffix) && base.length() > suffix.length()) {
-                    String stripped = base.substring(0, base.length() - suffix.length());
-                    if (stripped.length() >= 2) {
-                        addIfAbsent(result, stripped);
-                    }
-                }
-            }
-            
-            // 【改进7】只对非地名且长度>3的词进行末尾裁剪
-            if (base.length() > 3 && !isLocationName(base)) {
-                String shorter = base.substring(0, base.length() - 1);
-                addIfAbsent(result, shorter);
-            }
-        }
-        return result;
-    }
 
-    /**
-     * 判断是否为地名
-     */
-    private boolean isLocationName(String word) {
-        return CHINESE_CITIES.contains(word) || CHINESE_CITIES.stream().anyMatch(word::contains);
-    }
+        List<Long> counselorIds = profiles.stream()
+                .map(CounselorProfile::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        // 批量查询头像
+        Map<Long, User> userMap = userMapper.getByIds(counselorIds).stream()
+                .collect(Collectors.toMap(User::getId, u -> u, (a, b) -> a));
+
+        // 批量构建可用时段索引（未索引的咨询师只需一次预约查询）
+        availabilityIndex.preload(profiles);
+
+        List<CounselorRecommendVO> result = new ArrayList<>(profiles.size());
+        for (CounselorProfile profile : profiles) {
+            User user = userMap.get(profile.getUserId());
+            List<String> specialtyList = counselorProfileCache.snapshotOf(profile).getSpecialty();
+            CounselorAvailabilityIndex.CounselorAvailability availability = availabilityIndex.get(profile.getUserId());
 
-    private void addIfAbsent(List<String> list, String value) {
-        if (!list.contains(value)) {
-            list.add(value);
+            String matchReason = generateMatchReason(profile, specialtyList, keywords, isUrgent, historyIds);
+
+            // 【改进5】真实检查"今日可约"标签
+            List<String> tags = generateTagsWithRealAvailability(profile, availability, isUrgent);
+
+            // 计算最近可用时间
+            String nextAvailableTime = availability != null ? availability.findNextAvailableTime() : null;
+
+            result.add(CounselorRecommendVO.builder()
+                    .id(profile.getUserId())
+                    .realName(profile.getRealName())
+                    .avatar(user != null ? user.getAvatar() : null)
+                    .title(profile.getTitle())
+                    .experienceYears(profile.getExperienceYears())
+                    .specialty(specialtyList)
+                    .rating(profile.getRating())
+                    .pricePerHour(profile.getPricePerHour())
+                    .location(profile.getLocation())
+                    .nextAvailableTime(nextAvailableTime)
+                    .matchReason(matchReason)
+                    .tags(tags)
+                    .build());
         }
+        return result;
     }
 
     /**
@@ -558,10 +513,10 @@ public class CounselorServiceImpl implements CounselorService {
     private double calculateDiversity(CounselorProfile candidate, List<CounselorProfile> selected) {
         double diversityScore = 0;
 
-        List<String> candidateSpecialty = parseJsonArray(candidate.getSpecialty());
+        List<String> candidateSpecialty = counselorProfileCache.snapshotOf(candidate).getSpecialty();
         
         for (CounselorProfile s : selected) {
-            List<String> selectedSpecialty = parseJsonArray(s.getSpecialty());
+            List<String> selectedSpecialty = counselorProfileCache.snapshotOf(s).getSpecialty();
             
             // 专长重叠度
             long overlap = candidateSpecialty.stream()
@@ -591,7 +546,9 @@ public class CounselorServiceImpl implements CounselorService {
     /**
      * 【改进5】生成带真实可用性检查的标签
      */
-    private List<String> generateTagsWithRealAvailability(CounselorProfile profile, boolean isUrgent) {
+    private List<String> generateTagsWithRealAvailability(CounselorProfile profile,
+                                                          CounselorAvailabilityIndex.CounselorAvailability availability,
+                                                          boolean isUrgent) {
         List<String> tags = new ArrayList<>();
 
         if (profile.getPricePerHour() != null && profile.getPricePerHour().compareTo(BigDecimal.valueOf(300)) < 0) {
@@ -607,19 +564,8 @@ public class CounselorServiceImpl implements CounselorService {
         }
 
         // 【改进5】真实检查今日是否可约
-        if (isUrgent) {
-            try {
-                LocalDate today = LocalDate.now();
-                AvailableSlotsVO slots = appointmentService.getAvailableSlots(
-                    profile.getUserId(), 
-                    today.toString()
-                );
-                if (slots != null && slots.getSlots() != null && !slots.getSlots().isEmpty()) {
-                    tags.add("今日可约");
-                }
-            } catch (Exception e) {
-                log.warn("检查咨询师{}今日可约状态失败: {}", profile.getUserId(), e.getMessage());
-            }
+        if (isUrgent && availability != null && availability.isWorkDay(LocalDate.now())) {
+            tags.add("今日可约");
         }
 
         return tags;
@@ -654,15 +600,15 @@ public class CounselorServiceImpl implements CounselorService {
      */
     @Override
     public CounselorDetailVO getCounselorDetail(Long counselorId) {
-        CounselorProfile profile = counselorProfileMapper.getByUserId(counselorId);
+        CounselorSnapshot profile = counselorProfileCache.get(counselorId);
         if (profile == null) {
             throw new BaseException("咨询师不存在");
         }
 
         User user = userMapper.getById(counselorId);
-        List<String> specialtyList = parseJsonArray(profile.getSpecialty());
+        List<String> specialtyList = profile.getSpecialty();
 
-        List<String> tags = extractTagsFromReviews(counselorId);
+        List<String> tags = extractTagsFromReviews(counselorId, profile.getReviewCount());
 
         return CounselorDetailVO.builder()
                 .id(counselorId)
@@ -688,11 +634,23 @@ public class CounselorServiceImpl implements CounselorService {
     @Override
     public ReviewListVO getCounselorReviews(Long counselorId, Integer limit, Integer offset) {
         List<CounselorReview> reviews = counselorReviewMapper.getByCounselorId(counselorId, limit, offset);
-        int total = counselorReviewMapper.countByCounselorId(counselorId);
-        Double avgRating = counselorReviewMapper.getAvgRatingByCounselorId(counselorId);
+
+        // 评价总数与平均分取自咨询师资料中随评价提交维护的统计
+        CounselorSnapshot profile = counselorProfileCache.get(counselorId);
+        int total = profile != null && profile.getReviewCount() != null ? profile.getReviewCount() : 0;
+        BigDecimal avgRating = total > 0 && profile.getRating() != null ? profile.getRating() : BigDecimal.ZERO;
+
+        // 批量查询评价人
+        List<Long> reviewerIds = reviews.stream()
+                .map(CounselorReview::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, User> userMap = reviewerIds.isEmpty() ? Collections.emptyMap()
+                : userMapper.getByIds(reviewerIds).stream()
+                        .collect(Collectors.toMap(User::getId, u -> u, (a, b) -> a));
 
         List<CounselorReviewVO> reviewVOList = reviews.stream().map(review -> {
-            User user = userMapper.getById(review.getUserId());
+            User user = userMap.get(review.getUserId());
             return CounselorReviewVO.builder()
                     .id(review.getId())
                     .userId(review.getUserId())
@@ -706,7 +664,7 @@ public class CounselorServiceImpl implements CounselorService {
 
         return ReviewListVO.builder()
                 .total(total)
-                .avgRating(avgRating != null ? BigDecimal.valueOf(avgRating).setScale(1, RoundingMode.HALF_UP) : BigDecimal.ZERO)
+                .avgRating(avgRating)
                 .reviews(reviewVOList)
                 .build();
     }
@@ -750,66 +708,60 @@ public class CounselorServiceImpl implements CounselorService {
 
         counselorReviewMapper.insert(review);
 
-        updateCounselorRating(counselorId);
+        updateCounselorRating(counselorId, review.getRating());
+        updateReviewTags(counselorId, review.getContent());
 
         return review.getId();
     }
 
     /**
      * 更新咨询师评分统计
+     * 在提交评价的同一事务中累加评分总和与评价数，不再读取该咨询师的全部评价；
+     * 评分总和尚未回填时改为按全部评价重算一次（本条评价已在同一事务中插入），之后恢复累加
      */
-    private void updateCounselorRating(Long counselorId) {
-        List<CounselorReview> reviews = counselorReviewMapper.listByCounselorId(counselorId);
-        
-        if (reviews.isEmpty()) {
-            return;
+    private void updateCounselorRating(Long counselorId, Integer rating) {
+        int updated = counselorProfileMapper.addReviewRating(counselorId, rating);
+        if (updated == 0) {
+            updated = counselorProfileMapper.recomputeRating(counselorId);
+            if (updated == 0) {
+                log.warn("咨询师资料不存在，跳过评分统计，咨询师ID: {}", counselorId);
+                return;
+            }
+            log.info("咨询师评分总和未回填，已按全部评价重算，咨询师ID: {}", counselorId);
         }
+        counselorProfileCache.onProfileChanged(counselorId);
+        counselorSearchIndex.onProfileChanged(counselorId);
+    }
 
-        double avgRating = reviews.stream()
-                .mapToInt(CounselorReview::getRating)
-                .average()
-                .orElse(5.0);
-
-        BigDecimal rating = BigDecimal.valueOf(avgRating)
-                .setScale(1, RoundingMode.HALF_UP);
-
-        CounselorProfile profile = counselorProfileMapper.getByUserId(counselorId);
-        if (profile != null) {
-            profile.setRating(rating);
-            profile.setReviewCount(reviews.size());
-            counselorProfileMapper.update(profile);
+    /**
+     * 累加本条评价提到的标签
+     */
+    private void updateReviewTags(Long counselorId, String content) {
+        if (content == null || content.isEmpty()) {
+            return;
+        }
+        for (String tag : REVIEW_TAGS) {
+            if (content.contains(tag)) {
+                counselorReviewTagMapper.increment(counselorId, tag);
+            }
         }
     }
 
     /**
-     * 从评价中提取标签
+     * 根据标签统计取提到次数最多的标签（次数相同时按预设顺序）
      */
-    private List<String> extractTagsFromReviews(Long counselorId) {
-        List<CounselorReview> reviews = counselorReviewMapper.getByCounselorId(counselorId, 20, 0);
-        
-        if (reviews.isEmpty()) {
+    private List<String> extractTagsFromReviews(Long counselorId, Integer reviewCount) {
+        if (reviewCount == null || reviewCount == 0) {
             return Arrays.asList("暂无评价");
         }
 
-        List<String> predefinedTags = Arrays.asList(
-            "专业", "耐心", "温和", "负责", "细心", "热情", "友善", 
-            "经验丰富", "善于倾听", "有帮助", "靠谱", "值得信赖"
-        );
-        
-        List<String> matchedTags = new ArrayList<>();
-        String allContent = reviews.stream()
-                .map(CounselorReview::getContent)
-                .filter(content -> content != null && !content.isEmpty())
-                .collect(Collectors.joining(" "));
-
-        for (String tag : predefinedTags) {
-            if (allContent.contains(tag)) {
-                matchedTags.add(tag);
-                if (matchedTags.size() >= 3) {
-                    break;
-                }
-            }
-        }
+        List<String> matchedTags = counselorReviewTagMapper.getByCounselorId(counselorId).stream()
+                .filter(tagCount -> REVIEW_TAGS.contains(tagCount.getTag()))
+                .sorted(Comparator.comparing(CounselorReviewTagMapper.TagCount::getTagCount).reversed()
+                        .thenComparing(tagCount -> REVIEW_TAGS.indexOf(tagCount.getTag())))
+                .limit(3)
+                .map(CounselorReviewTagMapper.TagCount::getTag)
+                .collect(Collectors.toList());
 
         if (matchedTags.isEmpty()) {
             matchedTags.add("专业咨询师");
@@ -818,63 +770,10 @@ public class CounselorServiceImpl implements CounselorService {
         return matchedTags;
     }
 
-    /**
-     * 解析 JSON 数组
-     */
-    private List<String> parseJsonArray(String json) {
-        if (json == null || json.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
-        try {
-            return objectMapper.readValue(json, new TypeReference<List<String>>() {});
-        } catch (Exception e) {
-            log.error("解析 JSON 失败: {}", json, e);
-            return new ArrayList<>();
-        }
-    }
-
-    /**
-     * 计算咨询师最近可用时间
-     * 检查今天、明天以及未来7天内的第一个可用时间段
-     * 
-     * @param counselorId 咨询师ID
-     * @return 最近可用时间（格式：yyyy-MM-dd HH:mm），如果没有可用时间则返回null
-     */
-    private String calculateNextAvailableTime(Long counselorId) {
-        try {
-            LocalDate today = LocalDate.now();
-            
-            // 检查未来7天内的排班
-            for (int i = 0; i < 7; i++) {
-                LocalDate checkDate = today.plusDays(i);
-                String dateStr = checkDate.toString(); // yyyy-MM-dd 格式
-                
-                // 获取该日期的可用时间段
-                AvailableSlotsVO slotsVO = appointmentService.getAvailableSlots(counselorId, dateStr);
-                
-                if (slotsVO != null && slotsVO.getSlots() != null && !slotsVO.getSlots().isEmpty()) {
-                    // 找到第一个 available = true 的时间段
-                    for (TimeSlotVO slot : slotsVO.getSlots()) {
-                        if (Boolean.TRUE.equals(slot.getAvailable())) {
-                            // 返回该时间段的开始时间
-                            return dateStr + " " + slot.getStartTime();
-                        }
-                    }
-                }
-            }
-            
-            // 未来7天内没有可用时间
-            return null;
-        } catch (Exception e) {
-            log.error("计算咨询师 {} 的最近可用时间失败", counselorId, e);
-            return null;
-        }
-    }
-
     /**
      * 生成匹配理由（增强版，包含协同过滤提示）
      */
-    private String generateMatchReason(CounselorProfile profile, List<String> keywords, 
+    private String generateMatchReason(CounselorProfile profile, List<String> specialtyList, List<String> keywords,
                                       boolean isUrgent, List<Long> historyIds) {
         // 【改进3】优先提示历史预约关系
         if (historyIds.contains(profile.getUserId())) {
@@ -885,7 +784,6 @@ public class CounselorServiceImpl implements CounselorService {
             return "经验丰富，评价良好。";
         }
 
-        List<String> specialtyList = parseJsonArray(profile.getSpecialty());
         long matchCount = keywords.stream()
                 .filter(specialtyList::contains)
                 .count();
@@ -4,20 +4,37 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mindease.aiservice.ConsultantService;
+import com.mindease.common.exception.BaseException;
+import com.mindease.common.utils.TransactionUtil;
+import com.mindease.mapper.MoodDailyStatMapper;
+import com.mindease.mapper.MoodMonthlyStatMapper;
 import com.mindease.mapper.MoodLogMapper;
 import com.mindease.pojo.dto.MoodLogDTO;
+import com.mindease.pojo.entity.MoodDailyStat;
 import com.mindease.pojo.entity.MoodLog;
+import com.mindease.pojo.entity.MoodMonthlyStat;
 import com.mindease.pojo.vo.*;
 import com.mindease.service.MoodService;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,12 +44,65 @@ public class MoodServiceImpl implements MoodService {
     @Autowired
     private MoodLogMapper moodLogMapper;
 
+    @Autowired
+    private MoodDailyStatMapper moodDailyStatMapper;
+
+    @Autowired
+    private MoodMonthlyStatMapper moodMonthlyStatMapper;
+
     @Autowired
     private ConsultantService consultantService;
+
+    @Autowired
+    @Qualifier("moodAnalysisExecutor")
+    private ThreadPoolTaskExecutor moodAnalysisExecutor;
+
+    private static final String DEFAULT_ANALYSIS = "今天也很棒，无论如何请继续加油";
+
+    private static final String ANALYSIS_PENDING = "PENDING";
+
+    private static final String ANALYSIS_COMPLETED = "COMPLETED";
+
+    // 补偿扫描间隔（分钟），小于等于0时只在启动时扫描一次
+    @Value("${mindease.mood-analysis.sweep-interval-minutes:10}")
+    private long sweepIntervalMinutes;
+
+    // 创建超过该时长（分钟）仍未回写分析的日记才重新提交，避免与正常排队的任务重复
+    @Value("${mindease.mood-analysis.sweep-grace-minutes:5}")
+    private long sweepGraceMinutes;
+
+    // 只补偿最近该时长（小时）内创建的日记，扫描范围不随日记总量增长；更早仍未分析的日记不再重试
+    @Value("${mindease.mood-analysis.sweep-lookback-hours:24}")
+    private long sweepLookbackHours;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final ScheduledExecutorService sweepExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mood-analysis-sweep");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 应用就绪后扫描一次未完成分析的日记，并按配置定时扫描
+     * 分析任务只存在于内存队列，进程重启或事务提交后提交任务前宕机都会留下 ai_analysis 为空的日记，由此重新提交
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPendingAnalysisSweep() {
+        if (sweepIntervalMinutes > 0) {
+            sweepExecutor.scheduleWithFixedDelay(this::resubmitPendingAnalysesQuietly, 0, sweepIntervalMinutes, TimeUnit.MINUTES);
+        } else {
+            sweepExecutor.execute(this::resubmitPendingAnalysesQuietly);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sweepExecutor.shutdownNow();
+    }
+
     @Override
+    @Transactional
     public MoodLogVO submitMoodLog(MoodLogDTO moodLogDTO, Long userId) {
         // 创建MoodLog实体
         MoodLog moodLog = new MoodLog();
@@ -53,43 +123,109 @@ public class MoodServiceImpl implements MoodService {
             moodLog.setTags("[]");
         }
 
-        // 构建情绪分析提示
-        String moodPrompt = buildMoodAnalysisPrompt(moodLogDTO);
-
-        // 调用AI服务获取情绪分析
-        String aiAnalysis = getMoodAnalysis(moodPrompt, userId);
-
-        moodLog.setAiAnalysis(aiAnalysis);
-        
         // 设置创建时间
         moodLog.setCreateTime(LocalDateTime.now());
         
-        // 插入数据库
+        // 先插入数据库，AI分析为空表示分析中
         moodLogMapper.insert(moodLog);
+
+        // 同一事务内累加日统计与月统计
+        LocalDate statDate = moodLog.getLogDate().toLocalDate();
+        moodDailyStatMapper.increment(userId, statDate, moodLog.getMoodType(),
+                moodLog.getMoodScore(), isPositive(moodLog.getMoodScore()));
+        moodMonthlyStatMapper.increment(userId, statDate.withDayOfMonth(1), moodLog.getMoodType(),
+                moodLog.getMoodScore(), isPositive(moodLog.getMoodScore()));
+
+        // AI情绪分析放到后台线程池执行，完成后回写 ai_analysis，客户端通过 /mood/log/{id}/analysis 轮询结果
+        // 事务提交后再提交任务，避免后台线程回写时日记尚未提交
+        String moodPrompt = buildMoodAnalysisPrompt(moodLogDTO.getMoodType(), moodLogDTO.getMoodScore(),
+                moodLogDTO.getContent(), moodLogDTO.getTags());
+        Long logId = moodLog.getId();
+        TransactionUtil.afterCommit(() -> submitMoodAnalysis(logId, moodPrompt, userId));
         
         // 构建返回结果
         MoodLogVO moodLogVO = new MoodLogVO();
         moodLogVO.setLogId(moodLog.getId());
-        moodLogVO.setAiAnalysis(moodLog.getAiAnalysis());
+        moodLogVO.setAnalysisStatus(ANALYSIS_PENDING);
         
         return moodLogVO;
     }
 
+    @Override
+    public MoodLogVO getMoodAnalysis(Long id, Long userId) {
+        MoodLog moodLog = moodLogMapper.getById(id);
+        if (moodLog == null || !moodLog.getUserId().equals(userId)) {
+            throw new BaseException("情绪日记不存在");
+        }
+
+        MoodLogVO moodLogVO = new MoodLogVO();
+        moodLogVO.setLogId(moodLog.getId());
+        moodLogVO.setAiAnalysis(moodLog.getAiAnalysis());
+        moodLogVO.setAnalysisStatus(moodLog.getAiAnalysis() == null ? ANALYSIS_PENDING : ANALYSIS_COMPLETED);
+        return moodLogVO;
+    }
+
+    /**
+     * 提交后台情绪分析任务，线程池已满时直接回写默认回复，保证日记不会一直处于分析中
+     */
+    private void submitMoodAnalysis(Long logId, String prompt, Long userId) {
+        try {
+            moodAnalysisExecutor.execute(() -> {
+                String aiAnalysis = requestMoodAnalysis(prompt);
+                moodLogMapper.updateAiAnalysis(logId, aiAnalysis);
+                log.info("情绪日记AI分析已回写，日记ID: {}", logId);
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("情绪分析队列已满，使用默认回复，日记ID: {}", logId);
+            moodLogMapper.updateAiAnalysis(logId, DEFAULT_ANALYSIS);
+        }
+    }
+
+    private void resubmitPendingAnalysesQuietly() {
+        try {
+            resubmitPendingAnalyses();
+        } catch (Exception e) {
+            log.error("补偿提交情绪分析任务失败", e);
+        }
+    }
+
+    /**
+     * 重新提交 ai_analysis 仍为空的日记，每次最多提交线程池队列的剩余容量，不挤占新日记的分析
+     */
+    private void resubmitPendingAnalyses() {
+        int capacity = moodAnalysisExecutor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (capacity <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<MoodLog> pending = moodLogMapper.listPendingAnalysis(
+                now.minusHours(sweepLookbackHours), now.minusMinutes(sweepGraceMinutes), capacity);
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.info("重新提交未完成的情绪分析，数量: {}", pending.size());
+        for (MoodLog moodLog : pending) {
+            String prompt = buildMoodAnalysisPrompt(moodLog.getMoodType(), moodLog.getMoodScore(),
+                    moodLog.getContent(), parseTags(moodLog.getTags()));
+            submitMoodAnalysis(moodLog.getId(), prompt, moodLog.getUserId());
+        }
+    }
+
     /**
      * 构建情绪分析提示
      */
-    private String buildMoodAnalysisPrompt(MoodLogDTO moodLogDTO) {
+    private String buildMoodAnalysisPrompt(String moodType, Integer moodScore, String content, List<String> tags) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("我正在记录我的情绪日记，请根据以下信息为我提供情绪分析和建议：\n");
-        prompt.append("情绪类型：").append(moodLogDTO.getMoodType()).append("\n");
-        prompt.append("情绪评分：").append(moodLogDTO.getMoodScore()).append("/10\n");
+        prompt.append("情绪类型：").append(moodType).append("\n");
+        prompt.append("情绪评分：").append(moodScore).append("/10\n");
 
-        if (moodLogDTO.getContent() != null && !moodLogDTO.getContent().isEmpty()) {
-            prompt.append("情绪描述：").append(moodLogDTO.getContent()).append("\n");
+        if (content != null && !content.isEmpty()) {
+            prompt.append("情绪描述：").append(content).append("\n");
         }
 
-        if (moodLogDTO.getTags() != null && !moodLogDTO.getTags().isEmpty()) {
-            prompt.append("相关标签：").append(String.join("、", moodLogDTO.getTags())).append("\n");
+        if (tags != null && !tags.isEmpty()) {
+            prompt.append("相关标签：").append(String.join("、", tags)).append("\n");
         }
 
         prompt.append("\n请给我一个简短、温暖、专业的情绪分析和建议，帮助我更好地理解和处理这种情绪。");
@@ -98,9 +234,9 @@ public class MoodServiceImpl implements MoodService {
     }
 
     /**
-     * 获取AI情绪分析
+     * 请求AI情绪分析，失败或响应为空时返回默认回复
      */
-    private String getMoodAnalysis(String prompt, Long userId) {
+    private String requestMoodAnalysis(String prompt) {
         try {
             // 使用不需要会话ID的analyzeMood方法
             String aiResponse = consultantService.analyzeMood(prompt);
@@ -109,14 +245,14 @@ public class MoodServiceImpl implements MoodService {
 
             // 如果响应为空或出错，使用默认回复
             if (aiResponse == null || aiResponse.trim().isEmpty()) {
-                return "今天也很棒，无论如何请继续加油";
+                return DEFAULT_ANALYSIS;
             }
 
             return aiResponse;
         } catch (Exception e) {
             log.error("获取AI情绪分析失败", e);
             // 出错时使用默认回复
-            return "今天也很棒，无论如何请继续加油";
+            return DEFAULT_ANALYSIS;
         }
     }
 
@@ -154,10 +290,27 @@ public class MoodServiceImpl implements MoodService {
     }
 
     @Override
+    @Transactional
     public Boolean deleteMoodLog(Long id) {
         log.info("删除情绪日记，ID: {}", id);
 
+        MoodLog moodLog = moodLogMapper.getScoreById(id);
+        if (moodLog == null) {
+            return false;
+        }
+
         int result = moodLogMapper.deleteById(id);
+        if (result > 0) {
+            // 同一事务内扣减日统计与月统计，当天/当月已无日记时删除统计行
+            LocalDate statDate = moodLog.getLogDate().toLocalDate();
+            moodDailyStatMapper.decrement(moodLog.getUserId(), statDate, moodLog.getMoodType(),
+                    moodLog.getMoodScore(), isPositive(moodLog.getMoodScore()));
+            moodDailyStatMapper.deleteEmpty(moodLog.getUserId(), statDate);
+            LocalDate statMonth = statDate.withDayOfMonth(1);
+            moodMonthlyStatMapper.decrement(moodLog.getUserId(), statMonth, moodLog.getMoodType(),
+                    moodLog.getMoodScore(), isPositive(moodLog.getMoodScore()));
+            moodMonthlyStatMapper.deleteEmpty(moodLog.getUserId(), statMonth);
+        }
         return result > 0;
     }
 
@@ -166,15 +319,14 @@ public class MoodServiceImpl implements MoodService {
         log.info("获取情绪趋势，用户ID: {}, 天数: {}", userId, days);
 
         // 计算日期范围
-        LocalDateTime endDate = LocalDateTime.now();
-        LocalDateTime startDate = endDate.minusDays(days);
-        
-        // 查询指定时间范围内的情绪日志
-        List<MoodLog> moodLogs = moodLogMapper.getByUserIdAndDateRange(userId, startDate, endDate);
+        LocalDate today = LocalDate.now();
         
-        // 按日期分组，计算每日平均分
-        Map<LocalDate, List<MoodLog>> logsByDate = moodLogs.stream()
-                .collect(Collectors.groupingBy(log -> log.getLogDate().toLocalDate()));
+        // 从日统计表读取含今天在内最近 days 天的每日汇总，读取量与天数成正比，与日记条数无关
+        List<MoodDailyStat> dailyStats = moodDailyStatMapper.getDailyStats(userId, today.minusDays(days - 1), today);
+        Map<LocalDate, MoodDailyStat> statsByDate = new HashMap<>();
+        for (MoodDailyStat stat : dailyStats) {
+            statsByDate.put(stat.getStatDate(), stat);
+        }
         
         // 生成连续日期列表
         List<String> dates = new ArrayList<>();
@@ -182,35 +334,31 @@ public class MoodServiceImpl implements MoodService {
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd");
         for (int i = days - 1; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
+            LocalDate date = today.minusDays(i);
             dates.add(date.format(formatter));
             
-            List<MoodLog> dailyLogs = logsByDate.get(date);
-            if (dailyLogs != null && !dailyLogs.isEmpty()) {
-                int avgScore = (int) Math.round(dailyLogs.stream()
-                        .mapToInt(MoodLog::getMoodScore)
-                        .average()
-                        .orElse(0.0));
-                scores.add(avgScore);
+            MoodDailyStat dailyStat = statsByDate.get(date);
+            if (dailyStat != null && dailyStat.getLogCount() > 0) {
+                scores.add((int) Math.round((double) dailyStat.getScoreSum() / dailyStat.getLogCount()));
             } else {
                 scores.add(0);
             }
         }
         
-        // 计算整体平均分
-        double avgScore = moodLogs.stream()
-                .mapToInt(MoodLog::getMoodScore)
-                .average()
-                .orElse(0.0);
-        
-        // 计算积极情绪比例（评分>=6为积极）
-        long positiveCount = moodLogs.stream()
-                .filter(log -> log.getMoodScore() >= 6)
-                .count();
-        double positiveRate = moodLogs.isEmpty() ? 0.0 : (double) positiveCount / moodLogs.size();
+        // 计算整体平均分与积极情绪比例（评分>=6为积极）
+        long totalCount = 0;
+        long scoreSum = 0;
+        long positiveCount = 0;
+        for (MoodDailyStat stat : dailyStats) {
+            totalCount += stat.getLogCount();
+            scoreSum += stat.getScoreSum();
+            positiveCount += stat.getPositiveCount();
+        }
+        double avgScore = totalCount == 0 ? 0.0 : (double) scoreSum / totalCount;
+        double positiveRate = totalCount == 0 ? 0.0 : (double) positiveCount / totalCount;
         
         // 计算连续记录天数
-        int continuousDays = calculateContinuousDays(moodLogs);
+        int continuousDays = calculateContinuousDays(statsByDate.keySet());
         
         return MoodTrendVO.builder()
                 .dates(dates)
@@ -225,26 +373,26 @@ public class MoodServiceImpl implements MoodService {
     public MoodStatisticsVO getMoodStatistics(Long userId) {
         log.info("获取情绪统计，用户ID: {}", userId);
 
-        // 查询情绪类型分布
-        List<MoodLogMapper.MoodTypeCount> typeCounts = moodLogMapper.getMoodTypeDistribution(userId);
+        // 从月统计表按情绪类型汇总，读取量与记录的月数成正比
+        List<MoodMonthlyStat> typeStats = moodMonthlyStatMapper.getTypeStats(userId);
         
-        // 计算总数
-        int totalLogs = typeCounts.stream()
-                .mapToInt(count -> count.getCount().intValue())
-                .sum();
+        // 计算总数与评分总和
+        int totalLogs = 0;
+        long scoreSum = 0;
+        for (MoodMonthlyStat stat : typeStats) {
+            totalLogs += stat.getLogCount();
+            scoreSum += stat.getScoreSum();
+        }
         
         // 转换为百分比分布
         Map<String, String> distribution = new HashMap<>();
-        for (MoodLogMapper.MoodTypeCount count : typeCounts) {
-            double percentage = totalLogs == 0 ? 0.0 : (count.getCount().doubleValue() / totalLogs) * 100;
-            distribution.put(count.getMoodType().toLowerCase(), String.format("%.0f%%", percentage));
+        for (MoodMonthlyStat stat : typeStats) {
+            double percentage = totalLogs == 0 ? 0.0 : (stat.getLogCount().doubleValue() / totalLogs) * 100;
+            distribution.put(stat.getMoodType().toLowerCase(), String.format("%.0f%%", percentage));
         }
         
         // 计算平均分
-        Double avgScore = moodLogMapper.getAverageScoreByUserId(userId);
-        if (avgScore == null) {
-            avgScore = 0.0;
-        }
+        double avgScore = totalLogs == 0 ? 0.0 : (double) scoreSum / totalLogs;
         
         return MoodStatisticsVO.builder()
                 .distribution(distribution)
@@ -271,15 +419,7 @@ public class MoodServiceImpl implements MoodService {
      * 将MoodLog转换为MoodLogDetailVO
      */
     private MoodLogDetailVO convertToMoodLogDetailVO(MoodLog moodLog) {
-        // 解析标签JSON
-        List<String> tags = new ArrayList<>();
-        if (moodLog.getTags() != null && !moodLog.getTags().isEmpty()) {
-            try {
-                tags = objectMapper.readValue(moodLog.getTags(), new TypeReference<List<String>>() {});
-            } catch (JsonProcessingException e) {
-                log.error("标签JSON解析失败", e);
-            }
-        }
+        List<String> tags = parseTags(moodLog.getTags());
         
         return MoodLogDetailVO.builder()
                 .id(moodLog.getId())
@@ -311,31 +451,36 @@ public class MoodServiceImpl implements MoodService {
     }
 
     /**
-     * 计算连续记录天数
+     * 计算从今天往前的连续记录天数
      */
-    private int calculateContinuousDays(List<MoodLog> logs) {
-        if (logs.isEmpty()) {
-            return 0;
-        }
-
-        // 按日期降序排序（最新的在前）
-        List<LocalDate> dates = logs.stream()
-                .map(log -> log.getLogDate().toLocalDate())
-                .distinct()
-                .sorted((d1, d2) -> d2.compareTo(d1))
-                .collect(Collectors.toList());
-
-        // 从今天开始计算连续天数
+    private int calculateContinuousDays(Set<LocalDate> recordedDates) {
         LocalDate today = LocalDate.now();
         int continuousDays = 0;
-        
-        for (LocalDate date : dates) {
-            if (!date.isEqual(today.minusDays(continuousDays))) {
-                break;
-            }
+        while (recordedDates.contains(today.minusDays(continuousDays))) {
             continuousDays++;
         }
-        
         return continuousDays;
     }
-}
\ No newline at end of file
+
+    /**
+     * 评分>=6为积极情绪
+     */
+    private int isPositive(Integer moodScore) {
+        return moodScore != null && moodScore >= 6 ? 1 : 0;
+    }
+
+    /**
+     * 解析标签JSON，解析失败时返回空列表
+     */
+    private List<String> parseTags(String tagsJson) {
+        if (tagsJson == null || tagsJson.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(tagsJson, new TypeReference<List<String>>() {});
+        } catch (JsonProcessingException e) {
+            log.error("标签JSON解析失败", e);
+            return new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.mindease.service.impl;
+
+import com.mindease.common.constant.MessageConstant;
+import com.mindease.common.exception.BaseException;
+import com.mindease.common.utils.PdfExportUtil;
+import com.mindease.mapper.AppointmentMapper;
+import com.mindease.mapper.MoodLogMapper;
+import com.mindease.pojo.vo.EmotionReportVO;
+import com.mindease.pojo.vo.ReportExportJobVO;
+import com.mindease.service.ReportExportService;
+import com.mindease.service.ReportService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 异步报告导出
+ * 报告汇总、图表与PDF生成在导出线程池中执行，生成的文件按“用户ID-数据版本”缓存在本地目录，
+ * 数据未变化时重复导出直接复用缓存文件；缓存文件与任务记录超过保留时间后清理。
+ */
+@Service
+@Slf4j
+public class ReportExportServiceImpl implements ReportExportService {
+
+    private static final String STATUS_PENDING = "PENDING";
+
+    private static final String STATUS_RUNNING = "RUNNING";
+
+    private static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final String FILE_SUFFIX = ".pdf";
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private PdfExportUtil pdfExportUtil;
+
+    @Autowired
+    private MoodLogMapper moodLogMapper;
+
+    @Autowired
+    private AppointmentMapper appointmentMapper;
+
+    @Autowired
+    @Qualifier("reportExportExecutor")
+    private ThreadPoolTaskExecutor reportExportExecutor;
+
+    @Value("${mindease.report-export.cache-directory:data/report-cache}")
+    private String cacheDirectory;
+
+    @Value("${mindease.report-export.cache-ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    private Path directory;
+
+    // 任务ID -> 任务
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    // 发起人 + 缓存键 -> 未完成的任务，相同导出请求共用一个任务
+    private final Map<String, ExportJob> activeJobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Paths.get(cacheDirectory);
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public boolean canExport(Long requesterId, String role, Long userId) {
+        if (requesterId == null || userId == null) {
+            return false;
+        }
+        if (requesterId.equals(userId)) {
+            return true;
+        }
+        // 咨询师只能导出与自己有预约关系的用户的报告
+        return "COUNSELOR".equalsIgnoreCase(role) && appointmentMapper.count(userId, requesterId, null) > 0;
+    }
+
+    @Override
+    public ReportExportJobVO submitExport(Long userId, Long requesterId) {
+        cleanUp();
+
+        // 数据版本在日志新增或删除后变化，版本不变时缓存文件仍然有效
+        String cacheKey = userId + "-" + moodLogMapper.getDataVersion(userId);
+        Path file = directory.resolve(cacheKey + FILE_SUFFIX);
+        String fileName = fileName(userId, requesterId);
+
+        if (isFresh(file)) {
+            ExportJob job = new ExportJob(userId, requesterId, fileName);
+            job.complete(file);
+            jobs.put(job.jobId, job);
+            log.info("报告导出命中缓存，用户ID: {}，任务ID: {}", userId, job.jobId);
+            return job.toVO();
+        }
+
+        String activeKey = requesterId + ":" + cacheKey;
+        ExportJob created = new ExportJob(userId, requesterId, fileName);
+        ExportJob existing = activeJobs.putIfAbsent(activeKey, created);
+        if (existing != null) {
+            return existing.toVO();
+        }
+        jobs.put(created.jobId, created);
+
+        try {
+            reportExportExecutor.execute(() -> runExport(created, file, activeKey));
+        } catch (TaskRejectedException e) {
+            log.warn("报告导出队列已满，用户ID: {}", userId);
+            jobs.remove(created.jobId);
+            activeJobs.remove(activeKey, created);
+            throw new BaseException(MessageConstant.SYSTEM_BUSY);
+        }
+        log.info("报告导出任务已提交，用户ID: {}，任务ID: {}", userId, created.jobId);
+        return created.toVO();
+    }
+
+    @Override
+    public ReportExportJobVO getJob(String jobId, Long requesterId) {
+        return findJob(jobId, requesterId).toVO();
+    }
+
+    @Override
+    public Path getJobFile(String jobId, Long requesterId) {
+        ExportJob job = findJob(jobId, requesterId);
+        if (!STATUS_COMPLETED.equals(job.status)) {
+            throw new BaseException("报告尚未生成完成");
+        }
+        if (!Files.exists(job.file)) {
+            throw new BaseException("报告文件已过期，请重新导出");
+        }
+        return job.file;
+    }
+
+    private ExportJob findJob(String jobId, Long requesterId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || !job.requesterId.equals(requesterId)) {
+            throw new BaseException("导出任务不存在");
+        }
+        return job;
+    }
+
+    /**
+     * 生成报告并写入缓存文件，先写临时文件再原子替换，避免读到写了一半的文件
+     */
+    private void runExport(ExportJob job, Path file, String activeKey) {
+        job.status = STATUS_RUNNING;
+        Path temp = directory.resolve(job.jobId + ".tmp");
+        try {
+            EmotionReportVO report = reportService.generateOverallReport(job.userId);
+            try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                pdfExportUtil.writeEmotionReportPdf(report, outputStream);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(file);
+            deleteOtherVersions(job.userId, file);
+            log.info("报告导出完成，用户ID: {}，任务ID: {}", job.userId, job.jobId);
+        } catch (Exception e) {
+            log.error("报告导出失败，用户ID: {}，任务ID: {}", job.userId, job.jobId, e);
+            job.fail("导出报告失败");
+            deleteQuietly(temp);
+        } finally {
+            activeJobs.remove(activeKey, job);
+        }
+    }
+
+    private boolean isFresh(Path file) {
+        try {
+            return Files.exists(file) && !isExpired(Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(long timestampMillis) {
+        return System.currentTimeMillis() - timestampMillis > TimeUnit.MINUTES.toMillis(cacheTtlMinutes);
+    }
+
+    /**
+     * 清理过期的任务记录与缓存文件
+     */
+    private void cleanUp() {
+        jobs.values().removeIf(job -> isExpired(job.createdAt)
+                && (STATUS_COMPLETED.equals(job.status) || STATUS_FAILED.equals(job.status)));
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .filter(path -> !isFresh(path))
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("清理报告缓存目录失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 删除同一用户旧数据版本的缓存文件
+     */
+    private void deleteOtherVersions(Long userId, Path current) {
+        String prefix = userId + "-";
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith(prefix))
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .filter(path -> !path.equals(current))
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("清理旧版本报告缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除报告缓存文件失败: {}", path);
+        }
+    }
+
+    private String fileName(Long userId, Long requesterId) {
+        if (userId.equals(requesterId)) {
+            return "情绪报告" + FILE_SUFFIX;
+        }
+        return "用户情绪档案_" + userId + FILE_SUFFIX;
+    }
+
+    private static final class ExportJob {
+
+        private final String jobId = UUID.randomUUID().toString();
+
+        private final Long userId;
+
+        private final Long requesterId;
+
+        private final String fileName;
+
+        private final LocalDateTime createTime = LocalDateTime.now();
+
+        private final long createdAt = System.currentTimeMillis();
+
+        private volatile String status = STATUS_PENDING;
+
+        private volatile Path file;
+
+        private volatile String message;
+
+        private ExportJob(Long userId, Long requesterId, String fileName) {
+            this.userId = userId;
+            this.requesterId = requesterId;
+            this.fileName = fileName;
+        }
+
+        private void complete(Path file) {
+            this.file = file;
+            this.status = STATUS_COMPLETED;
+        }
+
+        private void fail(String message) {
+            this.message = message;
+            this.status = STATUS_FAILED;
+        }
+
+        private ReportExportJobVO toVO() {
+            boolean completed = STATUS_COMPLETED.equals(status);
+            return ReportExportJobVO.builder()
+                    .jobId(jobId)
+                    .userId(userId)
+                    .status(status)
+                    .fileName(completed ? fileName : null)
+                    .message(message)
+                    .createTime(createTime)
+                    .build();
+        }
+    }
+}
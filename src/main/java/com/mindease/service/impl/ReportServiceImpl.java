@@ -1,10 +1,16 @@
 package com.mindease.service.impl;
 
+import com.mindease.mapper.MoodDailyStatMapper;
 import com.mindease.mapper.MoodLogMapper;
-import com.mindease.pojo.entity.MoodLog;
+import com.mindease.mapper.MoodMonthlyStatMapper;
+import com.mindease.mapper.MoodLogMapper.MoodLogDigest;
+import com.mindease.pojo.entity.MoodDailyStat;
+import com.mindease.pojo.entity.MoodMonthlyStat;
 import com.mindease.pojo.vo.EmotionReportVO;
 import com.mindease.service.ReportService;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -19,28 +25,41 @@ import java.util.Arrays;
 @Slf4j
 public class ReportServiceImpl implements ReportService {
 
+    // 报告中展示的最近日记条数
+    private static final int RECENT_LOG_COUNT = 5;
+
     @Autowired
     private MoodLogMapper moodLogMapper;
 
+    @Autowired
+    private MoodDailyStatMapper moodDailyStatMapper;
+
+    @Autowired
+    private MoodMonthlyStatMapper moodMonthlyStatMapper;
+
     @Override
     public EmotionReportVO generateEmotionReport(Long userId, LocalDate startDate, LocalDate endDate) {
         log.info("生成情绪报告，用户ID: {}, 开始日期: {}, 结束日期: {}", userId, startDate, endDate);
 
-        // 查询指定时间范围内的情绪日志
+        // 流式读取指定时间范围内的情绪日志，边读边累加统计，内存占用与日志条数无关
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        List<MoodLog> moodLogs = moodLogMapper.getByUserIdAndDateRange(userId, startDateTime, endDateTime);
+        ReportAccumulator accumulator = new ReportAccumulator();
+        moodLogMapper.streamDigestsByUserIdAndDateRange(userId, startDateTime, endDateTime, accumulator);
+        
+        double avgScore = accumulator.getAverageScore();
+        double positiveRate = accumulator.getPositiveRate();
         
         // 构建报告
         return EmotionReportVO.builder()
                 .period(generatePeriodString(startDate, endDate))
-                .avgScore(calculateAverageScore(moodLogs))
-                .positiveRate(calculatePositiveRate(moodLogs))
-                .continuousDays(calculateContinuousDays(moodLogs))
-                .trendData(buildTrendData(moodLogs, startDate, endDate))
-                .distribution(calculateDistribution(moodLogs))
-                .recentLogs(buildRecentLogs(moodLogs))
-                .aiSuggestions(generateAiSuggestions(moodLogs))
+                .avgScore(avgScore)
+                .positiveRate(positiveRate)
+                .continuousDays(accumulator.getMaxContinuousDays())
+                .trendData(buildTrendData(accumulator, startDate, endDate))
+                .distribution(calculateDistribution(accumulator))
+                .recentLogs(buildRecentLogs(accumulator.getRecentLogs()))
+                .aiSuggestions(generateAiSuggestions(accumulator.getTotalCount(), avgScore, positiveRate))
                 .build();
     }
 
@@ -48,28 +67,43 @@ public class ReportServiceImpl implements ReportService {
     public EmotionReportVO generateOverallReport(Long userId) {
         log.info("生成用户整体情绪报告，用户ID: {}", userId);
 
-        // 查询用户所有情绪日志
-        List<MoodLog> allMoodLogs = getAllUserMoodLogs(userId);
+        // 读取用户全部日统计（按日期升序），不再扫描情绪日志
+        List<MoodDailyStat> dailyStats = moodDailyStatMapper.getDailyStats(userId, null, null);
         
-        if (allMoodLogs.isEmpty()) {
+        if (dailyStats.isEmpty()) {
             log.info("用户 {} 暂无情绪记录", userId);
             return buildEmptyReport(userId);
         }
 
         // 获取最早和最晚的记录日期
-        LocalDate startDate = getEarliestLogDate(allMoodLogs);
-        LocalDate endDate = getLatestLogDate(allMoodLogs);
+        LocalDate startDate = dailyStats.get(0).getStatDate();
+        LocalDate endDate = dailyStats.get(dailyStats.size() - 1).getStatDate();
+
+        long totalCount = 0;
+        long scoreSum = 0;
+        long positiveCount = 0;
+        for (MoodDailyStat stat : dailyStats) {
+            totalCount += stat.getLogCount();
+            scoreSum += stat.getScoreSum();
+            positiveCount += stat.getPositiveCount();
+        }
+        double avgScore = Math.round((double) scoreSum / totalCount * 10.0) / 10.0;
+        double positiveRate = Math.round((double) positiveCount / totalCount * 100.0) / 100.0;
+        int continuousDays = calculateMaxContinuousDays(dailyStats);
+
+        // 只有最近几条日记需要读取内容
+        List<MoodLogDigest> recentMoodLogs = moodLogMapper.getDigestsByUserId(userId, RECENT_LOG_COUNT);
         
         // 构建整体报告
         return EmotionReportVO.builder()
                 .period(generateOverallPeriodString(startDate, endDate))
-                .avgScore(calculateAverageScore(allMoodLogs))
-                .positiveRate(calculatePositiveRate(allMoodLogs))
-                .continuousDays(calculateContinuousDays(allMoodLogs))
-                .trendData(buildOverallTrendData(allMoodLogs))
-                .distribution(calculateDistribution(allMoodLogs))
-                .recentLogs(buildRecentLogs(allMoodLogs))
-                .aiSuggestions(generateOverallAiSuggestions(allMoodLogs))
+                .avgScore(avgScore)
+                .positiveRate(positiveRate)
+                .continuousDays(continuousDays)
+                .trendData(buildOverallTrendData(dailyStats))
+                .distribution(calculateOverallDistribution(moodMonthlyStatMapper.getTypeStats(userId), totalCount))
+                .recentLogs(buildRecentLogs(recentMoodLogs))
+                .aiSuggestions(generateOverallAiSuggestions(avgScore, positiveRate, continuousDays))
                 .build();
     }
 
@@ -105,72 +139,10 @@ public class ReportServiceImpl implements ReportService {
                 endDate.getMonthValue() + "月";
     }
 
-    /**
-     * 计算平均情绪分数
-     */
-    private Double calculateAverageScore(List<MoodLog> moodLogs) {
-        if (moodLogs.isEmpty()) {
-            return 0.0;
-        }
-        double avgScore = moodLogs.stream()
-                .mapToInt(MoodLog::getMoodScore)
-                .average()
-                .orElse(0.0);
-        return Math.round(avgScore * 10.0) / 10.0;
-    }
-
-    /**
-     * 计算积极情绪比例（评分>=6为积极）
-     */
-    private Double calculatePositiveRate(List<MoodLog> moodLogs) {
-        if (moodLogs.isEmpty()) {
-            return 0.0;
-        }
-        long positiveCount = moodLogs.stream()
-                .filter(log -> log.getMoodScore() >= 6)
-                .count();
-        double positiveRate = (double) positiveCount / moodLogs.size();
-        return Math.round(positiveRate * 100.0) / 100.0;
-    }
-
-    /**
-     * 计算连续记录天数
-     */
-    private Integer calculateContinuousDays(List<MoodLog> moodLogs) {
-        if (moodLogs.isEmpty()) {
-            return 0;
-        }
-        
-        // 获取所有有记录的日期并排序
-        List<LocalDate> dates = moodLogs.stream()
-                .map(log -> log.getLogDate().toLocalDate())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-        
-        int maxContinuous = 0;
-        int currentContinuous = 1;
-        
-        for (int i = 1; i < dates.size(); i++) {
-            if (dates.get(i).minusDays(1).equals(dates.get(i - 1))) {
-                currentContinuous++;
-                maxContinuous = Math.max(maxContinuous, currentContinuous);
-            } else {
-                currentContinuous = 1;
-            }
-        }
-        
-        return Math.max(maxContinuous, currentContinuous);
-    }
-
     /**
      * 构建趋势数据
      */
-    private EmotionReportVO.TrendData buildTrendData(List<MoodLog> moodLogs, LocalDate startDate, LocalDate endDate) {
-        // 按日期分组
-        Map<LocalDate, List<MoodLog>> logsByDate = moodLogs.stream()
-                .collect(Collectors.groupingBy(log -> log.getLogDate().toLocalDate()));
-        
+    private EmotionReportVO.TrendData buildTrendData(ReportAccumulator accumulator, LocalDate startDate, LocalDate endDate) {
         List<String> dates = new ArrayList<>();
         List<Integer> scores = new ArrayList<>();
         
@@ -180,18 +152,7 @@ public class ReportServiceImpl implements ReportService {
         LocalDate currentDate = startDate;
         while (!currentDate.isAfter(endDate)) {
             dates.add(currentDate.format(formatter));
-            
-            List<MoodLog> dailyLogs = logsByDate.get(currentDate);
-            if (dailyLogs != null && !dailyLogs.isEmpty()) {
-                int avgScore = (int) Math.round(dailyLogs.stream()
-                        .mapToInt(MoodLog::getMoodScore)
-                        .average()
-                        .orElse(0.0));
-                scores.add(avgScore);
-            } else {
-                scores.add(0);
-            }
-            
+            scores.add(accumulator.getDailyAverageScore(currentDate));
             currentDate = currentDate.plusDays(1);
         }
         
@@ -204,23 +165,16 @@ public class ReportServiceImpl implements ReportService {
     /**
      * 计算情绪类型分布
      */
-    private Map<String, String> calculateDistribution(List<MoodLog> moodLogs) {
-        if (moodLogs.isEmpty()) {
+    private Map<String, String> calculateDistribution(ReportAccumulator accumulator) {
+        if (accumulator.getTotalCount() == 0) {
             return Map.of("happy", "0%", "neutral", "0%", "sad", "0%");
         }
         
-        // 统计每种情绪类型的数量
-        Map<String, Long> typeCounts = moodLogs.stream()
-                .collect(Collectors.groupingBy(
-                        MoodLog::getMoodType,
-                        Collectors.counting()
-                ));
-        
         // 转换为百分比
         Map<String, String> distribution = new HashMap<>();
-        int total = moodLogs.size();
+        long total = accumulator.getTotalCount();
         
-        for (Map.Entry<String, Long> entry : typeCounts.entrySet()) {
+        for (Map.Entry<String, Long> entry : accumulator.getTypeCounts().entrySet()) {
             double percentage = (entry.getValue().doubleValue() / total) * 100;
             distribution.put(entry.getKey().toLowerCase(), String.format("%.0f%%", percentage));
         }
@@ -231,11 +185,11 @@ public class ReportServiceImpl implements ReportService {
     /**
      * 构建最近的情绪日志
      */
-    private List<EmotionReportVO.RecentLog> buildRecentLogs(List<MoodLog> moodLogs) {
+    private List<EmotionReportVO.RecentLog> buildRecentLogs(List<MoodLogDigest> moodLogs) {
         // 获取最近5条日志
-        List<MoodLog> recentMoodLogs = moodLogs.stream()
+        List<MoodLogDigest> recentMoodLogs = moodLogs.stream()
                 .sorted((a, b) -> b.getLogDate().compareTo(a.getLogDate()))
-                .limit(5)
+                .limit(RECENT_LOG_COUNT)
                 .collect(Collectors.toList());
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd");
@@ -245,7 +199,8 @@ public class ReportServiceImpl implements ReportService {
                         .date(log.getLogDate().format(formatter))
                         .moodType(log.getMoodType())
                         .score(log.getMoodScore())
-                        .content(log.getContent())
+                        // 只有最近几条的日记内容会被解密
+                        .content(log.getContent() != null ? log.getContent().get() : null)
                         .build())
                 .collect(Collectors.toList());
     }
@@ -253,19 +208,16 @@ public class ReportServiceImpl implements ReportService {
     /**
      * 生成AI建议
      */
-    private List<String> generateAiSuggestions(List<MoodLog> moodLogs) {
+    private List<String> generateAiSuggestions(long totalCount, double avgScore, double positiveRate) {
         List<String> suggestions = new ArrayList<>();
         
-        if (moodLogs.isEmpty()) {
+        if (totalCount == 0) {
             suggestions.add("建议开始记录情绪，了解自己的情绪变化规律");
             suggestions.add("每天花几分钟记录自己的感受，有助于情绪管理");
             return suggestions;
         }
         
         // 分析情绪数据，生成个性化建议
-        double avgScore = calculateAverageScore(moodLogs);
-        double positiveRate = calculatePositiveRate(moodLogs);
-        
         if (avgScore < 5) {
             suggestions.add("近期情绪偏低，建议尝试运动、冥想等方式提升情绪");
             suggestions.add("可以尝试与朋友交流，分享自己的感受");
@@ -293,19 +245,36 @@ public class ReportServiceImpl implements ReportService {
     }
 
     /**
-     * 获取用户所有情绪日志
+     * 计算最长连续记录天数（日统计按日期升序）
      */
-    private List<MoodLog> getAllUserMoodLogs(Long userId) {
-        // 查询用户所有情绪日志，按时间倒序排列
-        List<MoodLog> allLogs = moodLogMapper.getByUserIdWithPagination(userId, 1000, 0); // 假设最多1000条记录
-        
-        // 如果需要获取所有记录，可能需要分页查询
-        Long totalCount = moodLogMapper.countByUserIdWithTotal(userId);
-        if (totalCount > 1000) {
-            log.warn("用户 {} 情绪记录超过1000条，仅分析最近1000条记录", userId);
+    private int calculateMaxContinuousDays(List<MoodDailyStat> dailyStats) {
+        int maxContinuous = 0;
+        int currentContinuous = 0;
+        LocalDate previous = null;
+        for (MoodDailyStat stat : dailyStats) {
+            LocalDate date = stat.getStatDate();
+            currentContinuous = previous != null && previous.plusDays(1).equals(date) ? currentContinuous + 1 : 1;
+            maxContinuous = Math.max(maxContinuous, currentContinuous);
+            previous = date;
+        }
+        return maxContinuous;
+    }
+
+    /**
+     * 根据情绪类型统计计算分布
+     */
+    private Map<String, String> calculateOverallDistribution(List<MoodMonthlyStat> typeStats, long totalCount) {
+        Map<String, Long> typeCounts = new HashMap<>();
+        for (MoodMonthlyStat stat : typeStats) {
+            typeCounts.merge(stat.getMoodType().toLowerCase(), stat.getLogCount().longValue(), Long::sum);
         }
         
-        return allLogs;
+        Map<String, String> distribution = new HashMap<>();
+        for (Map.Entry<String, Long> entry : typeCounts.entrySet()) {
+            double percentage = (entry.getValue().doubleValue() / totalCount) * 100;
+            distribution.put(entry.getKey(), String.format("%.0f%%", percentage));
+        }
+        return distribution;
     }
 
     /**
@@ -328,26 +297,6 @@ public class ReportServiceImpl implements ReportService {
                 .build();
     }
 
-    /**
-     * 获取最早的记录日期
-     */
-    private LocalDate getEarliestLogDate(List<MoodLog> moodLogs) {
-        return moodLogs.stream()
-                .map(log -> log.getLogDate().toLocalDate())
-                .min(LocalDate::compareTo)
-                .orElse(LocalDate.now());
-    }
-
-    /**
-     * 获取最晚的记录日期
-     */
-    private LocalDate getLatestLogDate(List<MoodLog> moodLogs) {
-        return moodLogs.stream()
-                .map(log -> log.getLogDate().toLocalDate())
-                .max(LocalDate::compareTo)
-                .orElse(LocalDate.now());
-    }
-
     /**
      * 生成整体报告周期字符串
      */
@@ -367,24 +316,21 @@ public class ReportServiceImpl implements ReportService {
     /**
      * 构建整体趋势数据（按月统计）
      */
-    private EmotionReportVO.TrendData buildOverallTrendData(List<MoodLog> moodLogs) {
-        // 按月份分组
-        Map<String, List<MoodLog>> logsByMonth = moodLogs.stream()
-                .collect(Collectors.groupingBy(log -> 
-                        log.getLogDate().format(DateTimeFormatter.ofPattern("yyyy-MM"))));
-        
-        List<String> months = new ArrayList<>(logsByMonth.keySet());
-        Collections.sort(months);
+    private EmotionReportVO.TrendData buildOverallTrendData(List<MoodDailyStat> dailyStats) {
+        // 按月份累加条数与评分（日统计已按日期升序，月份顺序与之一致）
+        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
+        Map<String, long[]> sumsByMonth = new LinkedHashMap<>();
+        for (MoodDailyStat stat : dailyStats) {
+            long[] sums = sumsByMonth.computeIfAbsent(stat.getStatDate().format(monthFormatter), k -> new long[2]);
+            sums[0] += stat.getLogCount();
+            sums[1] += stat.getScoreSum();
+        }
         
+        List<String> months = new ArrayList<>(sumsByMonth.keySet());
         List<Integer> monthlyAvgScores = new ArrayList<>();
         
-        for (String month : months) {
-            List<MoodLog> monthlyLogs = logsByMonth.get(month);
-            int avgScore = (int) Math.round(monthlyLogs.stream()
-                    .mapToInt(MoodLog::getMoodScore)
-                    .average()
-                    .orElse(0.0));
-            monthlyAvgScores.add(avgScore);
+        for (long[] sums : sumsByMonth.values()) {
+            monthlyAvgScores.add((int) Math.round((double) sums[1] / sums[0]));
         }
         
         return EmotionReportVO.TrendData.builder()
@@ -396,14 +342,9 @@ public class ReportServiceImpl implements ReportService {
     /**
      * 生成整体AI建议
      */
-    private List<String> generateOverallAiSuggestions(List<MoodLog> moodLogs) {
+    private List<String> generateOverallAiSuggestions(double avgScore, double positiveRate, int continuousDays) {
         List<String> suggestions = new ArrayList<>();
         
-        // 基于整体数据分析
-        double avgScore = calculateAverageScore(moodLogs);
-        double positiveRate = calculatePositiveRate(moodLogs);
-        int continuousDays = calculateContinuousDays(moodLogs);
-        
         // 根据整体数据给出长期建议
         if (avgScore < 5) {
             suggestions.add("长期情绪状态偏低，建议寻求专业心理咨询帮助");
@@ -430,4 +371,101 @@ public class ReportServiceImpl implements ReportService {
         
         return suggestions.stream().limit(4).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * 情绪报告统计累加器
+     * 按日期升序逐条接收情绪日志，只保留按天、按类型的汇总和最近几条日志，
+     * 不在内存中保留整个结果集；只有最终保留的最近日志会解密日记内容。
+     */
+    private static final class ReportAccumulator implements ResultHandler<MoodLogDigest> {
+
+        private long totalCount;
+
+        private long scoreSum;
+
+        private long positiveCount;
+
+        // 日期 -> {条数, 评分总和}，大小受报告天数限制
+        private final Map<LocalDate, long[]> dailySums = new HashMap<>();
+
+        private final Map<String, Long> typeCounts = new HashMap<>();
+
+        // 最近的日志（输入按日期升序，只保留末尾几条）
+        private final ArrayDeque<MoodLogDigest> recentLogs = new ArrayDeque<>(RECENT_LOG_COUNT);
+
+        private LocalDate lastDate;
+
+        private int currentContinuous;
+
+        private int maxContinuous;
+
+        @Override
+        public void handleResult(ResultContext<? extends MoodLogDigest> context) {
+            MoodLogDigest digest = context.getResultObject();
+            int score = digest.getMoodScore();
+            LocalDate date = digest.getLogDate().toLocalDate();
+
+            totalCount++;
+            scoreSum += score;
+            if (score >= 6) {
+                positiveCount++;
+            }
+
+            long[] sums = dailySums.computeIfAbsent(date, k -> new long[2]);
+            sums[0]++;
+            sums[1] += score;
+
+            typeCounts.merge(digest.getMoodType(), 1L, Long::sum);
+
+            // 连续记录天数
+            if (!date.equals(lastDate)) {
+                currentContinuous = lastDate != null && lastDate.plusDays(1).equals(date) ? currentContinuous + 1 : 1;
+                maxContinuous = Math.max(maxContinuous, currentContinuous);
+                lastDate = date;
+            }
+
+            if (recentLogs.size() == RECENT_LOG_COUNT) {
+                recentLogs.pollFirst();
+            }
+            recentLogs.addLast(digest);
+        }
+
+        long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * 平均情绪分数（保留1位小数）
+         */
+        double getAverageScore() {
+            return totalCount == 0 ? 0.0 : Math.round((double) scoreSum / totalCount * 10.0) / 10.0;
+        }
+
+        /**
+         * 积极情绪比例（评分>=6为积极，保留2位小数）
+         */
+        double getPositiveRate() {
+            return totalCount == 0 ? 0.0 : Math.round((double) positiveCount / totalCount * 100.0) / 100.0;
+        }
+
+        /**
+         * 某天的平均分，没有记录时为0
+         */
+        int getDailyAverageScore(LocalDate date) {
+            long[] sums = dailySums.get(date);
+            return sums == null ? 0 : (int) Math.round((double) sums[1] / sums[0]);
+        }
+
+        int getMaxContinuousDays() {
+            return maxContinuous;
+        }
+
+        Map<String, Long> getTypeCounts() {
+            return typeCounts;
+        }
+
+        List<MoodLogDigest> getRecentLogs() {
+            return new ArrayList<>(recentLogs);
+        }
+    }
+}
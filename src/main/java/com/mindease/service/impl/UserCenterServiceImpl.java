@@ -1,14 +1,13 @@
 package com.mindease.service.impl;
 
+import com.mindease.cache.CounselorProfileCache;
 import com.mindease.common.exception.BaseException;
 import com.mindease.mapper.AppointmentMapper;
-import com.mindease.mapper.CounselorProfileMapper;
-import com.mindease.mapper.MoodLogMapper;
+import com.mindease.mapper.MoodDailyStatMapper;
 import com.mindease.mapper.SysNotificationMapper;
 import com.mindease.mapper.UserMapper;
 import com.mindease.pojo.entity.Appointment;
-import com.mindease.pojo.entity.CounselorProfile;
-import com.mindease.pojo.entity.MoodLog;
+import com.mindease.pojo.entity.MoodDailyStat;
 import com.mindease.pojo.entity.SysNotification;
 import com.mindease.pojo.entity.User;
 import com.mindease.pojo.vo.*;
@@ -23,7 +22,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,7 +32,7 @@ import java.util.stream.Collectors;
 public class UserCenterServiceImpl implements UserCenterService {
 
     @Autowired
-    private MoodLogMapper moodLogMapper;
+    private MoodDailyStatMapper moodDailyStatMapper;
 
     @Autowired
     private AppointmentMapper appointmentMapper;
@@ -40,7 +41,7 @@ public class UserCenterServiceImpl implements UserCenterService {
     private SysNotificationMapper notificationMapper;
 
     @Autowired
-    private CounselorProfileMapper counselorProfileMapper;
+    private CounselorProfileCache counselorProfileCache;
 
     @Autowired
     private UserMapper userMapper;
@@ -126,11 +127,11 @@ public class UserCenterServiceImpl implements UserCenterService {
      * 获取情绪摘要
      */
     private MoodSummaryVO getMoodSummary(Long userId) {
-        // 查询最近30天的情绪日志
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<MoodLog> recentLogs = moodLogMapper.getRecentMoodLogs(userId, thirtyDaysAgo);
+        // 查询含今天在内最近30天的日统计
+        LocalDate today = LocalDate.now();
+        List<MoodDailyStat> dailyStats = moodDailyStatMapper.getDailyStats(userId, today.minusDays(29), today);
 
-        if (recentLogs == null || recentLogs.isEmpty()) {
+        if (dailyStats == null || dailyStats.isEmpty()) {
             return MoodSummaryVO.builder()
                     .avgScore(BigDecimal.ZERO)
                     .continuousDays(0)
@@ -138,13 +139,18 @@ public class UserCenterServiceImpl implements UserCenterService {
         }
 
         // 计算平均分
-        double avgScore = recentLogs.stream()
-                .mapToInt(MoodLog::getMoodScore)
-                .average()
-                .orElse(0.0);
+        long totalCount = 0;
+        long scoreSum = 0;
+        Set<LocalDate> recordedDates = new HashSet<>();
+        for (MoodDailyStat stat : dailyStats) {
+            totalCount += stat.getLogCount();
+            scoreSum += stat.getScoreSum();
+            recordedDates.add(stat.getStatDate());
+        }
+        double avgScore = totalCount == 0 ? 0.0 : (double) scoreSum / totalCount;
 
         // 计算连续记录天数
-        int continuousDays = calculateContinuousDays(recentLogs);
+        int continuousDays = calculateContinuousDays(recordedDates);
 
         return MoodSummaryVO.builder()
                 .avgScore(BigDecimal.valueOf(avgScore).setScale(1, RoundingMode.HALF_UP))
@@ -153,33 +159,14 @@ public class UserCenterServiceImpl implements UserCenterService {
     }
 
     /**
-     * 计算连续记录天数
+     * 计算从今天往前的连续记录天数
      */
-    private int calculateContinuousDays(List<MoodLog> logs) {
-        if (logs.isEmpty()) {
-            return 0;
-        }
-
-        // 按日期降序排序（最新的在前）
-        List<LocalDate> dates = logs.stream()
-                .map(log -> log.getLogDate().toLocalDate())
-                .distinct()
-                .sorted((d1, d2) -> d2.compareTo(d1))
-                .collect(Collectors.toList());
-
-        // 从今天开始计算连续天数
+    private int calculateContinuousDays(Set<LocalDate> recordedDates) {
         LocalDate today = LocalDate.now();
         int continuousDays = 0;
-
-        for (int i = 0; i < dates.size(); i++) {
-            LocalDate expectedDate = today.minusDays(i);
-            if (dates.size() > i && dates.get(i).equals(expectedDate)) {
-                continuousDays++;
-            } else {
-                break;
-            }
+        while (recordedDates.contains(today.minusDays(continuousDays))) {
+            continuousDays++;
         }
-
         return continuousDays;
     }
 
@@ -217,7 +204,7 @@ public class UserCenterServiceImpl implements UserCenterService {
                         displayName = client != null ? client.getNickname() : "未知用户";
                     } else {
                         // 普通用户显示咨询师名称
-                        CounselorProfile profile = counselorProfileMapper.getByUserId(apt.getCounselorId());
+                        CounselorProfileCache.CounselorSnapshot profile = counselorProfileCache.get(apt.getCounselorId());
                         displayName = profile != null ? profile.getRealName() : "未知咨询师";
                     }
 
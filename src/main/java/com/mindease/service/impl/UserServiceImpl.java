@@ -9,19 +9,41 @@ import com.mindease.pojo.dto.UserRegisterDTO;
 import com.mindease.pojo.dto.UserUpdateDTO;
 import com.mindease.pojo.entity.User;
 import com.mindease.service.UserService;
+import com.mindease.common.utils.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.DigestUtils;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
+@Slf4j
 public class UserServiceImpl implements UserService {
 
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    // 等待密码哈希（含排队）的最长时间，超时按系统繁忙处理
+    @Value("${mindease.password.timeout-ms:3000}")
+    private long hashTimeoutMillis;
+
     /**
      * 登录
      *
@@ -39,13 +61,18 @@ public class UserServiceImpl implements UserService {
             throw new AccountNotFoundException(MessageConstant.USER_NOT_FOUND);
         }
 
-        // 进行md5加密，然后再进行比对
-        password = DigestUtils.md5DigestAsHex(password.getBytes());
-        if (!password.equals(user.getPassword())) {
+        // 在密码哈希线程池中校验密码
+        String encodedPassword = user.getPassword();
+        if (!hashOnExecutor(() -> passwordEncoder.matches(password, encodedPassword))) {
             //密码错误
             throw new PasswordErrorException(MessageConstant.PASSWORD_ERROR);
         }
 
+        // 旧的MD5哈希或强度不足的哈希，登录成功后在后台重新哈希
+        if (passwordEncoder.needsUpgrade(encodedPassword)) {
+            upgradePassword(user.getId(), password, encodedPassword);
+        }
+
         // 检查账号状态
         if (user.getStatus() == StatusConstant.PENDING) {
             // 咨询师在待审核状态下仍可登录，用于提交/查看审核资料
@@ -104,7 +131,7 @@ public class UserServiceImpl implements UserService {
         // 创建用户
         User user = User.builder()
                 .username(username)
-                .password(DigestUtils.md5DigestAsHex(userRegisterDTO.getPassword().getBytes()))
+                .password(hashOnExecutor(() -> passwordEncoder.encode(userRegisterDTO.getPassword())))
                 .nickname(userRegisterDTO.getNickname())
                 .phone(userRegisterDTO.getPhone())
                 .role(role.toUpperCase())
@@ -118,6 +145,49 @@ public class UserServiceImpl implements UserService {
         return user;
     }
 
+    /**
+     * 在有界线程池中执行密码哈希计算，线程池繁忙或等待超时时按系统繁忙拒绝
+     */
+    private <T> T hashOnExecutor(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = passwordHashExecutor.submit(task);
+        } catch (TaskRejectedException e) {
+            log.warn("密码哈希线程池已满，拒绝请求");
+            throw new BaseException(MessageConstant.SYSTEM_BUSY);
+        }
+        try {
+            return future.get(hashTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new BaseException(MessageConstant.SYSTEM_BUSY);
+        } catch (TimeoutException e) {
+            // 仍在排队的任务不再执行
+            future.cancel(true);
+            log.warn("密码哈希等待超时（{}ms），拒绝请求", hashTimeoutMillis);
+            throw new BaseException(MessageConstant.SYSTEM_BUSY);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+    }
+
+    /**
+     * 后台重新哈希密码，失败或线程池繁忙时跳过，下次登录再升级
+     */
+    private void upgradePassword(Long userId, String rawPassword, String oldEncodedPassword) {
+        try {
+            passwordHashExecutor.execute(() -> {
+                String newEncodedPassword = passwordEncoder.encode(rawPassword);
+                if (userMapper.updatePassword(userId, newEncodedPassword, oldEncodedPassword) > 0) {
+                    log.info("用户密码哈希已升级，用户ID:{}", userId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.debug("密码哈希线程池繁忙，跳过本次密码升级，用户ID:{}", userId);
+        }
+    }
+
     /**
      * 根据ID查询用户
      *
@@ -0,0 +1,116 @@
+package com.mindease.cache;
+
+import com.mindease.mapper.CounselorProfileMapper;
+import com.mindease.pojo.entity.CounselorProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 搜索索引与 SQL 推荐查询的一致性测试
+ * 在测试事务中插入咨询师数据（结束后回滚），在同一事务内全量构建索引，逐组关键词与排序方式比较两条路径的结果。
+ * 启动时的后台构建已关闭，避免其结果覆盖测试构建的索引。
+ */
+@SpringBootTest(properties = "mindease.counselor-search.enabled=false")
+@Transactional
+class CounselorSearchIndexParityTest {
+
+    private static final long BASE_ID = 8_000_000_000L;
+
+    private static final List<List<String>> KEYWORD_SETS = List.of(
+            List.of("焦虑"),
+            List.of("张"),
+            List.of("北京", "焦虑"),
+            List.of("家庭关系", "情绪"),
+            List.of("咨询师"),
+            List.of("cbt"),
+            List.of("CBT"),
+            List.of("50%"),
+            List.of("%"),
+            List.of("a_b"),
+            List.of("_"),
+            List.of("不存在的关键词"));
+
+    private static final List<String> SORTS = List.of("smart", "price_asc", "rating_desc");
+
+    @Autowired
+    private CounselorSearchIndex counselorSearchIndex;
+
+    @Autowired
+    private CounselorProfileMapper counselorProfileMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        insertCounselor(1, "张明", "资深咨询师", "[\"焦虑\", \"抑郁\"]",
+                "擅长认知行为疗法CBT，帮助来访者缓解50%以上的焦虑症状", "北京", "300.00", "4.8");
+        insertCounselor(2, "李华", "心理治疗师", "[\"家庭关系\", \"情绪管理\"]",
+                "关注家庭与亲子关系，a_b 测试", "上海", "200.00", "4.8");
+        insertCounselor(3, "王芳", "咨询师", "[\"失眠\", \"压力管理\"]",
+                "睡眠问题与压力调节，cbt-i 认证", "北京", "250.00", "4.5");
+        insertCounselor(4, "赵强", "资深咨询师", "[\"焦虑\"]", null, "线上", "150.00", null);
+        insertCounselor(5, "张伟", "实习咨询师", "[]", "50元体验", "广州", null, "4.0");
+        // 待审核咨询师不应出现在任何结果中
+        insertCounselor(6, "张静", "咨询师", "[\"焦虑\"]", "焦虑", "北京", "100.00", "5.0");
+        jdbcTemplate.update("update sys_user set status = 2 where id = ?", BASE_ID + 6);
+
+        ReflectionTestUtils.setField(counselorSearchIndex, "enabled", true);
+        counselorSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(counselorSearchIndex, "enabled", false);
+    }
+
+    @Test
+    void indexMatchesSqlRecommendation() {
+        for (List<String> keywords : KEYWORD_SETS) {
+            for (String sort : SORTS) {
+                List<Long> expected = counselorProfileMapper.recommendCounselorsByKeywords(keywords, sort).stream()
+                        .map(CounselorProfile::getUserId)
+                        .collect(Collectors.toList());
+                List<Long> actual = counselorSearchIndex.search(keywords, sort);
+                assertNotNull(actual);
+                assertEquals(expected, actual, "关键词: " + keywords + "，排序: " + sort);
+            }
+        }
+    }
+
+    @Test
+    void reindexReflectsProfileChange() {
+        jdbcTemplate.update("update counselor_profile set bio = ? where user_id = ?", "新增擅长正念练习", BASE_ID + 4);
+        ReflectionTestUtils.invokeMethod(counselorSearchIndex, "reindex", BASE_ID + 4);
+
+        List<String> keywords = List.of("正念");
+        List<Long> expected = counselorProfileMapper.recommendCounselorsByKeywords(keywords, "smart").stream()
+                .map(CounselorProfile::getUserId)
+                .collect(Collectors.toList());
+        assertEquals(expected, counselorSearchIndex.search(keywords, "smart"));
+    }
+
+    private void insertCounselor(long offset, String realName, String title, String specialty, String bio,
+                                 String location, String price, String rating) {
+        long userId = BASE_ID + offset;
+        jdbcTemplate.update("insert into sys_user(id, username, password, role, status) values(?, ?, ?, 'counselor', 1)",
+                userId, "search-parity-" + userId, "x");
+        jdbcTemplate.update("insert into counselor_profile(user_id, real_name, title, specialty, bio, location, " +
+                        "price_per_hour, rating) values(?, ?, ?, ?, ?, ?, ?, ?)",
+                userId, realName, title, specialty, bio, location,
+                price == null ? null : new BigDecimal(price), rating == null ? null : new BigDecimal(rating));
+    }
+}
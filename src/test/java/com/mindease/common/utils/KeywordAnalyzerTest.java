@@ -0,0 +1,249 @@
+package com.mindease.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推荐关键词分析器一致性测试
+ * 以拆分前 CounselorServiceImpl 中的 extractKeywordsFromText / expandKeywordVariantsOptimized 原样作为参照，
+ * 在测评结论、手动搜索词等真实输入上比较输出。
+ * 唯一允许的差异：旧实现按 HashMap 顺序追加测评映射词，新实现按关键字在文本中出现的顺序追加，
+ * 因此命中多个测评关键字时，这一段只比较集合，其后的正则片段仍逐项比较顺序。
+ */
+class KeywordAnalyzerTest {
+
+    // 测评结论（等级与描述）
+    private static final List<String> ASSESSMENT_TEXTS = List.of(
+            "正常",
+            "无明显焦虑",
+            "轻度焦虑",
+            "中度焦虑",
+            "重度焦虑",
+            "轻度抑郁",
+            "中重度抑郁",
+            "重度抑郁症状",
+            "睡眠质量较差",
+            "失眠症状明显",
+            "压力水平偏高",
+            "强迫症状明显",
+            "社交恐惧",
+            "焦虑抑郁共病",
+            "存在明显的焦虑和抑郁情绪，伴有入睡困难",
+            "您目前处于中度焦虑状态，建议关注睡眠与压力管理，必要时寻求专业帮助。",
+            "近两周情绪低落、兴趣减退，有明显的失眠和疲惫感，可能存在抑郁倾向。",
+            "反复检查门锁，强迫行为影响日常生活，对外出有恐惧和回避。",
+            "工作压力大导致长期失眠，白天焦虑紧张，注意力难以集中。",
+            "Anxiety score 62，中度焦虑",
+            "",
+            "   ");
+
+    // 用户手动输入的搜索词（只经过变体扩展）
+    private static final List<String> MANUAL_KEYWORDS = List.of(
+            "焦虑", "焦虑症", "睡眠障碍", "失眠问题", "社交恐惧症", "抑郁情绪", "自卑感", "强迫症",
+            "家庭关系问题", "青少年厌学", "婚恋情感", "北京", "乌鲁木齐", "呼和浩特", "北京朝阳",
+            "上海线上咨询", "在线倾诉", "创伤后应激障碍", "亲子沟通", "  焦虑  ", "症", "病感");
+
+    private final KeywordAnalyzer analyzer = new KeywordAnalyzer();
+
+    @Test
+    void extractKeywordsMatchesLegacy() {
+        for (String text : ASSESSMENT_TEXTS) {
+            assertSameKeywords(text, LegacyKeywords.extractKeywordsFromText(text), analyzer.extractKeywords(text));
+        }
+        assertTrue(analyzer.extractKeywords(null).isEmpty());
+    }
+
+    @Test
+    void expandVariantsMatchesLegacy() {
+        for (String keyword : MANUAL_KEYWORDS) {
+            List<String> source = List.of(keyword);
+            assertEquals(LegacyKeywords.expandKeywordVariantsOptimized(source), analyzer.expandVariants(source),
+                    "关键词: " + keyword);
+        }
+        List<String> all = new ArrayList<>(MANUAL_KEYWORDS);
+        all.add(null);
+        all.add("");
+        assertEquals(LegacyKeywords.expandKeywordVariantsOptimized(all), analyzer.expandVariants(all));
+        assertTrue(analyzer.expandVariants(null).isEmpty());
+        assertTrue(analyzer.expandVariants(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    void recommendationPipelineMatchesLegacy() {
+        // 与推荐流程一致：先从测评结论提取，再扩展变体
+        for (String text : ASSESSMENT_TEXTS) {
+            List<String> legacy = LegacyKeywords.expandKeywordVariantsOptimized(LegacyKeywords.extractKeywordsFromText(text));
+            List<String> current = analyzer.expandVariants(analyzer.extractKeywords(text));
+            assertEquals(new HashSet<>(legacy), new HashSet<>(current), "文本: " + text);
+            if (LegacyKeywords.matchedAssessmentKeys(text) <= 1) {
+                assertEquals(legacy, current, "文本: " + text);
+            }
+        }
+    }
+
+    @Test
+    void locationNamesAreNotTrimmed() {
+        for (String keyword : MANUAL_KEYWORDS) {
+            assertEquals(LegacyKeywords.isLocationName(keyword.trim()), analyzer.isLocationName(keyword.trim()),
+                    "关键词: " + keyword);
+        }
+        assertEquals(List.of("乌鲁木齐"), analyzer.expandVariants(List.of("乌鲁木齐")));
+        assertEquals(List.of("创伤后应激障碍", "创伤后应激", "创伤后应激障"),
+                analyzer.expandVariants(List.of("创伤后应激障碍")));
+    }
+
+    private static void assertSameKeywords(String text, List<String> legacy, List<String> current) {
+        String message = "文本: " + text;
+        if (LegacyKeywords.matchedAssessmentKeys(text) <= 1) {
+            assertEquals(legacy, current, message);
+            return;
+        }
+        assertEquals(legacy.size(), current.size(), message);
+        int head = LegacyKeywords.assessmentKeywords(text).size();
+        assertEquals(new HashSet<>(legacy.subList(0, head)), new HashSet<>(current.subList(0, head)), message);
+        assertEquals(legacy.subList(head, legacy.size()), current.subList(head, current.size()), message);
+    }
+
+    /**
+     * 拆分前 CounselorServiceImpl 中的实现（原样保留，仅改为静态方法），作为比较基准
+     */
+    private static final class LegacyKeywords {
+
+        private static final Map<String, List<String>> ASSESSMENT_KEYWORD_MAP = new HashMap<String, List<String>>() {{
+            put("焦虑", Arrays.asList("焦虑", "紧张", "担忧", "恐慌"));
+            put("抑郁", Arrays.asList("抑郁", "情绪低落", "悲伤", "失落"));
+            put("失眠", Arrays.asList("失眠", "睡眠", "入睡困难", "睡眠障碍"));
+            put("压力", Arrays.asList("压力", "疲惫", "倦怠", "应激"));
+            put("强迫", Arrays.asList("强迫", "反复", "重复行为"));
+            put("恐惧", Arrays.asList("恐惧", "害怕", "回避"));
+        }};
+
+        private static final Set<String> CHINESE_CITIES = new HashSet<>(Arrays.asList(
+            "北京", "上海", "广州", "深圳", "天津", "重庆", "成都", "杭州", "武汉", "西安",
+            "南京", "郑州", "长沙", "沈阳", "青岛", "大连", "宁波", "厦门", "济南", "哈尔滨",
+            "苏州", "无锡", "福州", "石家庄", "昆明", "兰州", "太原", "合肥", "南昌", "贵阳",
+            "南宁", "海口", "银川", "西宁", "呼和浩特", "乌鲁木齐", "拉萨", "线上", "在线"
+        ));
+
+        /**
+         * 【改进1】从文本中提取关键词（基于规则+NLP思想）
+         */
+        static List<String> extractKeywordsFromText(String text) {
+            List<String> keywords = new ArrayList<>();
+            if (text == null || text.trim().isEmpty()) {
+                return keywords;
+            }
+
+            // 遍历映射表，查找匹配的关键词
+            for (Map.Entry<String, List<String>> entry : ASSESSMENT_KEYWORD_MAP.entrySet()) {
+                if (text.contains(entry.getKey())) {
+                    keywords.addAll(entry.getValue());
+                }
+            }
+
+            // 使用正则提取中文关键词（2-4个字）
+            Pattern pattern = Pattern.compile("[\\u4e00-\\u9fa5]{2,4}");
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                String word = matcher.group();
+                // 过滤掉常见的无意义词
+                if (!isStopWord(word)) {
+                    addIfAbsent(keywords, word);
+                }
+            }
+
+            return keywords.stream().distinct().collect(Collectors.toList());
+        }
+
+        /**
+         * 判断是否为停用词
+         */
+        static boolean isStopWord(String word) {
+            Set<String> stopWords = new HashSet<>(Arrays.asList(
+                "的", "是", "在", "有", "和", "了", "不", "与", "中", "为", "对", "及",
+                "个", "等", "但", "或", "从", "到", "而", "由", "也", "很", "就", "可能",
+                "轻度", "中度", "重度", "严重", "明显", "症状", "状态", "情况", "程度"
+            ));
+            return stopWords.contains(word);
+        }
+
+        /**
+         * 【改进7】优化的关键词扩展：避免过度裁剪地名等
+         */
+        static List<String> expandKeywordVariantsOptimized(List<String> source) {
+            if (source == null || source.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<String> suffixes = Arrays.asList("症", "障碍", "问题", "情况", "状态", "情绪", "病", "感");
+            List<String> result = new ArrayList<>();
+
+            for (String kw : source) {
+                if (kw == null) continue;
+                String base = kw.trim();
+                if (base.isEmpty()) continue;
+
+                // 总是保留原词
+                addIfAbsent(result, base);
+
+                // 去后缀变体
+                for (String suffix : suffixes) {
+                    if (base.endsWith(suffix) && base.length() > suffix.length()) {
+                        String stripped = base.substring(0, base.length() - suffix.length());
+                        if (stripped.length() >= 2) {
+                            addIfAbsent(result, stripped);
+                        }
+                    }
+                }
+
+                // 【改进7】只对非地名且长度>3的词进行末尾裁剪
+                if (base.length() > 3 && !isLocationName(base)) {
+                    String shorter = base.substring(0, base.length() - 1);
+                    addIfAbsent(result, shorter);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 判断是否为地名
+         */
+        static boolean isLocationName(String word) {
+            return CHINESE_CITIES.contains(word) || CHINESE_CITIES.stream().anyMatch(word::contains);
+        }
+
+        static void addIfAbsent(List<String> list, String value) {
+            if (!list.contains(value)) {
+                list.add(value);
+            }
+        }
+
+        /**
+         * 文本命中的测评关键字个数
+         */
+        static long matchedAssessmentKeys(String text) {
+            if (text == null) {
+                return 0;
+            }
+            return ASSESSMENT_KEYWORD_MAP.keySet().stream().filter(text::contains).count();
+        }
+
+        /**
+         * 文本命中的测评关键字映射出的推荐词（去重）
+         */
+        static Set<String> assessmentKeywords(String text) {
+            Set<String> keywords = new HashSet<>();
+            ASSESSMENT_KEYWORD_MAP.forEach((key, values) -> {
+                if (text.contains(key)) {
+                    keywords.addAll(values);
+                }
+            });
+            return keywords;
+        }
+    }
+}
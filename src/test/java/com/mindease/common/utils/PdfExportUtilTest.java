@@ -0,0 +1,227 @@
+package com.mindease.common.utils;
+
+import com.mindease.pojo.vo.EmotionReportVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 情绪报告PDF流式写入测试
+ * 输出流只计数不保存，验证PDF在生成过程中分多次写出，而不是先在内存中拼出整个文件再一次写入；
+ * 并比较 50 行与 5000 行报告导出时的峰值存活堆，确认内存占用不随报告大小增长。
+ */
+class PdfExportUtilTest {
+
+    private ThreadPoolTaskExecutor chartRenderExecutor;
+
+    private PdfExportUtil pdfExportUtil;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("java.awt.headless", "true");
+        chartRenderExecutor = new ThreadPoolTaskExecutor();
+        chartRenderExecutor.setCorePoolSize(2);
+        chartRenderExecutor.initialize();
+
+        ReportChartRenderer chartRenderer = new ReportChartRenderer();
+        ReflectionTestUtils.setField(chartRenderer, "chartRenderExecutor", chartRenderExecutor);
+        ReflectionTestUtils.setField(chartRenderer, "maxSize", 10);
+        ReflectionTestUtils.setField(chartRenderer, "timeoutMillis", 10000L);
+        chartRenderer.init();
+
+        pdfExportUtil = new PdfExportUtil();
+        ReflectionTestUtils.setField(pdfExportUtil, "chartRenderer", chartRenderer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chartRenderExecutor.shutdown();
+    }
+
+    @Test
+    void writesLargeReportIncrementally() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        // AI建议是最后一节，读取建议时记录已写出的字节数
+        long[] writtenBeforeLastSection = new long[1];
+        List<String> suggestions = new ArrayList<>(List.of("保持规律作息", "适当运动", "与信任的人交流")) {
+            @Override
+            public void forEach(Consumer<? super String> action) {
+                writtenBeforeLastSection[0] = out.total;
+                super.forEach(action);
+            }
+        };
+
+        pdfExportUtil.writeEmotionReportPdf(report(5000, suggestions), out);
+
+        // iText 按内部缓冲分批写出，写入次数取决于缓冲大小，这里只约束单次写入与写出进度
+        assertTrue(out.total > 100_000, "PDF 大小: " + out.total);
+        assertTrue(out.maxWrite <= out.total / 10,
+                "单次写入 " + out.maxWrite + " 字节，总计 " + out.total + " 字节");
+        assertTrue(writtenBeforeLastSection[0] > out.total / 2,
+                "最后一节之前已写出 " + writtenBeforeLastSection[0] + " 字节，总计 " + out.total + " 字节");
+        assertEquals("%PDF-", new String(out.head, 0, 5, StandardCharsets.US_ASCII));
+        assertFalse(out.closed, "输出流应由调用方关闭");
+    }
+
+    @Test
+    void peakRetainedHeapDoesNotGrowWithReportSize() throws Exception {
+        // 预热：字体、iText 静态资源等一次性加载不计入
+        pdfExportUtil.writeEmotionReportPdf(report(50, List.of("保持规律作息")), new CountingOutputStream());
+
+        long small = peakRetainedHeap(50);
+        CountingOutputStream out = new CountingOutputStream();
+        long large = peakRetainedHeap(5000, out);
+
+        // 5000 行的报告约为 50 行的 100 倍，流式写出时导出过程额外占用的堆应基本持平：
+        // 增量小于文件本身（整份缓冲时至少多占一份文件大小；整张表格留在内存中时 5000 行超过 10MB）
+        assertTrue(large - small < out.total,
+                "50 行峰值 " + small + " 字节，5000 行峰值 " + large + " 字节，PDF " + out.total + " 字节");
+        assertTrue(large < 4L * 1024 * 1024, "5000 行峰值 " + large + " 字节");
+    }
+
+    private long peakRetainedHeap(int logCount) throws Exception {
+        return peakRetainedHeap(logCount, new CountingOutputStream());
+    }
+
+    /**
+     * 导出过程中的峰值存活堆（不含报告数据本身）
+     * 遍历日志行与读取AI建议时多次触发 GC 并采样已用堆，减去导出开始前的基线。
+     */
+    private long peakRetainedHeap(int logCount, CountingOutputStream out) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long[] peak = new long[1];
+        Runnable sample = () -> {
+            memory.gc();
+            peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed());
+        };
+        int interval = Math.max(1, logCount / 10);
+
+        EmotionReportVO report = report(logCount, new ArrayList<>(List.of("保持规律作息")) {
+            @Override
+            public void forEach(Consumer<? super String> action) {
+                sample.run();
+                super.forEach(action);
+            }
+        });
+        List<EmotionReportVO.RecentLog> logs = new ArrayList<>(report.getRecentLogs()) {
+            @Override
+            public Iterator<EmotionReportVO.RecentLog> iterator() {
+                Iterator<EmotionReportVO.RecentLog> delegate = super.iterator();
+                return new Iterator<>() {
+                    private int count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return delegate.hasNext();
+                    }
+
+                    @Override
+                    public EmotionReportVO.RecentLog next() {
+                        if (count++ % interval == 0) {
+                            sample.run();
+                        }
+                        return delegate.next();
+                    }
+                };
+            }
+        };
+        report.setRecentLogs(logs);
+
+        memory.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        pdfExportUtil.writeEmotionReportPdf(report, out);
+        return Math.max(0, peak[0] - baseline);
+    }
+
+    @Test
+    void writesReportWithCharts() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        EmotionReportVO report = report(10, List.of("保持规律作息"));
+        report.setTrendData(EmotionReportVO.TrendData.builder()
+                .dates(List.of("10-01", "10-02", "10-03", "10-04"))
+                .scores(List.of(6, 4, 7, 8))
+                .build());
+        Map<String, String> distribution = new LinkedHashMap<>();
+        distribution.put("开心", "50%");
+        distribution.put("焦虑", "50%");
+        report.setDistribution(distribution);
+
+        pdfExportUtil.writeEmotionReportPdf(report, out);
+
+        assertTrue(out.total > 0);
+        assertEquals("%PDF-", new String(out.head, 0, 5, StandardCharsets.US_ASCII));
+    }
+
+    private static EmotionReportVO report(int logCount, List<String> suggestions) {
+        List<EmotionReportVO.RecentLog> logs = new ArrayList<>(logCount);
+        for (int i = 0; i < logCount; i++) {
+            logs.add(EmotionReportVO.RecentLog.builder()
+                    .date("2026-10-" + (i % 28 + 1))
+                    .moodType(i % 2 == 0 ? "开心" : "焦虑")
+                    .score(i % 10 + 1)
+                    .content("第" + i + "条记录：今天的工作和学习有些压力，晚上散步之后心情好了一些。")
+                    .build());
+        }
+        return EmotionReportVO.builder()
+                .period("最近30天")
+                .avgScore(6.5)
+                .positiveRate(0.6)
+                .continuousDays(7)
+                .distribution(Collections.emptyMap())
+                .recentLogs(logs)
+                .aiSuggestions(suggestions)
+                .build();
+    }
+
+    /**
+     * 只统计写入次数与字节数，不保存内容（保留开头几个字节用于校验文件头）
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final byte[] head = new byte[8];
+
+        private long total;
+
+        private long writes;
+
+        private long maxWrite;
+
+        private boolean closed;
+
+        @Override
+        public void write(int b) {
+            if (total < head.length) {
+                head[(int) total] = (byte) b;
+            }
+            total++;
+            writes++;
+            maxWrite = Math.max(maxWrite, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = 0; i < len && total + i < head.length; i++) {
+                head[(int) total + i] = b[off + i];
+            }
+            total += len;
+            writes++;
+            maxWrite = Math.max(maxWrite, len);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
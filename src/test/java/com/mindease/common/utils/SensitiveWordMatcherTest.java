@@ -0,0 +1,148 @@
+package com.mindease.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 敏感词自动机匹配测试
+ * 覆盖重叠词、互为后缀的词、跨片段的流式匹配，以及与逐词 contains 的结果一致性。
+ */
+class SensitiveWordMatcherTest {
+
+    @Test
+    void findsOverlappingWords() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("he", "she", "his", "hers"));
+
+        // 按结束位置输出：下标3处同时结束 she 与 he，下标5处结束 hers
+        assertEquals(List.of("she", "he", "hers"), matcher.findAll("ushers"));
+        assertEquals("she", matcher.findFirst("ushers"));
+        assertTrue(matcher.containsAny("ushers"));
+    }
+
+    @Test
+    void findsWordsSharingPrefix() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("轻生", "轻生念头", "了结生命", "自我了结"));
+
+        assertEquals(List.of("轻生", "轻生念头"), matcher.findAll("最近总有轻生念头"));
+        assertEquals(List.of("自我了结"), matcher.findAll("想要自我了结"));
+        assertEquals(List.of("自我了结", "了结生命"), matcher.findAll("想自我了结生命"));
+    }
+
+    @Test
+    void findsWordThatIsSuffixOfAnotherPartialMatch() {
+        // 走到 abc 时 abcd 尚未完成，需沿失败链报告后缀 bc
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("abcd", "bc"));
+
+        assertEquals(List.of("bc"), matcher.findAll("xabcx"));
+        assertEquals(List.of("bc", "abcd"), matcher.findAll("abcd"));
+
+        // 同一位置结束的词，较长的先报告
+        SensitiveWordMatcher chinese = SensitiveWordMatcher.compile(List.of("不想活了", "活了"));
+        assertEquals(List.of("活了"), chinese.findAll("又活了过来"));
+        assertEquals(List.of("不想活了", "活了"), chinese.findAll("不想活了"));
+        assertEquals("不想活了", chinese.findFirst("不想活了"));
+    }
+
+    @Test
+    void restartsOnCharactersOutsideDictionary() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("自杀"));
+
+        assertFalse(matcher.containsAny("自 杀"));
+        assertFalse(matcher.containsAny("自-杀"));
+        assertNull(matcher.findFirst("自由与杀青"));
+        assertTrue(matcher.containsAny("自自杀"));
+    }
+
+    @Test
+    void ignoresCaseAndBlankWords() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(Arrays.asList("CBT", " cbt ", "", "  ", null));
+
+        assertEquals(1, matcher.size());
+        assertTrue(matcher.containsAny("认知行为疗法 Cbt"));
+        assertEquals(List.of("cbt"), matcher.findAll("CBT、cbt、CbT"));
+    }
+
+    @Test
+    void emptyDictionaryAndNullText() {
+        SensitiveWordMatcher empty = SensitiveWordMatcher.compile(Collections.emptyList());
+        assertFalse(empty.containsAny("任何内容"));
+        assertNull(empty.findFirst("任何内容"));
+        assertTrue(empty.findAll("任何内容").isEmpty());
+        assertTrue(empty.newStreamScanner().feed("任何内容").isEmpty());
+
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("自杀"));
+        assertFalse(matcher.containsAny(null));
+        assertNull(matcher.findFirst(null));
+        assertTrue(matcher.findAll(null).isEmpty());
+        assertTrue(matcher.newStreamScanner().feed(null).isEmpty());
+    }
+
+    @Test
+    void streamScannerMatchesAcrossChunks() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("he", "she", "his", "hers"));
+        SensitiveWordMatcher.StreamScanner scanner = matcher.newStreamScanner();
+
+        assertTrue(scanner.feed("us").isEmpty());
+        assertTrue(scanner.feed("h").isEmpty());
+        assertFalse(scanner.hasMatched());
+        assertEquals(List.of("she", "he"), scanner.feed("e"));
+        assertEquals(List.of("hers"), scanner.feed("rs"));
+        // 已报告过的词不重复报告
+        assertTrue(scanner.feed("she").isEmpty());
+        assertEquals(List.of("his"), scanner.feed("his"));
+        assertEquals(List.of("she", "he", "hers", "his"), scanner.getMatched());
+    }
+
+    @Test
+    void streamScannerMatchesChineseWordSplitIntoSingleCharacters() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("不想活了", "活着没意义"));
+        SensitiveWordMatcher.StreamScanner scanner = matcher.newStreamScanner();
+
+        List<String> reported = new ArrayList<>();
+        for (char ch : "有时候觉得活着没意义，甚至不想活了".toCharArray()) {
+            reported.addAll(scanner.feed(String.valueOf(ch)));
+        }
+        assertEquals(List.of("活着没意义", "不想活了"), reported);
+        assertTrue(scanner.hasMatched());
+    }
+
+    @Test
+    void streamScannerAgreesWithWholeTextForEverySplit() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("轻生", "轻生念头", "念头", "头疼"));
+        String text = "我有轻生念头头疼";
+        List<String> expected = matcher.findAll(text);
+
+        for (int split = 0; split <= text.length(); split++) {
+            SensitiveWordMatcher.StreamScanner scanner = matcher.newStreamScanner();
+            List<String> reported = new ArrayList<>(scanner.feed(text.substring(0, split)));
+            reported.addAll(scanner.feed(text.substring(split)));
+            assertEquals(expected, reported, "切分位置: " + split);
+        }
+    }
+
+    @Test
+    void agreesWithNaiveContainsOnRandomText() {
+        List<String> dictionary = List.of("ab", "abc", "bca", "cab", "b", "aaa", "cc");
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(dictionary);
+        Random random = new Random(7);
+
+        for (int round = 0; round < 500; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                text.append("abcx".charAt(random.nextInt(4)));
+            }
+            List<String> expected = dictionary.stream().filter(word -> text.indexOf(word) >= 0).sorted().toList();
+            List<String> actual = matcher.findAll(text).stream().sorted().toList();
+            assertEquals(expected, actual, "文本: " + text);
+            assertEquals(!expected.isEmpty(), matcher.containsAny(text), "文本: " + text);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.mindease.rag;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 进程内向量库测试
+ * 检索结果与逐条计算余弦相似度后排序的结果比较；快照通过 flushSnapshot / close 写入临时目录，再由新实例加载比较。
+ */
+class LocalEmbeddingStoreTest {
+
+    private static final int DIMENSION = 16;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void returnsTopKInDescendingScoreOrder() {
+        LocalEmbeddingStore store = new LocalEmbeddingStore(null);
+        // 与查询向量 (1, 0) 的夹角依次增大
+        store.add("a", Embedding.from(new float[]{1f, 0f}));
+        store.add("d", Embedding.from(new float[]{-1f, 0.2f}));
+        store.add("b", Embedding.from(new float[]{3f, 1f}));
+        store.add("c", Embedding.from(new float[]{0.5f, 1f}));
+
+        List<EmbeddingMatch<TextSegment>> matches = search(store, new float[]{2f, 0f}, 3, 0);
+
+        assertEquals(List.of("a", "b", "c"), ids(matches));
+        assertEquals(1.0, matches.get(0).score(), 1e-6);
+        assertTrue(matches.get(0).score() > matches.get(1).score());
+        assertTrue(matches.get(1).score() > matches.get(2).score());
+    }
+
+    @Test
+    void matchesBruteForceOnRandomVectors() {
+        LocalEmbeddingStore store = new LocalEmbeddingStore(null);
+        Random random = new Random(42);
+        Map<String, float[]> raw = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            float[] vector = randomVector(random);
+            raw.put("id-" + i, vector);
+            store.add("id-" + i, Embedding.from(vector));
+        }
+
+        for (int round = 0; round < 20; round++) {
+            float[] query = randomVector(random);
+            List<String> expected = raw.entrySet().stream()
+                    .sorted(Comparator.comparingDouble((Map.Entry<String, float[]> e) -> -cosine(query, e.getValue())))
+                    .limit(3)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            List<EmbeddingMatch<TextSegment>> matches = search(store, query, 3, 0);
+            assertEquals(expected, ids(matches));
+            for (EmbeddingMatch<TextSegment> match : matches) {
+                double expectedScore = (cosine(query, raw.get(match.embeddingId())) + 1) / 2;
+                assertEquals(expectedScore, match.score(), 1e-5);
+            }
+        }
+    }
+
+    @Test
+    void appliesMinScoreAndMaxResults() {
+        LocalEmbeddingStore store = new LocalEmbeddingStore(null);
+        store.add("same", Embedding.from(new float[]{1f, 0f}));
+        store.add("orthogonal", Embedding.from(new float[]{0f, 1f}));
+        store.add("opposite", Embedding.from(new float[]{-1f, 0f}));
+
+        // 相关度 = (cos + 1) / 2：同向 1.0，正交 0.5，反向 0.0
+        assertEquals(List.of("same", "orthogonal"), ids(search(store, new float[]{1f, 0f}, 10, 0.5)));
+        assertEquals(List.of("same"), ids(search(store, new float[]{1f, 0f}, 1, 0)));
+        assertTrue(search(new LocalEmbeddingStore(null), new float[]{1f, 0f}, 3, 0).isEmpty());
+        // 维度不一致的查询不报错，返回空结果
+        assertTrue(search(store, new float[]{1f, 0f, 0f}, 3, 0).isEmpty());
+    }
+
+    @Test
+    void replacesAndRemovesById() {
+        LocalEmbeddingStore store = new LocalEmbeddingStore(null);
+        store.add("a", Embedding.from(new float[]{1f, 0f}));
+        store.add("b", Embedding.from(new float[]{0f, 1f}));
+        store.add("c", Embedding.from(new float[]{-1f, 0f}));
+
+        // 同一ID再次写入时覆盖原向量
+        store.add("a", Embedding.from(new float[]{0f, -1f}));
+        assertEquals(3, store.size());
+        assertEquals(List.of("c"), ids(search(store, new float[]{-1f, 0f}, 1, 0)));
+        assertEquals(List.of("a"), ids(search(store, new float[]{0f, -1f}, 1, 0)));
+
+        // 删除首行后由末行补位，其余ID仍对应原向量
+        store.removeAll(List.of("a", "missing"));
+        assertEquals(2, store.size());
+        assertEquals(List.of("c", "b"), ids(search(store, new float[]{-1f, 0.1f}, 3, 0)));
+        assertEquals(List.of("b"), ids(search(store, new float[]{0f, 1f}, 1, 0)));
+
+        store.removeAll();
+        assertEquals(0, store.size());
+        assertThrows(IllegalArgumentException.class, () -> {
+            store.add("x", Embedding.from(new float[]{1f, 0f, 0f}));
+            store.add("y", Embedding.from(new float[]{1f, 0f}));
+        });
+    }
+
+    @Test
+    void snapshotRoundTrip() {
+        Path snapshot = tempDir.resolve("embeddings.bin");
+        Random random = new Random(7);
+        LocalEmbeddingStore store = new LocalEmbeddingStore(snapshot);
+        List<Embedding> embeddings = new ArrayList<>();
+        List<TextSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            embeddings.add(Embedding.from(randomVector(random)));
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("file_name", "心理咨询师综合知识体系.md");
+            metadata.put("index", i);
+            segments.add(i % 10 == 0 ? null : TextSegment.from("第" + i + "段：认知行为疗法与情绪调节", Metadata.from(metadata)));
+        }
+        List<String> ids = store.addAll(embeddings, segments);
+        store.removeAll(List.of(ids.get(3), ids.get(17)));
+        store.flushSnapshot();
+        assertTrue(Files.exists(snapshot));
+
+        LocalEmbeddingStore loaded = new LocalEmbeddingStore(snapshot);
+        assertEquals(store.size(), loaded.size());
+        for (int round = 0; round < 10; round++) {
+            float[] query = randomVector(random);
+            List<EmbeddingMatch<TextSegment>> expected = search(store, query, 3, 0);
+            List<EmbeddingMatch<TextSegment>> actual = search(loaded, query, 3, 0);
+            assertEquals(ids(expected), ids(actual));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-9);
+                assertEquals(expected.get(i).embedded(), actual.get(i).embedded());
+            }
+        }
+        // 删除的ID没有写入快照
+        float[] removed = embeddings.get(3).vector();
+        assertFalse(ids(search(loaded, removed, 1, 0)).contains(ids.get(3)));
+    }
+
+    @Test
+    void closeWritesPendingChanges() {
+        Path snapshot = tempDir.resolve("pending.bin");
+        LocalEmbeddingStore store = new LocalEmbeddingStore(snapshot);
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            store.add("id-" + i, Embedding.from(randomVector(random)));
+        }
+        // 逐条写入时不立即重写快照，而是合并到延迟任务
+        assertFalse(Files.exists(snapshot));
+
+        store.close();
+        assertTrue(Files.exists(snapshot));
+        assertEquals(100, new LocalEmbeddingStore(snapshot).size());
+    }
+
+    @Test
+    void ignoresCorruptSnapshot() throws Exception {
+        Path snapshot = tempDir.resolve("corrupt.bin");
+        Files.write(snapshot, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        LocalEmbeddingStore store = new LocalEmbeddingStore(snapshot);
+        assertEquals(0, store.size());
+    }
+
+    private static List<EmbeddingMatch<TextSegment>> search(LocalEmbeddingStore store, float[] query,
+                                                            int maxResults, double minScore) {
+        return store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(query))
+                .maxResults(maxResults)
+                .minScore(minScore)
+                .build()).matches();
+    }
+
+    private static List<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+        return matches.stream().map(EmbeddingMatch::embeddingId).collect(Collectors.toList());
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,232 @@
+package com.mindease.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindease.common.utils.AesEncryptUtil;
+import com.mindease.config.SecurityProperties;
+import com.mindease.mapper.ChatMessageMapper;
+import com.mindease.pojo.entity.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 聊天消息批量写入缓冲测试
+ * 数据库由内存中的 mapper 替身模拟，可切换为“不可用”（暂时性错误）或拒绝指定内容（数据错误）。
+ * 后台定时写入间隔设为很长，测试中手动触发写入。
+ */
+class ChatMessageWriteBufferTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    // 模拟数据库中已写入的消息
+    private final List<ChatMessage> database = new ArrayList<>();
+
+    // 为 true 时每次写入都以暂时性错误失败
+    private boolean databaseDown;
+
+    // 剩余多少次写入成功后转为不可用，-1 表示不限
+    private int insertsBeforeOutage = -1;
+
+    private final List<ChatMessageWriteBuffer> buffers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setAesKey("MindEase2024SecretKey32Bytes!!!!");
+        new AesEncryptUtil(properties).init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffers.forEach(buffer -> ReflectionTestUtils.invokeMethod(buffer, "destroy"));
+    }
+
+    @Test
+    void outageKeepsMessagesBufferedInsteadOfDeadLettering() {
+        ChatMessageWriteBuffer buffer = newBuffer();
+        for (int i = 0; i < 5; i++) {
+            buffer.enqueue(message("s1", "消息" + i));
+        }
+
+        databaseDown = true;
+        for (int attempt = 0; attempt < 20; attempt++) {
+            assertThrows(TransientDataAccessResourceException.class, () -> flush(buffer));
+        }
+        assertFalse(Files.exists(spillDirectory.resolve("chat-messages.dead")), "数据库不可用时不应转存死信");
+        assertEquals(5, pending(buffer, "s1").size());
+
+        databaseDown = false;
+        flush(buffer);
+        assertEquals(List.of("消息0", "消息1", "消息2", "消息3", "消息4"), contents(database));
+        assertTrue(pending(buffer, "s1").isEmpty());
+        assertFalse(Files.exists(spillDirectory.resolve("chat-messages.flushing")));
+    }
+
+    @Test
+    void dataErrorDeadLettersOnlyTheBadMessage() throws Exception {
+        ChatMessageWriteBuffer buffer = newBuffer();
+        for (int i = 0; i < 7; i++) {
+            buffer.enqueue(message("s1", i == 4 ? "BAD" : "消息" + i));
+        }
+
+        flush(buffer);
+
+        assertEquals(List.of("消息0", "消息1", "消息2", "消息3", "消息5", "消息6"), contents(database));
+        assertEquals(1, Files.readAllLines(spillDirectory.resolve("chat-messages.dead")).size());
+        assertTrue(pending(buffer, "s1").isEmpty());
+    }
+
+    @Test
+    void outageWhileSplittingKeepsUnsettledMessages() {
+        ChatMessageWriteBuffer buffer = newBuffer();
+        for (int i = 0; i < 8; i++) {
+            buffer.enqueue(message("s1", i == 6 ? "BAD" : "消息" + i));
+        }
+
+        // 整批因数据错误失败，拆分后第一半写入成功，之后数据库不可用
+        insertsBeforeOutage = 1;
+        assertThrows(TransientDataAccessResourceException.class, () -> flush(buffer));
+        assertEquals(List.of("消息0", "消息1", "消息2", "消息3"), contents(database));
+        assertEquals(List.of("消息4", "消息5", "BAD", "消息7"), contents(pending(buffer, "s1")));
+        assertFalse(Files.exists(spillDirectory.resolve("chat-messages.dead")));
+
+        // 重启后只恢复未写入的消息
+        ChatMessageWriteBuffer restarted = restart(buffer);
+        assertEquals(List.of("消息4", "消息5", "BAD", "消息7"), contents(pending(restarted, "s1")));
+
+        insertsBeforeOutage = -1;
+        databaseDown = false;
+        flush(restarted);
+        assertEquals(List.of("消息0", "消息1", "消息2", "消息3", "消息4", "消息5", "消息7"), contents(database));
+    }
+
+    @Test
+    void discardSessionDropsPendingMessagesAndJournalEntries() {
+        ChatMessageWriteBuffer buffer = newBuffer();
+        buffer.enqueue(message("s1", "旧消息"));
+        buffer.enqueue(message("s2", "保留1"));
+
+        // 一批写入失败后留在 inFlight，之后的消息仍在队列中
+        databaseDown = true;
+        assertThrows(TransientDataAccessResourceException.class, () -> flush(buffer));
+        buffer.enqueue(message("s1", "新消息"));
+        buffer.enqueue(message("s2", "保留2"));
+
+        assertEquals(2, buffer.discardSession("s1"));
+        assertTrue(pending(buffer, "s1").isEmpty());
+        assertEquals(List.of("保留1", "保留2"), contents(pending(buffer, "s2")));
+
+        // 本地日志中也已移除，重启恢复时不会再写入已删除会话的消息
+        ChatMessageWriteBuffer restarted = restart(buffer);
+        assertTrue(pending(restarted, "s1").isEmpty());
+        assertEquals(List.of("保留1", "保留2"), contents(pending(restarted, "s2")));
+
+        databaseDown = false;
+        flush(restarted);
+        assertEquals(List.of("保留1", "保留2"), contents(database));
+    }
+
+    @Test
+    void classifiesDataErrors() {
+        assertTrue(ChatMessageWriteBuffer.isDataError(new DataIntegrityViolationException("duplicate")));
+        assertTrue(ChatMessageWriteBuffer.isDataError(
+                new RuntimeException(new java.sql.SQLException("Data too long", "22001"))));
+        assertFalse(ChatMessageWriteBuffer.isDataError(new TransientDataAccessResourceException("down")));
+        assertFalse(ChatMessageWriteBuffer.isDataError(
+                new RuntimeException(new java.sql.SQLException("Communications link failure", "08S01"))));
+        assertFalse(ChatMessageWriteBuffer.isDataError(new IllegalStateException("unknown")));
+    }
+
+    private ChatMessageWriteBuffer newBuffer() {
+        ChatMessageMapper mapper = (ChatMessageMapper) Proxy.newProxyInstance(
+                ChatMessageMapper.class.getClassLoader(), new Class<?>[]{ChatMessageMapper.class},
+                (proxy, method, args) -> {
+                    if (!"insertBatch".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    @SuppressWarnings("unchecked")
+                    List<ChatMessage> messages = (List<ChatMessage>) args[0];
+                    insert(messages);
+                    return null;
+                });
+
+        ChatMessageWriteBuffer buffer = new ChatMessageWriteBuffer();
+        ReflectionTestUtils.setField(buffer, "chatMessageMapper", mapper);
+        ReflectionTestUtils.setField(buffer, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(buffer, "batchSize", 100);
+        ReflectionTestUtils.setField(buffer, "flushIntervalMillis", 3_600_000L);
+        ReflectionTestUtils.setField(buffer, "spillDirectory", spillDirectory.toString());
+        ReflectionTestUtils.setField(buffer, "fsync", false);
+        ReflectionTestUtils.setField(buffer, "capacity", 1000);
+        ReflectionTestUtils.setField(buffer, "enqueueTimeoutMillis", 100L);
+        ReflectionTestUtils.setField(buffer, "maxBackoffMillis", 1000L);
+        ReflectionTestUtils.invokeMethod(buffer, "init");
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * 在数据库仍不可用时停止缓冲（停机前的写入失败，消息留在本地日志中），再以同一目录启动新实例
+     */
+    private ChatMessageWriteBuffer restart(ChatMessageWriteBuffer buffer) {
+        ReflectionTestUtils.invokeMethod(buffer, "destroy");
+        buffers.remove(buffer);
+        return newBuffer();
+    }
+
+    private void insert(List<ChatMessage> messages) {
+        if (databaseDown) {
+            throw new TransientDataAccessResourceException("数据库不可用");
+        }
+        if (messages.stream().anyMatch(message -> "BAD".equals(message.getContent()))) {
+            throw new DataIntegrityViolationException("Incorrect string value");
+        }
+        if (insertsBeforeOutage == 0) {
+            databaseDown = true;
+            throw new TransientDataAccessResourceException("数据库不可用");
+        }
+        if (insertsBeforeOutage > 0) {
+            insertsBeforeOutage--;
+        }
+        database.addAll(messages);
+    }
+
+    private static void flush(ChatMessageWriteBuffer buffer) {
+        ReflectionTestUtils.invokeMethod(buffer, "flush", true);
+    }
+
+    private static List<ChatMessage> pending(ChatMessageWriteBuffer buffer, String sessionId) {
+        return buffer.readWithPending(sessionId, () -> {
+        });
+    }
+
+    private static List<String> contents(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getContent).collect(Collectors.toList());
+    }
+
+    private static ChatMessage message(String sessionId, String content) {
+        ChatMessage message = new ChatMessage();
+        message.setSessionId(sessionId);
+        message.setUserId(1L);
+        message.setMessageRole("USER");
+        message.setContent(content);
+        message.setCreateTime(LocalDateTime.now());
+        message.setUpdateTime(message.getCreateTime());
+        return message;
+    }
+}
@@ -0,0 +1,136 @@
+package com.mindease.service;
+
+import com.mindease.pojo.dto.ReviewSubmitDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 提交评价时的评分统计测试（使用配置的数据库，数据在测试结束后删除）
+ */
+@SpringBootTest
+class CounselorReviewRatingTest {
+
+    private static final int CONCURRENT_REVIEWS = 20;
+
+    @Autowired
+    private CounselorService counselorService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long counselorId;
+
+    @BeforeEach
+    void setUp() {
+        // 取一个不会与真实数据冲突的咨询师ID
+        counselorId = 9_000_000_000L + ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from counselor_review where counselor_id = ?", counselorId);
+        jdbcTemplate.update("delete from counselor_review_tag where counselor_id = ?", counselorId);
+        jdbcTemplate.update("delete from appointment where counselor_id = ?", counselorId);
+        jdbcTemplate.update("delete from counselor_profile where user_id = ?", counselorId);
+    }
+
+    @Test
+    void concurrentReviewsAreAllCounted() throws Exception {
+        insertProfile(0, 0);
+        List<Long> userIds = new ArrayList<>();
+        List<Long> appointmentIds = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REVIEWS; i++) {
+            long userId = counselorId + 1 + i;
+            userIds.add(userId);
+            appointmentIds.add(insertCompletedAppointment(userId));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REVIEWS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        int expectedSum = 0;
+        try {
+            for (int i = 0; i < CONCURRENT_REVIEWS; i++) {
+                int rating = i % 5 + 1;
+                expectedSum += rating;
+                Long userId = userIds.get(i);
+                ReviewSubmitDTO dto = review(appointmentIds.get(i), rating);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return counselorService.submitReview(userId, dto);
+                }));
+            }
+            start.countDown();
+            for (Future<Long> future : futures) {
+                assertNotNull(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertRating(CONCURRENT_REVIEWS, expectedSum);
+    }
+
+    @Test
+    void unbackfilledRatingSumIsRecomputed() {
+        // 升级前的数据：已有3条评价，rating_sum 未回填
+        insertProfile(3, 0);
+        for (int rating : new int[]{5, 4, 3}) {
+            jdbcTemplate.update("insert into counselor_review(appointment_id, counselor_id, user_id, rating, create_time) " +
+                    "values(?, ?, ?, ?, ?)", 0L, counselorId, counselorId + 100, rating, LocalDateTime.now());
+        }
+        long userId = counselorId + 1;
+        counselorService.submitReview(userId, review(insertCompletedAppointment(userId), 2));
+
+        assertRating(4, 14);
+
+        // 回填后恢复累加
+        long nextUserId = counselorId + 2;
+        counselorService.submitReview(nextUserId, review(insertCompletedAppointment(nextUserId), 5));
+        assertRating(5, 19);
+    }
+
+    private void assertRating(int expectedCount, int expectedSum) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select review_count, rating_sum, rating from counselor_profile where user_id = ?", counselorId);
+        assertEquals(expectedCount, ((Number) row.get("review_count")).intValue());
+        assertEquals(expectedSum, ((Number) row.get("rating_sum")).intValue());
+        BigDecimal expectedRating = BigDecimal.valueOf(expectedSum)
+                .divide(BigDecimal.valueOf(expectedCount), 1, RoundingMode.HALF_UP);
+        assertEquals(0, expectedRating.compareTo((BigDecimal) row.get("rating")));
+    }
+
+    private void insertProfile(int reviewCount, int ratingSum) {
+        jdbcTemplate.update("insert into counselor_profile(user_id, real_name, rating, review_count, rating_sum) " +
+                "values(?, ?, ?, ?, ?)", counselorId, "测试咨询师", new BigDecimal("5.0"), reviewCount, ratingSum);
+    }
+
+    private long insertCompletedAppointment(long userId) {
+        LocalDateTime startTime = LocalDateTime.now().minusDays(1);
+        jdbcTemplate.update("insert into appointment(user_id, counselor_id, start_time, end_time, status) " +
+                "values(?, ?, ?, ?, 'COMPLETED')", userId, counselorId, startTime, startTime.plusHours(1));
+        return jdbcTemplate.queryForObject("select max(id) from appointment where user_id = ? and counselor_id = ?",
+                Long.class, userId, counselorId);
+    }
+
+    private static ReviewSubmitDTO review(Long appointmentId, int rating) {
+        ReviewSubmitDTO dto = new ReviewSubmitDTO();
+        dto.setAppointmentId(appointmentId);
+        dto.setRating(rating);
+        return dto;
+    }
+}